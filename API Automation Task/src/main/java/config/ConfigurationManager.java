@@ -1,13 +1,17 @@
 package config;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 /**
  * Configuration management utility for loading and accessing application properties.
  * Provides a centralized way to read configuration values from the config.properties file
  * located in the classpath resources. Properties are loaded once at class initialization
  * and cached for efficient access throughout the application lifecycle.
+ * JVM system properties with the same key take precedence over the file, so any value
+ * can be overridden from the command line (for example {@code -Dload.threads=500}).
  */
 public class ConfigurationManager {
 
@@ -27,13 +31,57 @@ public class ConfigurationManager {
 
     /**
      * Retrieves a configuration property value by its key.
-     * Returns the string value associated with the specified key from the loaded properties.
+     * Returns the system property value when one is set, otherwise the string value
+     * associated with the specified key from the loaded properties, without surrounding whitespace.
      * Returns null if the key is not found.
      *
      * @param key The property key to look up in the configuration
-     * @return The string value of the property, or null if not found
+     * @return The trimmed string value of the property, or null if not found
      */
     public static String getProperty(String key) {
-        return properties.getProperty(key);
+        String value = System.getProperty(key, properties.getProperty(key));
+        return value != null ? value.trim() : null;
+    }
+
+    /**
+     * Retrieves a configuration property value, falling back to a default when the key is not set.
+     *
+     * @param key The property key to look up in the configuration
+     * @param defaultValue The value returned when the key is missing
+     * @return The string value of the property, or defaultValue if not found
+     */
+    public static String getProperty(String key, String defaultValue) {
+        String value = getProperty(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Returns the JVM system properties that override keys of the configuration file, for example to
+     * pass the same configuration on to a child JVM.
+     *
+     * @return The overriding values by key
+     */
+    public static Map<String, String> getOverrides() {
+        Map<String, String> overrides = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            String value = System.getProperty(key);
+            if (value != null) {
+                overrides.put(key, value);
+            }
+        }
+        return overrides;
+    }
+
+    /**
+     * Retrieves a numeric configuration property value.
+     *
+     * @param key The property key to look up in the configuration
+     * @param defaultValue The value returned when the key is missing
+     * @return The long value of the property, or defaultValue if not found
+     * @throws NumberFormatException if the configured value is not a valid number
+     */
+    public static long getLongProperty(String key, long defaultValue) {
+        String value = getProperty(key);
+        return value != null ? Long.parseLong(value) : defaultValue;
     }
 }
@@ -0,0 +1,136 @@
+package load;
+
+/**
+ * Target arrival rate of an open-model run over time, used by the {@link ArrivalRateScheduler}.
+ * Unlike the closed {@link LoadProfile}, the rate is independent of how fast the system answers:
+ * arrivals keep coming on schedule while responses are slow.
+ * Implementations must be thread-safe; the built-in ones are immutable.
+ */
+@FunctionalInterface
+public interface ArrivalProfile {
+
+    /**
+     * Returns the target rate at a point of the run.
+     *
+     * @param elapsedSeconds Time since the start of the run in seconds
+     * @return Arrivals per second, 0 for a pause
+     */
+    double ratePerSecond(double elapsedSeconds);
+
+    /**
+     * Returns a profile with this profile's rate multiplied by a factor, e.g. one worker's share of the
+     * rate in a distributed run.
+     *
+     * @param factor The factor applied to every rate
+     * @return ArrivalProfile with scaled rates
+     */
+    default ArrivalProfile scaled(double factor) {
+        requireRate(factor);
+        return elapsed -> ratePerSecond(elapsed) * factor;
+    }
+
+    /**
+     * Creates a profile with the same rate throughout the run.
+     *
+     * @param rate Arrivals per second
+     * @return ArrivalProfile with a constant rate
+     */
+    static ArrivalProfile constant(double rate) {
+        requireRate(rate);
+        return elapsed -> rate;
+    }
+
+    /**
+     * Creates a profile that changes linearly from one rate to another and then holds the final rate.
+     *
+     * @param from Arrivals per second at the start of the run
+     * @param to Arrivals per second at the end of the ramp and after it
+     * @param seconds Length of the ramp in seconds
+     * @return ArrivalProfile with a linear ramp
+     */
+    static ArrivalProfile ramp(double from, double to, double seconds) {
+        requireRate(from);
+        requireRate(to);
+        if (seconds <= 0) {
+            return constant(to);
+        }
+        return elapsed -> elapsed >= seconds ? to : from + (to - from) * elapsed / seconds;
+    }
+
+    /**
+     * Creates a profile that starts at a rate and raises it by a fixed amount at fixed intervals,
+     * the usual shape for finding the rate at which a system saturates.
+     *
+     * @param start Arrivals per second of the first step
+     * @param increment Arrivals per second added by every further step
+     * @param stepSeconds Length of every step in seconds
+     * @param max Upper bound of the rate
+     * @return ArrivalProfile with rate steps
+     */
+    static ArrivalProfile step(double start, double increment, double stepSeconds, double max) {
+        requireRate(start);
+        requireRate(max);
+        if (stepSeconds <= 0) {
+            throw new IllegalArgumentException("step length must be positive but was " + stepSeconds);
+        }
+        return elapsed -> Math.max(0, Math.min(max, start + increment * Math.floor(elapsed / stepSeconds)));
+    }
+
+    /**
+     * Creates a profile with a base rate and one burst at a higher rate.
+     *
+     * @param base Arrivals per second outside the spike
+     * @param peak Arrivals per second during the spike
+     * @param atSeconds Start of the spike in seconds since the start of the run
+     * @param seconds Length of the spike in seconds
+     * @return ArrivalProfile with a spike
+     */
+    static ArrivalProfile spike(double base, double peak, double atSeconds, double seconds) {
+        requireRate(base);
+        requireRate(peak);
+        return elapsed -> elapsed >= atSeconds && elapsed < atSeconds + seconds ? peak : base;
+    }
+
+    /**
+     * Parses a profile from its configuration form, rates in arrivals per second and times in seconds.
+     * Supported forms are {@code constant:50}, {@code ramp:10-200,60} (from, to, ramp length),
+     * {@code step:50,25,30} or {@code step:50,25,30,400} (start, increment, step length, optional maximum)
+     * and {@code spike:50,500,60,10} (base, peak, spike start, spike length).
+     *
+     * @param spec The profile specification
+     * @return ArrivalProfile described by the specification
+     * @throws IllegalArgumentException if the specification cannot be parsed
+     */
+    static ArrivalProfile parse(String spec) {
+        String[] parts = spec == null ? new String[0] : spec.trim().split(":", 2);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid arrival profile: " + spec);
+        }
+        String[] args = parts[1].trim().split(",");
+        try {
+            return switch (parts[0].trim()) {
+                case "constant" -> constant(Double.parseDouble(args[0]));
+                case "ramp" -> {
+                    String[] rates = args[0].split("-", 2);
+                    if (rates.length != 2 || args.length != 2) {
+                        throw new IllegalArgumentException("Expected ramp:<from>-<to>,<seconds> but got " + spec);
+                    }
+                    yield ramp(Double.parseDouble(rates[0]), Double.parseDouble(rates[1]), Double.parseDouble(args[1]));
+                }
+                case "step" -> step(Double.parseDouble(args[0]), Double.parseDouble(args[1]), Double.parseDouble(args[2]),
+                        args.length > 3 ? Double.parseDouble(args[3]) : Double.MAX_VALUE);
+                case "spike" -> spike(Double.parseDouble(args[0]), Double.parseDouble(args[1]),
+                        Double.parseDouble(args[2]), Double.parseDouble(args[3]));
+                default -> throw new IllegalArgumentException("Unknown arrival profile: " + spec);
+            };
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid arrival profile: " + spec, e);
+        }
+    }
+
+    private static void requireRate(double rate) {
+        if (!(rate >= 0) || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException("rate must be a non-negative number but was " + rate);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package load;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import config.ConfigurationManager;
+import utils.LatencyRecorder;
+
+/**
+ * Open-model load generator issuing scenario iterations at a target arrival rate.
+ * The closed {@link LoadEngine}, like a JMeter Thread Group, only starts the next iteration of a user
+ * when the previous one has finished, so a slow server throttles its own load and the time requests
+ * would have waited is never measured (coordinated omission). Here every arrival has an intended start
+ * time derived from the {@link ArrivalProfile} alone, and is dispatched on its own virtual thread at that
+ * time no matter how many earlier iterations are still running.
+ * <p>
+ * Arrivals borrow an idle {@link VirtualUser} from a pool, which grows up to {@code maxUsers} users, so
+ * per-user state such as a data feed partition is still used by one iteration at a time. When every user
+ * is busy an arrival waits for one; that wait is part of its response time, measured from the intended
+ * start, while its service time is measured from the actual start of the iteration.
+ */
+public class ArrivalRateScheduler {
+
+    /** Logger instance for reporting run progress and results */
+    private static final Logger logger = LogManager.getLogger(ArrivalRateScheduler.class);
+
+    /** Longest step of the rate integration, so that a change of the rate is noticed within it */
+    private static final long MAX_STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Target arrival rate over time */
+    private final ArrivalProfile profile;
+
+    /** Time during which arrivals are scheduled */
+    private final Duration duration;
+
+    /** Upper bound of the virtual users, and so of the iterations in flight */
+    private final int maxUsers;
+
+    /** Fraction of an arrival by which every arrival is shifted on the scale of the integrated rate */
+    private final double phase;
+
+    /** Set when the run is asked to stop before its duration elapses; never cleared, so an early stop is kept */
+    private volatile boolean stopped;
+
+    /**
+     * Creates a new scheduler.
+     *
+     * @param profile The target arrival rate over time
+     * @param duration The time during which arrivals are scheduled; iterations in flight at its end complete
+     * @param maxUsers The largest number of virtual users, and so of concurrent iterations
+     */
+    public ArrivalRateScheduler(ArrivalProfile profile, Duration duration, int maxUsers) {
+        this(profile, duration, maxUsers, 0);
+    }
+
+    /**
+     * Creates a scheduler whose arrivals are shifted by part of an arrival, so that several schedulers
+     * sharing a rate interleave their arrivals instead of firing together.
+     *
+     * @param profile The target arrival rate over time
+     * @param duration The time during which arrivals are scheduled; iterations in flight at its end complete
+     * @param maxUsers The largest number of virtual users, and so of concurrent iterations
+     * @param phase Fraction of an arrival, from 0 inclusive to 1 exclusive, by which every arrival is delayed:
+     *              arrival {@code k} is due when the integrated rate reaches {@code k + phase}, e.g.
+     *              {@code index / count} for one of {@code count} schedulers
+     */
+    public ArrivalRateScheduler(ArrivalProfile profile, Duration duration, int maxUsers, double phase) {
+        if (maxUsers < 1) {
+            throw new IllegalArgumentException("maxUsers must be at least 1 but was " + maxUsers);
+        }
+        if (!(phase >= 0 && phase < 1)) {
+            throw new IllegalArgumentException("phase must be at least 0 and below 1 but was " + phase);
+        }
+        this.profile = profile;
+        this.duration = duration;
+        this.maxUsers = maxUsers;
+        this.phase = phase;
+    }
+
+    /**
+     * Builds a scheduler from {@code load.arrival} (see {@link ArrivalProfile#parse(String)}),
+     * {@code load.duration} and {@code load.arrival.max.users}, each of which can be overridden with a
+     * system property.
+     *
+     * @return ArrivalRateScheduler read from the configuration
+     */
+    public static ArrivalRateScheduler fromConfiguration() {
+        return new ArrivalRateScheduler(
+                ArrivalProfile.parse(ConfigurationManager.getProperty("load.arrival", "constant:10")),
+                Duration.ofSeconds(ConfigurationManager.getLongProperty("load.duration", 3600)),
+                (int) ConfigurationManager.getLongProperty("load.arrival.max.users", 1000));
+    }
+
+    /**
+     * Returns the largest number of virtual users the scheduler creates.
+     *
+     * @return The user limit, to partition per-user data by
+     */
+    public int maxUsers() {
+        return maxUsers;
+    }
+
+    /**
+     * Issues arrivals until the duration has elapsed and blocks until every iteration has finished.
+     * Arrival {@code k} is due when the integral of the profile's rate since the start reaches
+     * {@code k + phase}, so ramps and spikes from a low or zero rate get the arrivals their area holds.
+     *
+     * @param scenario The scenario providing the virtual users
+     * @return ArrivalResult with counts and both service and response time histograms
+     */
+    public ArrivalResult run(Scenario scenario) {
+        LongAdder iterations = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder queued = new LongAdder();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger created = new AtomicInteger();
+        Queue<VirtualUser> idle = new ConcurrentLinkedQueue<>();
+        Semaphore users = new Semaphore(maxUsers);
+        LatencyRecorder serviceTime = new LatencyRecorder();
+        LatencyRecorder responseTime = new LatencyRecorder();
+        long arrivals = 0;
+
+        long start = System.nanoTime();
+        logger.info("Starting arrival-rate run: {}s duration, up to {} users", duration.toSeconds(), maxUsers);
+
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("arrival-", 1).factory())) {
+            long length = duration.toNanos();
+            long elapsed = 0;
+            // Arrivals due by elapsed, the integral of the rate, and the value at which the next one is due
+            double due = 0;
+            double target = phase;
+            while (!stopped) {
+                // Steps at the midpoint rate, which is exact for constant and linear parts of the profile; the
+                // first arrival also needs some rate, so that a run starting with a pause does not fire at once
+                while ((due < target || due == 0) && elapsed < length) {
+                    double rate = profile.ratePerSecond(elapsed / 1e9);
+                    long step = rate > 0
+                            ? Math.min(MAX_STEP_NANOS, Math.max(1, (long) Math.ceil((target - due) / rate * 1e9)))
+                            : MAX_STEP_NANOS;
+                    due += profile.ratePerSecond((elapsed + step / 2) / 1e9) * step / 1e9;
+                    elapsed += step;
+                }
+                if (elapsed >= length) {
+                    break;
+                }
+                long next = start + elapsed;
+                parkUntil(next);
+                if (stopped) {
+                    break;
+                }
+                long intendedStart = next;
+                executor.execute(() -> {
+                    if (!users.tryAcquire()) {
+                        queued.increment();
+                        users.acquireUninterruptibly();
+                    }
+                    VirtualUser user = idle.poll();
+                    peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    long actualStart = System.nanoTime();
+                    try {
+                        if (user == null) {
+                            user = scenario.newUser(created.getAndIncrement());
+                        }
+                        user.iterate();
+                    } catch (Exception e) {
+                        errors.increment();
+                        logger.debug("Iteration intended at +{} ms failed", (intendedStart - start) / 1_000_000, e);
+                    } finally {
+                        long end = System.nanoTime();
+                        serviceTime.record(end - actualStart);
+                        responseTime.record(end - intendedStart);
+                        iterations.increment();
+                        inFlight.decrementAndGet();
+                        if (user != null) {
+                            idle.offer(user);
+                        }
+                        users.release();
+                    }
+                });
+                arrivals++;
+                target++;
+            }
+        }
+
+        ArrivalResult result = new ArrivalResult(arrivals, iterations.sum(), errors.sum(), queued.sum(), peak.get(),
+                Duration.ofNanos(System.nanoTime() - start), serviceTime.snapshot(), responseTime.snapshot());
+        logger.info("Arrival-rate run finished: {} arrivals, {} iterations, {} errors, {} queued, {} peak in flight, {} ms, {} it/s",
+                result.arrivals(), result.iterations(), result.errors(), result.queued(), result.peakUsers(),
+                result.elapsed().toMillis(), String.format("%.1f", result.throughput()));
+        logger.info("Service time (from actual start): {}", LatencyRecorder.summary(result.serviceTime()));
+        logger.info("Response time (from intended start): {}", LatencyRecorder.summary(result.responseTime()));
+        return result;
+    }
+
+    /**
+     * Asks a running load to stop. No further arrivals are issued; iterations in flight finish.
+     * A stop requested before {@link #run(Scenario)} makes the run return at once; the scheduler stays stopped.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Parks the current thread until the given System.nanoTime() instant or until the run is stopped.
+     *
+     * @param deadline The nanoTime instant to wait for
+     */
+    private void parkUntil(long deadline) {
+        long remaining;
+        while (!stopped && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+        }
+    }
+
+    /**
+     * Command-line entry point running the login → invoice scenario at the configured arrival rate.
+     * Example: {@code mvn -q compile exec:java -Dexec.mainClass=load.ArrivalRateScheduler -Dload.arrival=ramp:10-500,300}.
+     * Live metrics are logged every second (see {@link LiveMetrics}); a run aborted by them exits with status 2.
+     * Set {@code load.results.file} to write every request to a {@link SampleLog} for {@link SampleReport}.
+     *
+     * @param args Unused
+     * @throws IOException if the data feed file cannot be mapped, the metrics endpoint cannot be bound or the sample log cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        ArrivalRateScheduler scheduler = fromConfiguration();
+        LoginInvoiceScenario scenario = LoginInvoiceScenario.fromConfiguration(scheduler.maxUsers());
+        ArrivalResult result;
+        String abortReason;
+        try (LiveMetrics metrics = LiveMetrics.fromConfiguration().start(scheduler::stop);
+             SampleLogWriter samples = SampleLogWriter.fromConfiguration("")) {
+            if (samples != null) {
+                scenario.logTo(samples);
+            }
+            result = scheduler.run(scenario.recordTo(metrics));
+            abortReason = metrics.abortReason();
+        }
+        if (scenario.tokens() != null) {
+            logger.info("Access tokens: {}", scenario.tokens().summary());
+        }
+        if (abortReason != null) {
+            logger.error("Run aborted: {}", abortReason);
+            System.exit(2);
+        }
+        System.exit(result.errors() == 0 ? 0 : 1);
+    }
+}
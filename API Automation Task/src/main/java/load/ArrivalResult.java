@@ -0,0 +1,78 @@
+package load;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Summary of a finished open-model run produced by the {@link ArrivalRateScheduler}.
+ * Latencies are reported twice: the service time from the actual start of an iteration, which is what a
+ * closed-model tool measures, and the response time from the intended start given by the arrival rate,
+ * which includes the time an arrival waited for a free virtual user and is free of coordinated omission.
+ *
+ * @param arrivals Number of arrivals scheduled
+ * @param iterations Number of completed iterations
+ * @param errors Number of iterations that ended with an exception
+ * @param queued Number of arrivals that found every virtual user busy and had to wait
+ * @param peakUsers Highest number of iterations in flight at the same time
+ * @param elapsed Wall-clock time of the run
+ * @param serviceTime Histogram of latencies from the actual start in nanoseconds
+ * @param responseTime Histogram of latencies from the intended start in nanoseconds
+ */
+public record ArrivalResult(long arrivals, long iterations, long errors, long queued, int peakUsers, Duration elapsed,
+                            Histogram serviceTime, Histogram responseTime) {
+
+    /**
+     * Merges the results of runs that took place at the same time, such as the workers of a distributed run.
+     * Counts are added, the elapsed time is the longest one and the histograms are added bucket by bucket,
+     * so percentiles of the merged result are exactly those of all samples together.
+     * The peak users are the sum of the individual peaks, an upper bound of the combined peak.
+     *
+     * @param results The results to merge, at least one
+     * @return ArrivalResult of all runs together
+     */
+    public static ArrivalResult merge(List<ArrivalResult> results) {
+        ArrivalResult first = results.get(0);
+        Histogram serviceTime = first.serviceTime().copy();
+        Histogram responseTime = first.responseTime().copy();
+        long arrivals = 0;
+        long iterations = 0;
+        long errors = 0;
+        long queued = 0;
+        int peakUsers = 0;
+        Duration elapsed = Duration.ZERO;
+        for (ArrivalResult result : results) {
+            arrivals += result.arrivals();
+            iterations += result.iterations();
+            errors += result.errors();
+            queued += result.queued();
+            peakUsers += result.peakUsers();
+            elapsed = elapsed.compareTo(result.elapsed()) >= 0 ? elapsed : result.elapsed();
+            if (result != first) {
+                serviceTime.add(result.serviceTime());
+                responseTime.add(result.responseTime());
+            }
+        }
+        return new ArrivalResult(arrivals, iterations, errors, queued, peakUsers, elapsed, serviceTime, responseTime);
+    }
+
+    /**
+     * Calculates the average completed iteration throughput of the run.
+     *
+     * @return Iterations per second, or 0 when the run took no measurable time
+     */
+    public double throughput() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? 0 : iterations * 1000.0 / millis;
+    }
+
+    /**
+     * Calculates the share of failed iterations.
+     *
+     * @return Error rate between 0 and 1
+     */
+    public double errorRate() {
+        return iterations == 0 ? 0 : (double) errors / iterations;
+    }
+}
@@ -0,0 +1,524 @@
+package load;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Memory-mapped file of fixed-width test data records (users, addresses, payment methods) for load runs.
+ * The file is mapped read-only, so millions of records cost no heap and are paged in by the operating system
+ * as they are read. Every virtual user takes its own {@link Partition}, a disjoint range of records it cycles
+ * through, so no two users share a record and no locks are needed. A partition hands out one reused
+ * {@link Record} view whose fields are reused {@link CharSequence}s, decoded into per-field buffers, so
+ * iterating allocates nothing; the values can be passed straight to {@link utils.PayloadTemplate}.
+ * <p>
+ * File layout, big-endian:
+ * <pre>
+ * magic        8 bytes  "JDFEED01"
+ * fieldCount   int
+ * fields       fieldCount x (width: unsigned byte, nameLength: unsigned short, name: UTF-8 bytes)
+ * recordCount  long
+ * records      recordCount x fieldCount x (length: unsigned byte, value: UTF-8 bytes padded to width)
+ * </pre>
+ * Files are written with {@link Writer}, usually through {@link DataFeedGenerator}.
+ */
+public class DataFeed {
+
+    /** Magic number at the start of every feed file */
+    private static final byte[] MAGIC = "JDFEED01".getBytes(StandardCharsets.US_ASCII);
+
+    /** Upper bound of the bytes mapped by one buffer, a multiple of the record size is used */
+    private static final long CHUNK_BYTES = 1L << 30;
+
+    /** Fields of every record */
+    private final List<Field> fields;
+
+    /** Offset of every field within a record */
+    private final int[] offsets;
+
+    /** Size of one record in bytes */
+    private final int recordSize;
+
+    /** Number of records */
+    private final long size;
+
+    /** Read-only mappings of the records, each holding recordsPerChunk records */
+    private final MappedByteBuffer[] chunks;
+
+    /** Number of records per mapping */
+    private final long recordsPerChunk;
+
+    /**
+     * Creates a feed from its parsed header and mappings.
+     *
+     * @param fields The record fields
+     * @param size The number of records
+     * @param chunks Mappings of the records
+     * @param recordsPerChunk The number of records per mapping
+     */
+    private DataFeed(List<Field> fields, long size, MappedByteBuffer[] chunks, long recordsPerChunk) {
+        this.fields = List.copyOf(fields);
+        this.offsets = new int[fields.size()];
+        int offset = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = offset;
+            offset += 1 + fields.get(i).width();
+        }
+        this.recordSize = offset;
+        this.size = size;
+        this.chunks = chunks;
+        this.recordsPerChunk = recordsPerChunk;
+    }
+
+    /**
+     * Maps a feed file. The file channel is closed right away; the mappings stay valid until the feed is
+     * garbage collected.
+     *
+     * @param file The feed file
+     * @return The mapped feed
+     * @throws IOException if the file cannot be read or is not a complete feed file
+     */
+    public static DataFeed open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(channel.size(), 64 * 1024));
+            channel.read(header, 0);
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            if (header.remaining() >= MAGIC.length) {
+                header.get(magic);
+            }
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException(file + " is not a data feed file");
+            }
+            int fieldCount = header.getInt();
+            List<Field> fields = new ArrayList<>(fieldCount);
+            int recordSize = 0;
+            for (int i = 0; i < fieldCount; i++) {
+                int width = Byte.toUnsignedInt(header.get());
+                byte[] name = new byte[Short.toUnsignedInt(header.getShort())];
+                header.get(name);
+                fields.add(new Field(new String(name, StandardCharsets.UTF_8), width));
+                recordSize += 1 + width;
+            }
+            long size = header.getLong();
+            long dataOffset = header.position();
+            if (fieldCount == 0 || dataOffset + size * recordSize > channel.size()) {
+                throw new IOException(file + " is truncated: " + size + " records of " + recordSize
+                        + " bytes do not fit in " + channel.size() + " bytes");
+            }
+            long recordsPerChunk = Math.max(1, CHUNK_BYTES / recordSize);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((size + recordsPerChunk - 1) / recordsPerChunk)];
+            for (int i = 0; i < chunks.length; i++) {
+                long first = i * recordsPerChunk;
+                long count = Math.min(recordsPerChunk, size - first);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + first * recordSize, count * recordSize);
+            }
+            return new DataFeed(fields, size, chunks, recordsPerChunk);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + " has an incomplete header", e);
+        }
+    }
+
+    /**
+     * Returns the fields of the records.
+     *
+     * @return Field names and widths in record order
+     */
+    public List<Field> fields() {
+        return fields;
+    }
+
+    /**
+     * Returns the position of a field within a record.
+     *
+     * @param name The field name
+     * @return The field index for {@link Record#get(int)}
+     * @throws IllegalArgumentException if the feed has no such field
+     */
+    public int fieldIndex(String name) {
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).name().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Data feed has no field \"" + name + "\", only " + fields);
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return The record count
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Creates the partition of one virtual user: the {@code index}-th of {@code count} equal, disjoint and
+     * contiguous record ranges.
+     *
+     * @param index Zero-based partition index, usually the virtual user id
+     * @param count Number of partitions, usually the number of virtual users
+     * @return A partition for use by a single thread
+     * @throws IllegalArgumentException if the index is out of range or there are fewer records than partitions
+     */
+    public Partition partition(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("Partition " + index + " out of range for " + count + " partitions");
+        }
+        if (size < count) {
+            throw new IllegalArgumentException("Data feed has " + size + " records, fewer than the " + count + " partitions");
+        }
+        return new Partition(size * index / count, size * (index + 1) / count);
+    }
+
+    /**
+     * Name and maximum encoded length of a record field.
+     *
+     * @param name The field name
+     * @param width The maximum UTF-8 length of a value, 1 to 255 bytes
+     */
+    public record Field(String name, int width) {
+
+        /**
+         * Validates the field on construction.
+         *
+         * @throws IllegalArgumentException if the width is out of range
+         */
+        public Field {
+            if (width < 1 || width > 255) {
+                throw new IllegalArgumentException("Width of field " + name + " must be 1 to 255 but was " + width);
+            }
+        }
+    }
+
+    /**
+     * Contiguous range of records cycled through by one virtual user.
+     * Instances are confined to a single thread.
+     */
+    public final class Partition {
+
+        /** First record of the range */
+        private final long first;
+
+        /** End of the range, exclusive */
+        private final long end;
+
+        /** The reused record view */
+        private final Record record = new Record();
+
+        /** Next record to hand out */
+        private long next;
+
+        /** Number of completed passes over the range */
+        private long cycles;
+
+        /**
+         * Creates a partition.
+         *
+         * @param first The first record
+         * @param end The end of the range, exclusive
+         */
+        private Partition(long first, long end) {
+            this.first = first;
+            this.end = end;
+            this.next = first;
+        }
+
+        /**
+         * Moves the record view to the next record, starting over at the first record after the last one.
+         *
+         * @return The record view, the same instance on every call
+         */
+        public Record next() {
+            if (next == end) {
+                next = first;
+                cycles++;
+            }
+            record.moveTo(next++);
+            return record;
+        }
+
+        /**
+         * Returns the record view without moving it. Its field values can be looked up once and reused for
+         * every record.
+         *
+         * @return The record view
+         */
+        public Record record() {
+            return record;
+        }
+
+        /**
+         * Returns the number of records in the partition.
+         *
+         * @return The record count
+         */
+        public long size() {
+            return end - first;
+        }
+
+        /**
+         * Returns how often the partition has started over.
+         *
+         * @return The number of completed passes
+         */
+        public long cycles() {
+            return cycles;
+        }
+    }
+
+    /**
+     * Flyweight view of the current record of a {@link Partition}.
+     * Field values are reused and change when the partition moves on; call {@code toString()} to keep one.
+     */
+    public final class Record {
+
+        /** Reused value of every field */
+        private final Value[] values = new Value[fields.size()];
+
+        /** Index of the record in the feed, -1 before the first move */
+        private long index = -1;
+
+        /** Mapping holding the record */
+        private ByteBuffer chunk;
+
+        /** Offset of the record within the mapping */
+        private int offset;
+
+        /** Incremented on every move to invalidate decoded values */
+        private int generation;
+
+        /**
+         * Creates a view with one value per field.
+         */
+        private Record() {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = new Value(i);
+            }
+        }
+
+        private void moveTo(long index) {
+            this.index = index;
+            this.chunk = chunks[(int) (index / recordsPerChunk)];
+            this.offset = (int) (index % recordsPerChunk) * recordSize;
+            this.generation++;
+        }
+
+        /**
+         * Returns the index of the record in the feed.
+         *
+         * @return The record index, -1 before the first {@link Partition#next()}
+         */
+        public long index() {
+            return index;
+        }
+
+        /**
+         * Returns a field of the record.
+         *
+         * @param field The field index, see {@link DataFeed#fieldIndex(String)}
+         * @return The reused value of the field, which follows the view to the next record
+         */
+        public CharSequence get(int field) {
+            return values[field];
+        }
+
+        /**
+         * Decoded value of one field, refreshed lazily after the record view moves.
+         */
+        private final class Value implements CharSequence {
+
+            /** Index of the field */
+            private final int field;
+
+            /** Decoded characters, sized for the widest value of the field */
+            private final char[] chars;
+
+            /** Number of decoded characters */
+            private int length;
+
+            /** Generation of the record the characters were decoded from, -1 before the first decode */
+            private int decoded = -1;
+
+            private Value(int field) {
+                this.field = field;
+                this.chars = new char[fields.get(field).width()];
+            }
+
+            /**
+             * Decodes the UTF-8 value of the current record unless it is already decoded.
+             */
+            private void refresh() {
+                if (decoded == generation) {
+                    return;
+                }
+                if (index < 0) {
+                    throw new IllegalStateException("Partition.next() has not been called yet");
+                }
+                ByteBuffer buffer = chunk;
+                int position = offset + offsets[field];
+                int end = position + 1 + Byte.toUnsignedInt(buffer.get(position));
+                int count = 0;
+                for (int i = position + 1; i < end; ) {
+                    int b = buffer.get(i++);
+                    if (b >= 0) {
+                        chars[count++] = (char) b;
+                    } else if ((b & 0xE0) == 0xC0) {
+                        chars[count++] = (char) (((b & 0x1F) << 6) | (buffer.get(i++) & 0x3F));
+                    } else if ((b & 0xF0) == 0xE0) {
+                        chars[count++] = (char) (((b & 0x0F) << 12) | ((buffer.get(i++) & 0x3F) << 6) | (buffer.get(i++) & 0x3F));
+                    } else {
+                        int codePoint = ((b & 0x07) << 18) | ((buffer.get(i++) & 0x3F) << 12)
+                                | ((buffer.get(i++) & 0x3F) << 6) | (buffer.get(i++) & 0x3F);
+                        chars[count++] = Character.highSurrogate(codePoint);
+                        chars[count++] = Character.lowSurrogate(codePoint);
+                    }
+                }
+                length = count;
+                decoded = generation;
+            }
+
+            @Override
+            public int length() {
+                refresh();
+                return length;
+            }
+
+            @Override
+            public char charAt(int index) {
+                refresh();
+                if (index < 0 || index >= length) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return chars[index];
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return toString().substring(start, end);
+            }
+
+            @Override
+            public String toString() {
+                refresh();
+                return new String(chars, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Sequential writer of a feed file.
+     * The record count in the header is filled in by {@link #close()}.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        /** Channel of the file being written */
+        private final FileChannel channel;
+
+        /** Fields of every record */
+        private final List<Field> fields;
+
+        /** Position of the record count in the header */
+        private final long countPosition;
+
+        /** Buffer records are assembled in before being written */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+
+        /** Size of one record in bytes */
+        private final int recordSize;
+
+        /** Number of records written */
+        private long count;
+
+        /**
+         * Creates or replaces a feed file and writes its header.
+         *
+         * @param file The file to write
+         * @param fields The record fields
+         * @throws IOException if the file cannot be written
+         */
+        public Writer(Path file, List<Field> fields) throws IOException {
+            if (fields.isEmpty()) {
+                throw new IllegalArgumentException("A data feed needs at least one field");
+            }
+            this.fields = List.copyOf(fields);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer.put(MAGIC).putInt(fields.size());
+            int size = 0;
+            for (Field field : fields) {
+                byte[] name = field.name().getBytes(StandardCharsets.UTF_8);
+                buffer.put((byte) field.width()).putShort((short) name.length).put(name);
+                size += 1 + field.width();
+            }
+            this.recordSize = size;
+            this.countPosition = buffer.position();
+            buffer.putLong(0);
+        }
+
+        /**
+         * Appends a record. A rejected record writes nothing, so writing can continue with the next one.
+         *
+         * @param values The field values in field order
+         * @throws IOException if the file cannot be written
+         * @throws IllegalArgumentException if the number of values does not match or a value is too wide
+         */
+        public void write(CharSequence... values) throws IOException {
+            if (values.length != fields.size()) {
+                throw new IllegalArgumentException("Expected " + fields.size() + " values but got " + values.length);
+            }
+            // Validate the whole record first, a rejected value must not leave part of it in the buffer
+            byte[][] encoded = new byte[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                encoded[i] = values[i].toString().getBytes(StandardCharsets.UTF_8);
+                int width = fields.get(i).width();
+                if (encoded[i].length > width) {
+                    throw new IllegalArgumentException("Value of " + fields.get(i).name() + " is " + encoded[i].length
+                            + " bytes, wider than " + width + ": " + values[i]);
+                }
+            }
+            if (buffer.remaining() < recordSize) {
+                flush();
+            }
+            for (int i = 0; i < encoded.length; i++) {
+                byte[] value = encoded[i];
+                int width = fields.get(i).width();
+                buffer.put((byte) value.length).put(value);
+                for (int pad = value.length; pad < width; pad++) {
+                    buffer.put((byte) 0);
+                }
+            }
+            count++;
+        }
+
+        /**
+         * Writes the remaining records and the record count and closes the file.
+         *
+         * @throws IOException if the file cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                flush();
+                channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count), countPosition);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package load;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Generates {@link DataFeed} files of distinct checkout customers for load runs.
+ * Every record holds a unique e-mail address with a password, a billing address and a payment method,
+ * the fields used by {@link LoginInvoiceScenario}. Records are derived from a seed, so the same seed always
+ * produces the same file, and are streamed to disk, so files of any size can be generated in constant memory.
+ * <p>
+ * Usage: {@code DataFeedGenerator <file> <records> [seed]}, e.g.
+ * {@code mvn -q compile exec:java -Dexec.mainClass=load.DataFeedGenerator -Dexec.args="target/customers.feed 5000000"}.
+ * The accounts must exist on the system under test, for example seeded from the same file.
+ */
+public class DataFeedGenerator {
+
+    /** Logger instance for reporting progress */
+    private static final Logger logger = LogManager.getLogger(DataFeedGenerator.class);
+
+    /** Fields of the generated records */
+    public static final List<DataFeed.Field> FIELDS = List.of(
+            new DataFeed.Field("email", 64),
+            new DataFeed.Field("password", 32),
+            new DataFeed.Field("street", 48),
+            new DataFeed.Field("city", 32),
+            new DataFeed.Field("state", 32),
+            new DataFeed.Field("country", 32),
+            new DataFeed.Field("postal_code", 12),
+            new DataFeed.Field("payment_method", 24));
+
+    /** Street names combined with random house numbers */
+    private static final String[] STREETS = {
+            "Main St", "Oak Ave", "Maple Rd", "Cedar Ln", "Pine St", "Elm St", "Lake View Dr", "Hill Rd",
+            "Station Rd", "Church St", "Park Ave", "Mill Ln"
+    };
+
+    /** City, state and country triples of the billing addresses */
+    private static final String[][] PLACES = {
+            {"Anytown", "CA", "USA"}, {"Springfield", "IL", "USA"}, {"Austin", "TX", "USA"},
+            {"Toronto", "ON", "Canada"}, {"Utrecht", "Utrecht", "Netherlands"}, {"München", "Bayern", "Germany"},
+            {"Lyon", "Auvergne-Rhône-Alpes", "France"}, {"Manchester", "England", "United Kingdom"}
+    };
+
+    /** Payment methods accepted by the invoice endpoint */
+    private static final String[] PAYMENT_METHODS = {
+            "cash-on-delivery", "bank-transfer", "credit-card", "buy-now-pay-later", "gift-card"
+    };
+
+    /**
+     * Writes a feed file of generated customers.
+     *
+     * @param file The file to create or replace
+     * @param records The number of records
+     * @param seed Seed of the generated values
+     * @throws IOException if the file cannot be written
+     */
+    public static void generate(Path file, long records, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] values = new String[FIELDS.size()];
+        try (DataFeed.Writer writer = new DataFeed.Writer(file, FIELDS)) {
+            for (long i = 0; i < records; i++) {
+                String[] place = PLACES[random.nextInt(PLACES.length)];
+                values[0] = "customer" + i + "@loadtest.example";
+                values[1] = "Pw-" + Long.toHexString(random.nextLong());
+                values[2] = (1 + random.nextInt(9999)) + " " + STREETS[random.nextInt(STREETS.length)];
+                values[3] = place[0];
+                values[4] = place[1];
+                values[5] = place[2];
+                values[6] = String.format("%05d", random.nextInt(100_000));
+                values[7] = PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)];
+                writer.write(values);
+                if ((i + 1) % 1_000_000 == 0) {
+                    logger.info("Generated {} of {} records", i + 1, records);
+                }
+            }
+        }
+    }
+
+    /**
+     * Command-line entry point.
+     *
+     * @param args Output file, number of records and optional seed
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: DataFeedGenerator <file> <records> [seed]");
+            System.exit(2);
+        }
+        Path file = Path.of(args[0]);
+        long records = Long.parseLong(args[1]);
+        long start = System.nanoTime();
+        generate(file, records, args.length > 2 ? Long.parseLong(args[2]) : 42);
+        logger.info("Wrote {} records to {} in {} ms", records, file, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,460 @@
+package load;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import config.ConfigurationManager;
+
+/**
+ * Live per-second metrics of a running load, per request type.
+ * The JMeter plan only has a Summary Report at the end of a run; here every request type (login, invoice,
+ * ...) gets a {@link Series} recording into two HdrHistogram {@link Recorder}s, one for the successful and
+ * one for the failed requests, which are wait-free and do not allocate. Once a second a ticker thread harvests
+ * the interval histograms and appends an {@link Interval} with the throughput, error rate and rolling
+ * p50/p95/p99 over the last {@code window} to each series' ring of recent seconds. The ring is written by the ticker alone and read without locks.
+ * <p>
+ * The intervals are logged as a console ticker and served as JSON on {@code /metrics} (latest second) and
+ * {@code /metrics/history} (the whole ring) of a local HTTP endpoint. When the error rate or the rolling p99
+ * of a series stays above its threshold for {@code abortAfter}, the run is aborted through the callback
+ * given to {@link #start(Runnable)}, so a bad run stops within seconds instead of after its full duration.
+ */
+public class LiveMetrics implements AutoCloseable {
+
+    /** Logger instance for the console ticker and aborts */
+    private static final Logger logger = LogManager.getLogger(LiveMetrics.class);
+
+    /** Largest latency that can be recorded, larger samples are clamped to this value */
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    /** Number of significant decimal digits kept for every recorded value */
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /** Serializer of the endpoint responses */
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /** Series by request type */
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    /** Number of seconds the rolling percentiles span */
+    private final int windowSeconds;
+
+    /** Number of seconds kept in each series' ring */
+    private final int historySeconds;
+
+    /** Error rate above which a second counts as bad, 0 to disable */
+    private final double abortErrorRate;
+
+    /** Rolling p99 above which a second counts as bad in nanoseconds, 0 to disable */
+    private final long abortP99Nanos;
+
+    /** Number of consecutive bad seconds of a series that abort the run */
+    private final int abortAfterSeconds;
+
+    /** Port of the HTTP endpoint, 0 for an ephemeral port and negative to disable it */
+    private final int port;
+
+    /** Whether every interval is logged */
+    private final boolean console;
+
+    /** Ticker thread, while started */
+    private ScheduledExecutorService ticker;
+
+    /** HTTP endpoint, while started */
+    private HttpServer server;
+
+    /** Called once when a threshold is breached */
+    private volatile Runnable onAbort = () -> { };
+
+    /** Why the run was aborted, or null */
+    private volatile String abortReason;
+
+    /** System.nanoTime() of the previous tick */
+    private long lastTick = System.nanoTime();
+
+    /**
+     * Creates live metrics.
+     *
+     * @param window Time span of the rolling percentiles, at least one second
+     * @param history Time span of the intervals kept per series, at least one second
+     * @param abortErrorRate Error rate above which a second counts as bad, 0 to disable
+     * @param abortP99 Rolling p99 above which a second counts as bad, zero to disable
+     * @param abortAfter How long a series must stay bad before the run is aborted
+     * @param port Port of the HTTP endpoint, 0 for an ephemeral port and negative to disable it
+     * @param console Whether every interval is logged
+     */
+    public LiveMetrics(Duration window, Duration history, double abortErrorRate, Duration abortP99, Duration abortAfter,
+                       int port, boolean console) {
+        this.windowSeconds = (int) Math.max(1, window.toSeconds());
+        this.historySeconds = (int) Math.max(1, history.toSeconds());
+        this.abortErrorRate = abortErrorRate;
+        this.abortP99Nanos = abortP99.toNanos();
+        this.abortAfterSeconds = (int) Math.max(1, abortAfter.toSeconds());
+        this.port = port;
+        this.console = console;
+    }
+
+    /**
+     * Creates live metrics from {@code load.metrics.window.seconds}, {@code load.metrics.history.seconds},
+     * {@code load.abort.error.rate}, {@code load.abort.p99.ms}, {@code load.abort.after.seconds},
+     * {@code load.metrics.port} and {@code load.metrics.console}, each of which can be overridden with a
+     * system property.
+     *
+     * @return LiveMetrics read from the configuration
+     */
+    public static LiveMetrics fromConfiguration() {
+        return fromConfiguration(0);
+    }
+
+    /**
+     * Creates live metrics from the configuration like {@link #fromConfiguration()}, moving a fixed
+     * {@code load.metrics.port} by an offset so that several JVMs on one host each get their own endpoint.
+     *
+     * @param portOffset Added to {@code load.metrics.port} when it is above 0, e.g. the worker number
+     * @return LiveMetrics read from the configuration
+     */
+    public static LiveMetrics fromConfiguration(int portOffset) {
+        int port = (int) ConfigurationManager.getLongProperty("load.metrics.port", -1);
+        return new LiveMetrics(
+                Duration.ofSeconds(ConfigurationManager.getLongProperty("load.metrics.window.seconds", 10)),
+                Duration.ofSeconds(ConfigurationManager.getLongProperty("load.metrics.history.seconds", 300)),
+                Double.parseDouble(ConfigurationManager.getProperty("load.abort.error.rate", "0")),
+                Duration.ofMillis(ConfigurationManager.getLongProperty("load.abort.p99.ms", 0)),
+                Duration.ofSeconds(ConfigurationManager.getLongProperty("load.abort.after.seconds", 10)),
+                port > 0 ? port + portOffset : port,
+                Boolean.parseBoolean(ConfigurationManager.getProperty("load.metrics.console", "true")));
+    }
+
+    /**
+     * Returns the series of a request type, creating it on first use. Look series up once per virtual user
+     * or scenario rather than per request.
+     *
+     * @param label The request type, e.g. {@code login}
+     * @return The series to record into
+     */
+    public Series series(String label) {
+        return series.computeIfAbsent(label, Series::new);
+    }
+
+    /**
+     * Starts the ticker and, unless disabled, the HTTP endpoint.
+     *
+     * @param onAbort Called once, on the ticker thread, when a threshold is breached, e.g. {@code engine::stop}
+     * @return This LiveMetrics for chaining
+     * @throws IOException if the endpoint cannot be bound
+     */
+    public synchronized LiveMetrics start(Runnable onAbort) throws IOException {
+        this.onAbort = onAbort;
+        if (port >= 0) {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 16);
+            server.createContext("/metrics", exchange -> serve(exchange, false));
+            server.createContext("/metrics/history", exchange -> serve(exchange, true));
+            server.start();
+            logger.info("Live metrics on http://127.0.0.1:{}/metrics", port());
+        }
+        lastTick = System.nanoTime();
+        ticker = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("live-metrics").daemon().factory());
+        ticker.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+        return this;
+    }
+
+    /**
+     * Returns the port of the HTTP endpoint.
+     *
+     * @return The bound port, or -1 if the endpoint is not running
+     */
+    public int port() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /**
+     * Closes the current interval of every series: harvests the recorders, appends the intervals to the rings,
+     * logs them and checks the abort thresholds. Called every second by the ticker; calls must not overlap.
+     */
+    public void tick() {
+        long now = System.nanoTime();
+        double seconds = (now - lastTick) / 1e9;
+        lastTick = now;
+        long epochMillis = System.currentTimeMillis();
+        StringBuilder line = console ? new StringBuilder() : null;
+        for (Series s : series.values()) {
+            Interval interval = s.tick(epochMillis, seconds);
+            if (line != null && interval.requests() > 0) {
+                line.append(line.isEmpty() ? "" : " | ").append(interval);
+            }
+            checkThresholds(s, interval);
+        }
+        if (line != null && !line.isEmpty()) {
+            logger.info("{}", line);
+        }
+    }
+
+    /**
+     * Returns the latest interval of a series.
+     *
+     * @param label The request type
+     * @return The interval, or null before the first tick or for an unknown type
+     */
+    public Interval latest(String label) {
+        Series s = series.get(label);
+        return s == null ? null : s.latest();
+    }
+
+    /**
+     * Returns the intervals of a series still in its ring, oldest first.
+     *
+     * @param label The request type
+     * @return The intervals, empty for an unknown type
+     */
+    public List<Interval> history(String label) {
+        Series s = series.get(label);
+        return s == null ? List.of() : s.history();
+    }
+
+    /**
+     * Returns whether the run was aborted by a threshold.
+     *
+     * @return True after an abort
+     */
+    public boolean aborted() {
+        return abortReason != null;
+    }
+
+    /**
+     * Returns why the run was aborted.
+     *
+     * @return The breached threshold, or null
+     */
+    public String abortReason() {
+        return abortReason;
+    }
+
+    /**
+     * Stops the ticker and the HTTP endpoint.
+     */
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    /**
+     * Counts bad seconds of a series and aborts the run once a series has been bad for long enough.
+     *
+     * @param s The series
+     * @param interval Its latest interval
+     */
+    private void checkThresholds(Series s, Interval interval) {
+        String breach = null;
+        if (abortErrorRate > 0 && interval.requests() > 0 && interval.errorRate() > abortErrorRate) {
+            breach = String.format("%s error rate %.1f%% above %.1f%%", s.label, interval.errorRate() * 100, abortErrorRate * 100);
+        } else if (abortP99Nanos > 0 && interval.p99() > abortP99Nanos) {
+            breach = String.format("%s p99 %.1f ms above %.1f ms", s.label, interval.p99() / 1e6, abortP99Nanos / 1e6);
+        }
+        s.badSeconds = breach == null ? 0 : s.badSeconds + 1;
+        if (breach != null && s.badSeconds >= abortAfterSeconds && abortReason == null) {
+            abortReason = breach + " for " + s.badSeconds + " s";
+            logger.warn("Aborting the run: {}", abortReason);
+            onAbort.run();
+        }
+    }
+
+    /**
+     * Answers {@code /metrics} with the latest interval of every series, or {@code /metrics/history} with
+     * their rings.
+     *
+     * @param exchange The HTTP exchange
+     * @param history Whether to include the whole rings
+     * @throws IOException if the response cannot be written
+     */
+    private void serve(HttpExchange exchange, boolean history) throws IOException {
+        try (exchange) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("aborted", aborted());
+            body.put("abortReason", abortReason);
+            Map<String, Object> bySeries = new LinkedHashMap<>();
+            for (Series s : series.values()) {
+                bySeries.put(s.label, history ? s.history() : s.latest());
+            }
+            body.put("series", bySeries);
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, json.length);
+            exchange.getResponseBody().write(json);
+        }
+    }
+
+    /**
+     * Samples of one request type. Recording is wait-free and allocation-free and may be called from any
+     * number of threads.
+     */
+    public final class Series {
+
+        /** The request type */
+        private final String label;
+
+        /** Latencies of the successful requests of the current interval */
+        private final Recorder successes = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+        /** Latencies of the failed requests of the current interval */
+        private final Recorder failures = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+        /** Last harvest of the successes, recycled by the ticker */
+        private Histogram succeeded;
+
+        /** Last harvest of the failures, recycled by the ticker */
+        private Histogram failed;
+
+        /** Interval histograms of the rolling window, recycled by the ticker */
+        private final Histogram[] window = new Histogram[windowSeconds];
+
+        /** Merge of the window, rebuilt by every tick */
+        private final Histogram rolling = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+        /** Recent intervals, written by the ticker and read by anyone */
+        private final AtomicReferenceArray<Interval> ring = new AtomicReferenceArray<>(historySeconds);
+
+        /** Number of ticks so far; the latest interval is at {@code (ticks - 1) % historySeconds} */
+        private volatile long ticks;
+
+        /** Consecutive seconds above a threshold */
+        private int badSeconds;
+
+        private Series(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Records one request.
+         *
+         * @param nanos The latency in nanoseconds
+         * @param success Whether the request succeeded
+         */
+        public void record(long nanos, boolean success) {
+            (success ? successes : failures).recordValue(Math.min(Math.max(nanos, 0), HIGHEST_TRACKABLE_NANOS));
+        }
+
+        /**
+         * Records one request that started at a {@link System#nanoTime()} instant.
+         *
+         * @param startNanos The System.nanoTime() value taken before the request
+         * @param success Whether the request succeeded
+         */
+        public void recordSince(long startNanos, boolean success) {
+            record(System.nanoTime() - startNanos, success);
+        }
+
+        private Interval tick(long epochMillis, double seconds) {
+            // Every request lands in exactly one of the recorders, so the errors are always a part of the requests
+            succeeded = successes.getIntervalHistogram(succeeded);
+            failed = failures.getIntervalHistogram(failed);
+            long newErrors = failed.getTotalCount();
+            long requests = succeeded.getTotalCount() + newErrors;
+            int slot = (int) (ticks % windowSeconds);
+            if (window[slot] == null) {
+                window[slot] = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+            }
+            window[slot].reset();
+            window[slot].add(succeeded);
+            window[slot].add(failed);
+            rolling.reset();
+            for (Histogram h : window) {
+                if (h != null) {
+                    rolling.add(h);
+                }
+            }
+            Interval interval = new Interval(label, epochMillis, seconds, requests, newErrors,
+                    rolling.getValueAtPercentile(50), rolling.getValueAtPercentile(95),
+                    rolling.getValueAtPercentile(99), rolling.getMaxValue());
+            ring.set((int) (ticks % historySeconds), interval);
+            ticks++;
+            return interval;
+        }
+
+        private Interval latest() {
+            long n = ticks;
+            return n == 0 ? null : ring.get((int) ((n - 1) % historySeconds));
+        }
+
+        private List<Interval> history() {
+            long n = ticks;
+            List<Interval> intervals = new ArrayList<>();
+            for (long i = Math.max(0, n - historySeconds); i < n; i++) {
+                Interval interval = ring.get((int) (i % historySeconds));
+                // Skip slots the ticker overwrote while they were read
+                if (interval != null && (intervals.isEmpty() || interval.epochMillis() >= intervals.get(intervals.size() - 1).epochMillis())) {
+                    intervals.add(interval);
+                }
+            }
+            return intervals;
+        }
+    }
+
+    /**
+     * One second of a series. Percentiles are rolling over the configured window, counts are for the second.
+     *
+     * @param label The request type
+     * @param epochMillis End of the interval in epoch milliseconds
+     * @param seconds Length of the interval in seconds
+     * @param requests Requests completed in the interval
+     * @param errors Failed requests in the interval
+     * @param p50 Rolling median latency in nanoseconds
+     * @param p95 Rolling 95th percentile latency in nanoseconds
+     * @param p99 Rolling 99th percentile latency in nanoseconds
+     * @param max Rolling maximum latency in nanoseconds
+     */
+    public record Interval(String label, long epochMillis, double seconds, long requests, long errors,
+                           long p50, long p95, long p99, long max) {
+
+        /**
+         * Calculates the throughput of the interval.
+         *
+         * @return Requests per second
+         */
+        @JsonProperty
+        public double throughput() {
+            return seconds > 0 ? requests / seconds : 0;
+        }
+
+        /**
+         * Calculates the error rate of the interval.
+         *
+         * @return Error rate between 0 and 1
+         */
+        @JsonProperty
+        public double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %.0f/s err %.1f%% p50 %.1f p95 %.1f p99 %.1f ms", label, throughput(),
+                    errorRate() * 100, p50 / 1e6, p95 / 1e6, p99 / 1e6);
+        }
+    }
+}
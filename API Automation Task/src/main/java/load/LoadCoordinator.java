@@ -0,0 +1,362 @@
+package load;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import config.ConfigurationManager;
+import utils.LatencyRecorder;
+
+/**
+ * Coordinator of a distributed open-model run of the login → invoice scenario.
+ * One generator JVM cannot produce enough load for capacity tests and the JMeter plan only scales out
+ * through JMeter's RMI servers, so the coordinator starts {@code workers} {@link LoadWorker} JVMs on
+ * this host, which connect back over a loopback socket. Every worker gets an equal share of the arrival
+ * rate and its own range of virtual users, the first workers one user more when the users do not divide
+ * evenly; once all of them are ready the coordinator sends one start instant, so their ramps line up.
+ * Worker {@code i} of {@code n} fires when its integrated rate reaches {@code k + i / n}, so the workers
+ * take turns instead of firing together, at any rate of the profile. The workers' latency histograms are merged bucket by bucket into one
+ * {@link ArrivalResult}, so the percentiles are exact rather than averages of per-worker percentiles.
+ * <p>
+ * Worker JVMs run with the coordinator's class path and inherit its configuration overrides
+ * ({@link ConfigurationManager#getOverrides()}) and {@code load.worker.jvm.args}. Each of them records its
+ * share into its own {@link LiveMetrics}, with a fixed {@code load.metrics.port} moved up by the worker number.
+ */
+public class LoadCoordinator {
+
+    /** Logger instance for reporting run progress and results */
+    private static final Logger logger = LogManager.getLogger(LoadCoordinator.class);
+
+    /** Time between the start message and the synchronized start of the workers */
+    private static final Duration START_DELAY = Duration.ofMillis(500);
+
+    /** Number of worker JVMs */
+    private final int workers;
+
+    /** Arrival profile specification of the whole run, see {@link ArrivalProfile#parse(String)} */
+    private final String arrival;
+
+    /** Time during which arrivals are scheduled */
+    private final Duration duration;
+
+    /** Upper bound of the virtual users of the whole run */
+    private final int maxUsers;
+
+    /** Base URI of the checkout API */
+    private final String baseUrl;
+
+    /** Additional JVM options of the workers */
+    private final List<String> jvmArgs;
+
+    /** How long to wait for all workers to connect and get ready */
+    private final Duration connectTimeout;
+
+    /** Workers of the last run whose live metrics aborted their share */
+    private int abortedWorkers;
+
+    /**
+     * Creates a new coordinator.
+     *
+     * @param workers The number of worker JVMs
+     * @param arrival The arrival profile of the whole run, split evenly across the workers
+     * @param duration The time during which arrivals are scheduled
+     * @param maxUsers The largest number of virtual users of the whole run, split as evenly as possible across the workers
+     * @param baseUrl The base URI of the checkout API
+     * @param jvmArgs Additional JVM options of the workers, e.g. {@code -Xmx2g}
+     * @param connectTimeout How long to wait for all workers to connect and get ready
+     * @throws IllegalArgumentException if there is no worker, fewer users than workers or the profile is invalid
+     */
+    public LoadCoordinator(int workers, String arrival, Duration duration, int maxUsers, String baseUrl,
+                           List<String> jvmArgs, Duration connectTimeout) {
+        if (workers < 1 || maxUsers < workers) {
+            throw new IllegalArgumentException("Need at least 1 worker and 1 user per worker but got "
+                    + workers + " workers and " + maxUsers + " users");
+        }
+        ArrivalProfile.parse(arrival);
+        this.workers = workers;
+        this.arrival = arrival;
+        this.duration = duration;
+        this.maxUsers = maxUsers;
+        this.baseUrl = baseUrl;
+        this.jvmArgs = List.copyOf(jvmArgs);
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Builds a coordinator from {@code load.workers}, {@code load.arrival}, {@code load.duration},
+     * {@code load.arrival.max.users}, {@code checkout.base.url}, {@code load.worker.jvm.args} and
+     * {@code load.worker.connect.timeout.seconds}, each of which can be overridden with a system property.
+     *
+     * @return LoadCoordinator read from the configuration
+     */
+    public static LoadCoordinator fromConfiguration() {
+        String jvmArgs = ConfigurationManager.getProperty("load.worker.jvm.args", "");
+        return new LoadCoordinator(
+                (int) ConfigurationManager.getLongProperty("load.workers", 2),
+                ConfigurationManager.getProperty("load.arrival", "constant:10"),
+                Duration.ofSeconds(ConfigurationManager.getLongProperty("load.duration", 3600)),
+                (int) ConfigurationManager.getLongProperty("load.arrival.max.users", 1000),
+                ConfigurationManager.getProperty("checkout.base.url"),
+                jvmArgs.isEmpty() ? List.of() : List.of(jvmArgs.split("\\s+")),
+                Duration.ofSeconds(ConfigurationManager.getLongProperty("load.worker.connect.timeout.seconds", 60)));
+    }
+
+    /**
+     * Starts the workers, runs them in step and blocks until every worker has reported its result.
+     *
+     * @return ArrivalResult merged from all workers
+     * @throws IOException if a worker cannot be started, does not connect in time or fails
+     * @throws InterruptedException if the coordinator is interrupted while waiting for the workers
+     */
+    public ArrivalResult run() throws IOException, InterruptedException {
+        List<Process> processes = new ArrayList<>();
+        List<Socket> sockets = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout((int) connectTimeout.toMillis());
+            logger.info("Starting {} workers with {} users in total for {}", workers, maxUsers, arrival);
+            for (int i = 0; i < workers; i++) {
+                processes.add(startWorker(server.getLocalPort(), i + 1));
+            }
+
+            List<DataInputStream> inputs = new ArrayList<>();
+            List<DataOutputStream> outputs = new ArrayList<>();
+            int firstUser = 0;
+            for (int i = 0; i < workers; i++) {
+                // The remainder of the users goes to the first workers, one each
+                int users = maxUsers / workers + (i < maxUsers % workers ? 1 : 0);
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    throw new IOException("Only " + i + " of " + workers + " workers connected within " + connectTimeout, e);
+                }
+                sockets.add(socket);
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout((int) connectTimeout.toMillis());
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                out.writeUTF(baseUrl);
+                out.writeUTF(arrival);
+                out.writeInt(workers);
+                out.writeInt(i);
+                out.writeLong(duration.toMillis());
+                out.writeInt(maxUsers);
+                out.writeInt(firstUser);
+                out.writeInt(users);
+                out.flush();
+                firstUser += users;
+                inputs.add(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+                outputs.add(out);
+            }
+            for (int i = 0; i < workers; i++) {
+                if (inputs.get(i).readByte() != LoadWorker.READY) {
+                    throw new IOException("Worker " + (i + 1) + " did not get ready");
+                }
+            }
+
+            long startAt = System.currentTimeMillis() + START_DELAY.toMillis();
+            for (DataOutputStream out : outputs) {
+                out.writeLong(startAt);
+                out.flush();
+            }
+            logger.info("All {} workers ready, starting the run", workers);
+
+            // Results are read concurrently, so that the first aborted worker stops the others at once
+            AtomicInteger aborted = new AtomicInteger();
+            List<Future<ArrivalResult>> futures = new ArrayList<>();
+            try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < workers; i++) {
+                    // The run itself may take far longer than getting ready
+                    sockets.get(i).setSoTimeout(0);
+                    int worker = i;
+                    futures.add(readers.submit(() -> {
+                        DataInputStream in = inputs.get(worker);
+                        boolean workerAborted;
+                        ArrivalResult result;
+                        try {
+                            workerAborted = in.readBoolean();
+                            result = LoadWorker.readResult(in);
+                        } catch (IOException e) {
+                            // The run fails anyway, so the others need not run to the end
+                            stopWorkers(outputs);
+                            throw e;
+                        }
+                        if (workerAborted && aborted.getAndIncrement() == 0) {
+                            logger.error("Worker {} aborted its share of the run, stopping the others", worker + 1);
+                            stopWorkers(outputs);
+                        }
+                        return result;
+                    }));
+                }
+            }
+            List<ArrivalResult> results = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                ArrivalResult result;
+                try {
+                    result = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof IOException io ? io : new IOException("Worker " + (i + 1) + " failed", e.getCause());
+                }
+                logger.info("Worker {}: {} iterations, {} errors, {} it/s", i + 1, result.iterations(), result.errors(),
+                        String.format("%.1f", result.throughput()));
+                results.add(result);
+            }
+            abortedWorkers = aborted.get();
+            for (Process process : processes) {
+                process.waitFor();
+            }
+            if (abortedWorkers > 0) {
+                logger.error("{} of {} workers aborted their share of the run", abortedWorkers, workers);
+            }
+
+            ArrivalResult result = ArrivalResult.merge(results);
+            logger.info("Distributed run finished: {} workers, {} arrivals, {} iterations, {} errors, {} queued, {} ms, {} it/s",
+                    workers, result.arrivals(), result.iterations(), result.errors(), result.queued(),
+                    result.elapsed().toMillis(), String.format("%.1f", result.throughput()));
+            logger.info("Service time (from actual start): {}", LatencyRecorder.summary(result.serviceTime()));
+            logger.info("Response time (from intended start): {}", LatencyRecorder.summary(result.responseTime()));
+            return result;
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+    }
+
+    /**
+     * Sends {@link LoadWorker#STOP} to every worker. Workers that have already finished ignore it.
+     *
+     * @param outputs The streams to the workers
+     */
+    private static void stopWorkers(List<DataOutputStream> outputs) {
+        synchronized (outputs) {
+            for (DataOutputStream out : outputs) {
+                try {
+                    out.writeByte(LoadWorker.STOP);
+                    out.flush();
+                } catch (IOException e) {
+                    logger.debug("Worker already disconnected", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how many workers of the last run were aborted by their live metrics. Every worker checks the
+     * thresholds of its own share; the first one aborted makes the coordinator stop all others.
+     *
+     * @return Aborted workers, 0 before the first run
+     */
+    public int abortedWorkers() {
+        return abortedWorkers;
+    }
+
+    /**
+     * Launches a worker JVM with the coordinator's class path and configuration overrides. Its output is
+     * forwarded to the coordinator's log rather than inherited, which would bypass the coordinator's own
+     * output, e.g. the channel of a forked test JVM.
+     *
+     * @param port The port the worker connects to
+     * @param number The number of the process, for its log lines
+     * @return The worker process
+     * @throws IOException if the process cannot be started
+     */
+    private Process startWorker(int port, int number) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        for (Map.Entry<String, String> override : ConfigurationManager.getOverrides().entrySet()) {
+            command.add("-D" + override.getKey() + "=" + override.getValue());
+        }
+        command.add("-cp");
+        command.add(classPath());
+        command.add(LoadWorker.class.getName());
+        command.add(InetAddress.getLoopbackAddress().getHostAddress());
+        command.add(String.valueOf(port));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Thread.ofPlatform().name("worker-" + number + "-output").daemon().start(() -> forwardOutput(process, number));
+        return process;
+    }
+
+    /**
+     * Logs every line a worker process prints until it exits.
+     *
+     * @param process The worker process
+     * @param number The number of the process
+     */
+    private static void forwardOutput(Process process, int number) {
+        try (BufferedReader reader = process.inputReader()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                logger.info("[worker process {}] {}", number, line);
+            }
+        } catch (IOException e) {
+            logger.debug("Output of worker process {} closed", number, e);
+        }
+    }
+
+    /**
+     * Returns the class path the coordinator was loaded from. Under {@code exec:java} the project classes
+     * are loaded by a {@link URLClassLoader} while {@code java.class.path} only holds Maven's launcher.
+     *
+     * @return The class path for the worker JVMs
+     */
+    private static String classPath() {
+        if (LoadCoordinator.class.getClassLoader() instanceof URLClassLoader loader) {
+            List<String> entries = new ArrayList<>();
+            for (URL url : loader.getURLs()) {
+                try {
+                    entries.add(Path.of(url.toURI()).toString());
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    logger.warn("Skipping class path entry {}", url);
+                }
+            }
+            return String.join(File.pathSeparator, entries);
+        }
+        return System.getProperty("java.class.path");
+    }
+
+    /**
+     * Command-line entry point running the login → invoice scenario on {@code load.workers} worker JVMs.
+     * Example: {@code mvn -q compile exec:java -Dexec.mainClass=load.LoadCoordinator -Dload.workers=4 -Dload.arrival=constant:2000}.
+     * A run in which a worker was aborted by its live metrics exits with status 2.
+     *
+     * @param args Unused
+     * @throws IOException if a worker cannot be started or fails
+     * @throws InterruptedException if the coordinator is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadCoordinator coordinator = fromConfiguration();
+        ArrivalResult result = coordinator.run();
+        if (coordinator.abortedWorkers() > 0) {
+            System.exit(2);
+        }
+        System.exit(result.errors() == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,165 @@
+package load;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import utils.LatencyRecorder;
+
+/**
+ * Closed-model load engine running every virtual user on its own virtual thread.
+ * Replaces the platform-thread-per-user JMeter Thread Group: users are started evenly
+ * over the ramp-up period and loop over their scenario until either the per-user
+ * iteration count is reached or the run duration elapses. Because a blocked virtual
+ * thread only costs a small heap-allocated stack, a single JVM can hold tens of
+ * thousands of concurrent users.
+ */
+public class LoadEngine {
+
+    /** Logger instance for reporting run progress and results */
+    private static final Logger logger = LogManager.getLogger(LoadEngine.class);
+
+    /** Shape of the run: users, ramp-up, duration and iterations */
+    private final LoadProfile profile;
+
+    /** Set when the run is asked to stop before its duration elapses; never cleared, so an early stop is kept */
+    private volatile boolean stopped;
+
+    /**
+     * Creates a new engine for the given profile.
+     *
+     * @param profile The load profile describing users, ramp-up, duration and iterations
+     */
+    public LoadEngine(LoadProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Runs the scenario to completion and blocks until every virtual user has finished.
+     * Each user is started at {@code userId * rampup / threads} after the run start and
+     * stops at the first iteration boundary after the duration has elapsed.
+     *
+     * @param scenario The scenario providing one VirtualUser per simulated user
+     * @return LoadResult summarising iterations, errors, peak concurrency and iteration latencies
+     */
+    public LoadResult run(Scenario scenario) {
+        LongAdder iterations = new LongAdder();
+        LongAdder errors = new LongAdder();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        LatencyRecorder latency = new LatencyRecorder();
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(profile.durationSeconds());
+        long rampNanos = TimeUnit.SECONDS.toNanos(profile.rampUpSeconds());
+        int threads = profile.threads();
+        logger.info("Starting load run: {} users, {}s ramp-up, {}s duration, {} iterations",
+                threads, profile.rampUpSeconds(), profile.durationSeconds(), profile.iterations());
+
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("vu-", 1).factory())) {
+            for (int i = 0; i < threads; i++) {
+                int userId = i;
+                long startAt = start + rampNanos * userId / threads;
+                executor.execute(() -> {
+                    parkUntil(startAt);
+                    if (stopped || System.nanoTime() >= deadline) {
+                        return;
+                    }
+                    peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        VirtualUser user = scenario.newUser(userId);
+                        for (long n = 0; profile.iterations() < 0 || n < profile.iterations(); n++) {
+                            if (stopped || System.nanoTime() >= deadline) {
+                                break;
+                            }
+                            long iterationStart = System.nanoTime();
+                            try {
+                                user.iterate();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                break;
+                            } catch (Exception e) {
+                                errors.increment();
+                                logger.debug("Iteration of user {} failed", userId, e);
+                            }
+                            latency.recordSince(iterationStart);
+                            iterations.increment();
+                        }
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                });
+            }
+        }
+
+        LoadResult result = new LoadResult(iterations.sum(), errors.sum(), peak.get(),
+                Duration.ofNanos(System.nanoTime() - start), latency.snapshot());
+        logger.info("Load run finished: {} iterations, {} errors, {} peak users, {} ms, {} it/s, {}",
+                result.iterations(), result.errors(), result.peakUsers(), result.elapsed().toMillis(),
+                String.format("%.1f", result.throughput()), LatencyRecorder.summary(result.latency()));
+        return result;
+    }
+
+    /**
+     * Asks a running load to stop. Virtual users finish their current iteration and exit,
+     * and users that have not started yet are never started. A stop requested before {@link #run(Scenario)}
+     * makes the run return at once; the engine stays stopped.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Parks the current thread until the given System.nanoTime() instant or until the run is stopped.
+     *
+     * @param deadline The nanoTime instant to wait for
+     */
+    private void parkUntil(long deadline) {
+        long remaining;
+        while (!stopped && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+        }
+    }
+
+    /**
+     * Command-line entry point running the login → invoice scenario with the configured profile.
+     * Example: {@code mvn -q compile exec:java -Dexec.mainClass=load.LoadEngine -Dload.threads=5000}.
+     * Set {@code load.feed.file} to a {@link DataFeedGenerator} file to log in as distinct customers.
+     * Live metrics are logged every second (see {@link LiveMetrics}); a run aborted by them exits with status 2.
+     * Set {@code load.results.file} to write every request to a {@link SampleLog} for {@link SampleReport}.
+     *
+     * @param args Unused
+     * @throws IOException if the data feed file cannot be mapped, the metrics endpoint cannot be bound or the sample log cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        LoadProfile profile = LoadProfile.fromConfiguration();
+        LoadEngine engine = new LoadEngine(profile);
+        LoginInvoiceScenario scenario = LoginInvoiceScenario.fromConfiguration(profile.threads());
+        LoadResult result;
+        String abortReason;
+        try (LiveMetrics metrics = LiveMetrics.fromConfiguration().start(engine::stop);
+             SampleLogWriter samples = SampleLogWriter.fromConfiguration("")) {
+            if (samples != null) {
+                scenario.logTo(samples);
+            }
+            result = engine.run(scenario.recordTo(metrics));
+            abortReason = metrics.abortReason();
+        }
+        if (scenario.tokens() != null) {
+            logger.info("Access tokens: {}", scenario.tokens().summary());
+        }
+        if (abortReason != null) {
+            logger.error("Run aborted: {}", abortReason);
+            System.exit(2);
+        }
+        System.exit(result.errors() == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,49 @@
+package load;
+
+import config.ConfigurationManager;
+
+/**
+ * Closed-model load profile mirroring the JMeter Thread Group of the performance test plan.
+ * Carries the same four parameters as {@code Test Plan.jmx} ({@code threads}, {@code rampup},
+ * {@code duration}, {@code iterations}) with the same defaults, so a run can be moved from
+ * JMeter to the load engine without changing its shape.
+ *
+ * @param threads Number of concurrent virtual users
+ * @param rampUpSeconds Time over which the virtual users are started, evenly spaced
+ * @param durationSeconds Upper bound of the whole run including ramp-up
+ * @param iterations Iterations per virtual user, or -1 to loop until the duration elapses
+ */
+public record LoadProfile(int threads, int rampUpSeconds, int durationSeconds, long iterations) {
+
+    /**
+     * Validates the profile parameters on construction.
+     *
+     * @throws IllegalArgumentException if any parameter is out of range
+     */
+    public LoadProfile {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1 but was " + threads);
+        }
+        if (rampUpSeconds < 0 || durationSeconds < 0) {
+            throw new IllegalArgumentException("rampup and duration must not be negative");
+        }
+        if (iterations < -1 || iterations == 0) {
+            throw new IllegalArgumentException("iterations must be -1 or positive but was " + iterations);
+        }
+    }
+
+    /**
+     * Builds a profile from {@code load.threads}, {@code load.rampup}, {@code load.duration}
+     * and {@code load.iterations}, each of which can be overridden with a system property.
+     * Falls back to the JMeter plan defaults when a key is missing.
+     *
+     * @return LoadProfile read from the configuration
+     */
+    public static LoadProfile fromConfiguration() {
+        return new LoadProfile(
+                (int) ConfigurationManager.getLongProperty("load.threads", 10),
+                (int) ConfigurationManager.getLongProperty("load.rampup", 30),
+                (int) ConfigurationManager.getLongProperty("load.duration", 3600),
+                ConfigurationManager.getLongProperty("load.iterations", -1));
+    }
+}
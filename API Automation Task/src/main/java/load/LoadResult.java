@@ -0,0 +1,36 @@
+package load;
+
+import java.time.Duration;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Summary of a finished load run produced by the {@link LoadEngine}.
+ *
+ * @param iterations Total number of completed iterations across all virtual users
+ * @param errors Number of iterations that ended with an exception
+ * @param peakUsers Highest number of virtual users active at the same time
+ * @param elapsed Wall-clock time of the run
+ * @param latency Histogram of iteration latencies in nanoseconds
+ */
+public record LoadResult(long iterations, long errors, int peakUsers, Duration elapsed, Histogram latency) {
+
+    /**
+     * Calculates the average iteration throughput of the run.
+     *
+     * @return Iterations per second, or 0 when the run took no measurable time
+     */
+    public double throughput() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? 0 : iterations * 1000.0 / millis;
+    }
+
+    /**
+     * Calculates the share of failed iterations.
+     *
+     * @return Error rate between 0 and 1
+     */
+    public double errorRate() {
+        return iterations == 0 ? 0 : (double) errors / iterations;
+    }
+}
@@ -0,0 +1,176 @@
+package load;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.DataFormatException;
+
+import org.HdrHistogram.Histogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Worker JVM of a distributed open-model run, started and driven by the {@link LoadCoordinator}.
+ * A worker connects to the coordinator, receives its share of the arrival rate and its range of virtual
+ * users, prepares the login → invoice scenario and reports ready. It then starts its
+ * {@link ArrivalRateScheduler} at the wall-clock instant the coordinator sends to every worker, so the
+ * ramps of all workers line up, shifts its arrivals by its index's share of one arrival on the scale of
+ * the integrated rate, so the workers' arrivals interleave, and sends back its counts and both latency histograms in HdrHistogram's
+ * lossless compressed form. Like a single-JVM run it records into {@link LiveMetrics}, which stop the
+ * worker's scheduler when its share breaches a threshold; the worker then exits with {@link #ABORTED}.
+ * <p>
+ * Messages are written with {@link DataOutputStream}: the coordinator sends the base URL, arrival profile,
+ * worker count, worker index, duration in milliseconds, users of the whole run, the worker's first user and its
+ * number of users, the worker answers
+ * {@link #READY}, the coordinator sends the start time in epoch milliseconds and the worker finally
+ * answers with whether its live metrics aborted it and its result (see
+ * {@link #writeResult(DataOutputStream, ArrivalResult)}). While the run lasts the coordinator may send
+ * {@link #STOP}, when another worker was aborted, upon which the worker stops issuing arrivals and reports.
+ */
+public class LoadWorker {
+
+    /** Logger instance for reporting the worker's progress */
+    private static final Logger logger = LogManager.getLogger(LoadWorker.class);
+
+    /** Sent by a worker once its scenario is prepared */
+    static final int READY = 1;
+
+    /** Sent by the coordinator to stop a running worker early */
+    static final int STOP = 2;
+
+    /** Exit status of a worker whose live metrics aborted its share of the run */
+    static final int ABORTED = 2;
+
+    private LoadWorker() {
+    }
+
+    /**
+     * Entry point of a worker process.
+     *
+     * @param args The coordinator's host and port
+     * @throws IOException if the coordinator connection fails, the data feed cannot be mapped or the sample log cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: LoadWorker <coordinator host> <coordinator port>");
+        }
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            String baseUrl = in.readUTF();
+            String arrival = in.readUTF();
+            int workers = in.readInt();
+            int index = in.readInt();
+            Duration duration = Duration.ofMillis(in.readLong());
+            int totalUsers = in.readInt();
+            int firstUser = in.readInt();
+            int users = in.readInt();
+
+            ArrivalRateScheduler scheduler = new ArrivalRateScheduler(
+                    ArrivalProfile.parse(arrival).scaled(1.0 / workers), duration, users, (double) index / workers);
+            // Every worker serves its own range of users, and so its own partitions of the data feed
+            LoginInvoiceScenario scenario = LoginInvoiceScenario.fromConfiguration(baseUrl, totalUsers);
+            Scenario range = userId -> scenario.newUser(firstUser + userId);
+            out.writeByte(READY);
+            out.flush();
+
+            long startAt = in.readLong();
+            Thread.ofPlatform().name("coordinator-listener").daemon().start(() -> {
+                try {
+                    if (in.readByte() == STOP) {
+                        logger.warn("Worker {}/{} stopped by the coordinator", index + 1, workers);
+                        scheduler.stop();
+                    }
+                } catch (IOException e) {
+                    // The coordinator closed the connection after the result
+                }
+            });
+            logger.info("Worker {}/{} starts {} ms from now with 1/{} of {} and users {} to {}", index + 1, workers,
+                    startAt - System.currentTimeMillis(), workers, arrival, firstUser, firstUser + users - 1);
+            long remaining;
+            while ((remaining = startAt - System.currentTimeMillis()) > 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(remaining));
+            }
+            ArrivalResult result;
+            String abortReason;
+            // Every worker watches and may abort its own share, serves its own endpoint and writes its own
+            // sample log, which SampleReport reads together
+            try (LiveMetrics metrics = LiveMetrics.fromConfiguration(index + 1).start(scheduler::stop);
+                 SampleLogWriter samples = SampleLogWriter.fromConfiguration("." + (index + 1))) {
+                if (samples != null) {
+                    scenario.logTo(samples);
+                }
+                scenario.recordTo(metrics);
+                result = scheduler.run(range);
+                abortReason = metrics.abortReason();
+            }
+            if (scenario.tokens() != null) {
+                logger.info("Access tokens: {}", scenario.tokens().summary());
+            }
+            if (abortReason != null) {
+                logger.error("Worker {}/{} aborted: {}", index + 1, workers, abortReason);
+            }
+            out.writeBoolean(abortReason != null);
+            writeResult(out, result);
+            out.flush();
+            // The connection pool's threads would keep the worker alive
+            System.exit(abortReason == null ? 0 : ABORTED);
+        }
+    }
+
+    /**
+     * Writes a result: the counts, the elapsed nanoseconds and both histograms.
+     *
+     * @param out The stream to the coordinator
+     * @param result The worker's result
+     * @throws IOException if the stream fails
+     */
+    static void writeResult(DataOutputStream out, ArrivalResult result) throws IOException {
+        out.writeLong(result.arrivals());
+        out.writeLong(result.iterations());
+        out.writeLong(result.errors());
+        out.writeLong(result.queued());
+        out.writeInt(result.peakUsers());
+        out.writeLong(result.elapsed().toNanos());
+        writeHistogram(out, result.serviceTime());
+        writeHistogram(out, result.responseTime());
+    }
+
+    /**
+     * Reads a result written by {@link #writeResult(DataOutputStream, ArrivalResult)}.
+     *
+     * @param in The stream from the worker
+     * @return The worker's result
+     * @throws IOException if the stream fails or a histogram cannot be decoded
+     */
+    static ArrivalResult readResult(DataInputStream in) throws IOException {
+        return new ArrivalResult(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readInt(),
+                Duration.ofNanos(in.readLong()), readHistogram(in), readHistogram(in));
+    }
+
+    private static void writeHistogram(DataOutputStream out, Histogram histogram) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        out.writeInt(length);
+        out.write(buffer.array(), 0, length);
+    }
+
+    private static Histogram readHistogram(DataInputStream in) throws IOException {
+        byte[] encoded = new byte[in.readInt()];
+        in.readFully(encoded);
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt histogram from worker", e);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package load;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import config.ConfigurationManager;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import utils.PayloadTemplate;
+import utils.RequestSpecBuilderUtil;
+import utils.ResponseValidator;
+
+/**
+ * The login → invoice flow of the JMeter performance test plan as a load engine scenario.
+ * Every iteration posts the configured credentials to {@code /users/login}, extracts
+ * {@code access_token} from the response and posts an invoice for the configured cart
+ * with that token as bearer authorization. The target host is {@code checkout.base.url}.
+ * <p>
+ * With a {@link DataFeed}, every virtual user instead cycles through its own partition of the feed,
+ * logging in as a different customer with that customer's billing address and payment method
+ * on every iteration.
+ * <p>
+ * With a {@link TokenCache}, iterations reuse the access token of their credential until it is due for
+ * refresh instead of logging in every time, so nearly all requests are invoices. Fed virtual users then
+ * stay with one customer for the lifetime of its token and move on to the next customer when it expires.
+ */
+public class LoginInvoiceScenario implements Scenario {
+
+    /** Logger instance for reporting the data feed */
+    private static final Logger logger = LogManager.getLogger(LoginInvoiceScenario.class);
+
+    /** Every invoice response must carry the id of the created invoice */
+    private static final ResponseValidator CREATED_INVOICE = ResponseValidator.require("id");
+
+    /** Login payload template, escapes the configured credentials */
+    private static final PayloadTemplate LOGIN_BODY = PayloadTemplate.compile(
+            "{\"email\":\"${email}\",\"password\":\"${password}\"}");
+
+    /** Invoice payload template, escapes the billing address, payment method and cart id */
+    private static final PayloadTemplate INVOICE_BODY = PayloadTemplate.compile(
+            "{\"billing_street\":\"${street}\",\"billing_city\":\"${city}\",\"billing_state\":\"${state}\","
+                    + "\"billing_country\":\"${country}\",\"billing_postal_code\":\"${postalCode}\","
+                    + "\"payment_method\":\"${paymentMethod}\",\"payment_details\":{},"
+                    + "\"cart_id\":\"${cartId}\"}");
+
+    /** Feed fields filling the invoice template placeholders before the cart id */
+    private static final List<String> INVOICE_FIELDS = List.of(
+            "street", "city", "state", "country", "postal_code", "payment_method");
+
+    /** Request specification shared by all virtual users */
+    private final RequestSpecification spec;
+
+    /** UTF-8 JSON payload of the login request, shared read-only by all virtual users */
+    private final byte[] loginBody;
+
+    /** UTF-8 JSON payload of the invoice request, shared read-only by all virtual users */
+    private final byte[] invoiceBody;
+
+    /** Customers to log in as, or null to use the configured credentials */
+    private final DataFeed feed;
+
+    /** Number of virtual users the feed is partitioned between */
+    private final int users;
+
+    /** Configured cart id, also used for the invoices of fed customers */
+    private final String cartId;
+
+    /** Configured e-mail address, the token cache key without a feed */
+    private final String email;
+
+    /** Access tokens shared across iterations, or null to log in on every iteration */
+    private final TokenCache tokens;
+
+    /** Live metrics of the login requests, or null */
+    private volatile LiveMetrics.Series logins;
+
+    /** Live metrics of the invoice requests, or null */
+    private volatile LiveMetrics.Series invoices;
+
+    /** Sample log of every request, or null */
+    private volatile SampleLogWriter sampleLog;
+
+    /** Sample log label id of the login requests, published by the write of {@link #sampleLog} */
+    private int loginLabel;
+
+    /** Sample log label id of the invoice requests */
+    private int invoiceLabel;
+
+    /**
+     * Creates the scenario from the {@code checkout.*} configuration properties.
+     */
+    public LoginInvoiceScenario() {
+        this(ConfigurationManager.getProperty("checkout.base.url"));
+    }
+
+    /**
+     * Creates the scenario against an explicit base URL, for example a local stub server.
+     *
+     * @param baseUrl The base URI of the checkout API
+     */
+    public LoginInvoiceScenario(String baseUrl) {
+        this(baseUrl, null, 1);
+    }
+
+    /**
+     * Creates the scenario against an explicit base URL with customers from a data feed.
+     * The feed needs the fields written by {@link DataFeedGenerator}.
+     *
+     * @param baseUrl The base URI of the checkout API
+     * @param feed The customers to log in as, or null to use the configured credentials
+     * @param users The number of virtual users of the run, each of which gets its own partition of the feed
+     * @throws IllegalArgumentException if the feed lacks a field or has fewer records than users
+     */
+    public LoginInvoiceScenario(String baseUrl, DataFeed feed, int users) {
+        this(baseUrl, feed, users, null);
+    }
+
+    /**
+     * Creates the scenario against an explicit base URL with customers from a data feed and cached tokens.
+     *
+     * @param baseUrl The base URI of the checkout API
+     * @param feed The customers to log in as, or null to use the configured credentials
+     * @param users The number of virtual users of the run, each of which gets its own partition of the feed
+     * @param tokens The token cache shared by all virtual users, or null to log in on every iteration
+     * @throws IllegalArgumentException if the feed lacks a field or has fewer records than users
+     */
+    public LoginInvoiceScenario(String baseUrl, DataFeed feed, int users, TokenCache tokens) {
+        this.spec = RequestSpecBuilderUtil.getRequestSpec(baseUrl);
+        this.cartId = ConfigurationManager.getProperty("checkout.cart.id");
+        this.email = ConfigurationManager.getProperty("checkout.email");
+        this.tokens = tokens;
+        this.loginBody = LOGIN_BODY.render(email, ConfigurationManager.getProperty("checkout.password"));
+        this.invoiceBody = INVOICE_BODY.render("street", "city", "state", "country", "12345", "cash-on-delivery", cartId);
+        this.feed = feed;
+        this.users = users;
+        if (feed != null) {
+            for (String field : INVOICE_FIELDS) {
+                feed.fieldIndex(field);
+            }
+            feed.partition(0, users);
+        }
+    }
+
+    /**
+     * Creates the scenario from the configuration, using the data feed file named by {@code load.feed.file}
+     * when it is set and a {@link TokenCache} unless {@code load.token.cache} is false.
+     *
+     * @param users The number of virtual users of the run
+     * @return The scenario
+     * @throws IOException if the feed file cannot be mapped
+     */
+    public static LoginInvoiceScenario fromConfiguration(int users) throws IOException {
+        return fromConfiguration(ConfigurationManager.getProperty("checkout.base.url"), users);
+    }
+
+    /**
+     * Creates the scenario from the configuration against an explicit base URL.
+     *
+     * @param baseUrl The base URI of the checkout API
+     * @param users The number of virtual users of the run
+     * @return The scenario
+     * @throws IOException if the feed file cannot be mapped
+     * @see #fromConfiguration(int)
+     */
+    public static LoginInvoiceScenario fromConfiguration(String baseUrl, int users) throws IOException {
+        String feedFile = ConfigurationManager.getProperty("load.feed.file", "");
+        TokenCache tokens = Boolean.parseBoolean(ConfigurationManager.getProperty("load.token.cache", "true"))
+                ? TokenCache.fromConfiguration() : null;
+        if (feedFile.isEmpty()) {
+            return new LoginInvoiceScenario(baseUrl, null, users, tokens);
+        }
+        DataFeed feed = DataFeed.open(Path.of(feedFile));
+        logger.info("Feeding {} users from {} records of {}", users, feed.size(), feedFile);
+        return new LoginInvoiceScenario(baseUrl, feed, users, tokens);
+    }
+
+    /**
+     * Returns the token cache of the scenario.
+     *
+     * @return The token cache, or null if every iteration logs in
+     */
+    public TokenCache tokens() {
+        return tokens;
+    }
+
+    /**
+     * Records the latency and outcome of every login and invoice request into live metrics,
+     * as the {@code login} and {@code invoice} series. Call before the run starts.
+     *
+     * @param metrics The live metrics of the run
+     * @return This scenario for chaining
+     */
+    public LoginInvoiceScenario recordTo(LiveMetrics metrics) {
+        logins = metrics.series("login");
+        invoices = metrics.series("invoice");
+        return this;
+    }
+
+    /**
+     * Writes every login and invoice request to a sample log, labelled {@code login} and {@code invoice}.
+     * Call before the run starts.
+     *
+     * @param log The sample log of the run
+     * @return This scenario for chaining
+     */
+    public LoginInvoiceScenario logTo(SampleLogWriter log) {
+        loginLabel = log.label("login");
+        invoiceLabel = log.label("invoice");
+        sampleLog = log;
+        return this;
+    }
+
+    /**
+     * Creates a virtual user performing one invoice request per iteration, after a login unless a cached
+     * token is used.
+     *
+     * @param userId Zero-based index of the virtual user
+     * @return VirtualUser executing the login → invoice flow
+     */
+    @Override
+    public VirtualUser newUser(int userId) {
+        if (feed == null) {
+            if (tokens == null) {
+                return () -> invoice(null, login(loginBody), invoiceBody);
+            }
+            return () -> invoice(email, tokens.token(email, () -> login(loginBody)), invoiceBody);
+        }
+        DataFeed.Partition partition = feed.partition(userId, users);
+        DataFeed.Record record = partition.record();
+        CharSequence email = record.get(feed.fieldIndex("email"));
+        CharSequence password = record.get(feed.fieldIndex("password"));
+        // The field values follow the record, so the template arguments are assembled only once
+        CharSequence[] invoiceValues = new CharSequence[INVOICE_FIELDS.size() + 1];
+        for (int i = 0; i < INVOICE_FIELDS.size(); i++) {
+            invoiceValues[i] = record.get(feed.fieldIndex(INVOICE_FIELDS.get(i)));
+        }
+        invoiceValues[INVOICE_FIELDS.size()] = cartId;
+        // The user keeps its render buffers, arrivals of open-model runs each start on a new thread
+        PayloadTemplate.Renderer loginBody = LOGIN_BODY.renderer();
+        PayloadTemplate.Renderer invoiceBody = INVOICE_BODY.renderer();
+        if (tokens == null) {
+            return () -> {
+                partition.next();
+                invoice(null, login(loginBody.render(email, password)), invoiceBody.render(invoiceValues));
+            };
+        }
+        return new VirtualUser() {
+            /** Customer whose token the user currently works with, null before the first iteration */
+            private String customer;
+
+            @Override
+            public void iterate() throws Exception {
+                if (customer == null || tokens.cachedToken(customer) == null) {
+                    if (customer != null) {
+                        tokens.invalidate(customer);
+                    }
+                    partition.next();
+                    customer = email.toString();
+                }
+                String token = tokens.token(customer, () -> login(loginBody.render(email, password)));
+                invoice(customer, token, invoiceBody.render(invoiceValues));
+            }
+        };
+    }
+
+    /**
+     * Logs in and extracts the access token.
+     *
+     * @param login The login payload
+     * @return The access token
+     */
+    private String login(byte[] login) {
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        boolean success = false;
+        int status = 0;
+        int bytes = 0;
+        try {
+            Response loginResponse = RestAssured.given()
+                    .spec(spec)
+                    .accept("application/json")
+                    .body(login)
+                    .post("/users/login");
+            status = loginResponse.getStatusCode();
+            byte[] body = loginResponse.asByteArray();
+            bytes = body.length;
+            if (loginResponse.getStatusCode() != 200) {
+                throw new IllegalStateException("Login failed with status " + loginResponse.getStatusCode());
+            }
+            String accessToken = ResponseValidator.value(body, "access_token");
+            if (accessToken == null) {
+                throw new IllegalStateException("Login response without access_token");
+            }
+            success = true;
+            return accessToken;
+        } finally {
+            record(logins, loginLabel, startMillis, start, success, status, bytes);
+        }
+    }
+
+    /**
+     * Creates an invoice with an access token and checks that the response carries its id.
+     * A rejected cached token is removed from the cache.
+     *
+     * @param key The token cache key of the credential, or null without a cache
+     * @param accessToken The access token
+     * @param invoiceBody The invoice payload
+     */
+    private void invoice(String key, String accessToken, byte[] invoiceBody) {
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        boolean success = false;
+        int status = 0;
+        int bytes = 0;
+        try {
+            Response invoice = RestAssured.given()
+                    .spec(spec)
+                    .accept("application/json")
+                    .header("Authorization", "Bearer " + accessToken)
+                    .body(invoiceBody)
+                    .post("/invoices");
+            status = invoice.getStatusCode();
+            byte[] body = invoice.asByteArray();
+            bytes = body.length;
+            if (invoice.getStatusCode() == 401 && key != null) {
+                tokens.invalidate(key);
+            }
+            if (invoice.getStatusCode() / 100 != 2) {
+                throw new IllegalStateException("Invoice failed with status " + invoice.getStatusCode());
+            }
+            CREATED_INVOICE.validate(body);
+            success = true;
+        } finally {
+            record(invoices, invoiceLabel, startMillis, start, success, status, bytes);
+        }
+    }
+
+    /**
+     * Records a finished request into the live metrics and the sample log, where they are enabled.
+     *
+     * @param series The live metrics series of the request type, or null
+     * @param label The sample log label id of the request type
+     * @param startMillis Start of the request in epoch milliseconds
+     * @param start Start of the request from {@link System#nanoTime()}
+     * @param success Whether the request and its checks succeeded
+     * @param status HTTP status code, 0 if no response was received
+     * @param bytes Size of the response body
+     */
+    private void record(LiveMetrics.Series series, int label, long startMillis, long start, boolean success,
+                        int status, int bytes) {
+        long latency = System.nanoTime() - start;
+        if (series != null) {
+            series.record(latency, success);
+        }
+        SampleLogWriter log = sampleLog;
+        if (log != null) {
+            log.record(label, startMillis, latency, bytes, status);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package load;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary log of every request of a load run, written by {@link SampleLogWriter} and read here.
+ * JMeter's CSV and XML result files take a hundred bytes and more per sample; this format stores the samples
+ * in blocks of columns (start time, label, latency, response bytes, status), encodes each column as
+ * variable-length integers, the start times as differences to the previous sample, and deflates every block.
+ * A sample takes a few bytes, so an hour at a thousand requests per second fits in tens of megabytes.
+ * <p>
+ * A file starts with {@link #MAGIC}, followed by blocks of: the compressed and the raw length as ints, then
+ * the deflated block. A raw block holds the sample count, the labels first used in the block (count, then
+ * length and UTF-8 bytes of each), and the columns: zigzag start time deltas in epoch milliseconds (the
+ * first relative to zero), label ids, latencies in microseconds, response sizes and status codes.
+ * A status of 0 means that no response was received.
+ */
+public final class SampleLog {
+
+    /** Leading bytes of a sample log file, including the format version */
+    static final byte[] MAGIC = "JDSLOG01".getBytes(StandardCharsets.US_ASCII);
+
+    private SampleLog() {
+    }
+
+    /**
+     * Reads every sample of a log in file order. Samples of different threads are not ordered by time.
+     *
+     * @param file The sample log
+     * @param consumer Receives every sample
+     * @return Number of samples read
+     * @throws IOException if the file cannot be read or is not a valid sample log
+     */
+    public static long read(Path file, Consumer<Sample> consumer) throws IOException {
+        List<String> labels = new ArrayList<>();
+        Inflater inflater = new Inflater();
+        long samples = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            byte[] magic = new byte[MAGIC.length];
+            try {
+                in.readFully(magic);
+            } catch (EOFException e) {
+                magic = new byte[0];
+            }
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException(file + " is not a sample log");
+            }
+            byte[] compressed = new byte[0];
+            byte[] raw = new byte[0];
+            while (true) {
+                int compressedLength;
+                try {
+                    compressedLength = in.readInt();
+                } catch (EOFException e) {
+                    return samples;
+                }
+                int rawLength = in.readInt();
+                if (compressed.length < compressedLength) {
+                    compressed = new byte[compressedLength];
+                }
+                if (raw.length < rawLength) {
+                    raw = new byte[rawLength];
+                }
+                in.readFully(compressed, 0, compressedLength);
+                inflater.reset();
+                inflater.setInput(compressed, 0, compressedLength);
+                if (inflater.inflate(raw, 0, rawLength) != rawLength) {
+                    throw new IOException("Truncated block in " + file);
+                }
+                samples += decode(new Cursor(raw, rawLength), labels, consumer);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block in " + file, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Decodes one raw block.
+     *
+     * @param block The raw block
+     * @param labels The labels defined by earlier blocks, extended by this one
+     * @param consumer Receives every sample
+     * @return Number of samples in the block
+     * @throws IOException if the block is malformed
+     */
+    private static int decode(Cursor block, List<String> labels, Consumer<Sample> consumer) throws IOException {
+        int count = (int) block.varint();
+        int newLabels = (int) block.varint();
+        for (int i = 0; i < newLabels; i++) {
+            labels.add(block.string());
+        }
+        long[] times = new long[count];
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            time += zigzagDecode(block.varint());
+            times[i] = time;
+        }
+        int[] labelIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            labelIds[i] = (int) block.varint();
+            if (labelIds[i] >= labels.size()) {
+                throw new IOException("Undefined label " + labelIds[i]);
+            }
+        }
+        long[] latencies = new long[count];
+        for (int i = 0; i < count; i++) {
+            latencies[i] = block.varint();
+        }
+        long[] bytes = new long[count];
+        for (int i = 0; i < count; i++) {
+            bytes[i] = block.varint();
+        }
+        for (int i = 0; i < count; i++) {
+            consumer.accept(new Sample(times[i], labels.get(labelIds[i]), latencies[i], bytes[i], (int) block.varint()));
+        }
+        return count;
+    }
+
+    /**
+     * Maps a signed value to an unsigned one with small magnitudes staying small.
+     *
+     * @param value The signed value
+     * @return The zigzag encoded value
+     */
+    static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Reverses {@link #zigzagEncode(long)}.
+     *
+     * @param value The zigzag encoded value
+     * @return The signed value
+     */
+    static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * One logged request.
+     *
+     * @param epochMillis Start of the request in epoch milliseconds
+     * @param label The request type, e.g. {@code login}
+     * @param latencyMicros Time to the complete response in microseconds
+     * @param bytes Size of the response body
+     * @param status HTTP status code, 0 if no response was received
+     */
+    public record Sample(long epochMillis, String label, long latencyMicros, long bytes, int status) {
+
+        /**
+         * Returns whether the request succeeded.
+         *
+         * @return True for 2xx and 3xx responses
+         */
+        public boolean success() {
+            return status >= 200 && status < 400;
+        }
+    }
+
+    /**
+     * Read position in a raw block.
+     */
+    private static final class Cursor {
+
+        /** The raw block */
+        private final byte[] data;
+
+        /** Length of the block in the array */
+        private final int limit;
+
+        /** Index of the next byte */
+        private int position;
+
+        private Cursor(byte[] data, int limit) {
+            this.data = data;
+            this.limit = limit;
+        }
+
+        private long varint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= limit) {
+                    throw new IOException("Truncated varint");
+                }
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private String string() throws IOException {
+            int length = (int) varint();
+            if (length < 0 || position + length > limit) {
+                throw new IOException("Truncated label");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package load;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import config.ConfigurationManager;
+
+/**
+ * Writes a {@link SampleLog} from any number of threads without doing I/O on them.
+ * Threads record into a small set of striped column buffers, picked by thread id and guarded by a lock that
+ * is held only for the append, so virtual users neither share one hot lock nor each own a buffer. Full
+ * buffers, and once a second the partly filled ones, are handed to a single background thread, which
+ * encodes, deflates and writes them and then returns the buffers for reuse. Recording therefore does not
+ * allocate in steady state and never waits for the disk.
+ */
+public class SampleLogWriter implements AutoCloseable {
+
+    /** Logger instance for reporting the log file and write failures */
+    private static final Logger logger = LogManager.getLogger(SampleLogWriter.class);
+
+    /** Samples per block */
+    static final int BLOCK_SAMPLES = 8192;
+
+    /** Full blocks that may wait for the writer, about 16 MB */
+    private static final int MAX_PENDING_BLOCKS = 64;
+
+    /** Time between two hand-ins of the partly filled blocks */
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** Time before a hand-in that skipped a stripe is retried */
+    private static final long RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Column buffers the threads record into */
+    private final Stripe[] stripes;
+
+    /** Buffers waiting to be written, bounded so that a writer falling behind holds back the recording threads */
+    private final BlockingQueue<Block> pending = new LinkedBlockingQueue<>(MAX_PENDING_BLOCKS);
+
+    /** Written buffers available for reuse */
+    private final Queue<Block> free = new ConcurrentLinkedQueue<>();
+
+    /** Label ids by name */
+    private final Map<String, Integer> labelIds = new ConcurrentHashMap<>();
+
+    /** Label names by id */
+    private final List<String> labels = new CopyOnWriteArrayList<>();
+
+    /** Number of samples recorded */
+    private final LongAdder samples = new LongAdder();
+
+    /** The file stream, used by the writer thread only */
+    private final DataOutputStream out;
+
+    /** The background writer */
+    private final Thread writer;
+
+    /** Set by close() to make the writer drain and exit */
+    private volatile boolean closed;
+
+    /** First write failure of the writer thread */
+    private volatile IOException failure;
+
+    /**
+     * Creates the log file, replacing an existing one, and starts the writer thread.
+     *
+     * @param file The sample log to write
+     * @throws IOException if the file cannot be created
+     */
+    public SampleLogWriter(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.write(SampleLog.MAGIC);
+        stripes = new Stripe[Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4 - 1) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        writer = Thread.ofPlatform().name("sample-log-writer").daemon().start(this::writeLoop);
+    }
+
+    /**
+     * Opens the sample log named by {@code load.results.file}, which can be overridden with a system property.
+     *
+     * @param suffix Appended to the file name, e.g. to give every worker JVM its own log, or an empty string
+     * @return The sample log writer, or null if {@code load.results.file} is empty
+     * @throws IOException if the file cannot be created
+     */
+    public static SampleLogWriter fromConfiguration(String suffix) throws IOException {
+        String file = ConfigurationManager.getProperty("load.results.file", "");
+        if (file.isEmpty()) {
+            return null;
+        }
+        logger.info("Writing every sample to {}{}", file, suffix);
+        return new SampleLogWriter(Path.of(file + suffix));
+    }
+
+    /**
+     * Returns the id of a label, defining it on first use. Look labels up once, not per sample.
+     *
+     * @param name The request type, e.g. {@code login}
+     * @return The label id to record with
+     */
+    public int label(String name) {
+        Integer id = labelIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (labels) {
+            return labelIds.computeIfAbsent(name, key -> {
+                labels.add(key);
+                return labels.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Records one request. A thread filling a block waits, after releasing its stripe, while the writer is
+     * {@value #MAX_PENDING_BLOCKS} blocks behind, and drops the block only if the writer has stopped; an
+     * interrupt is kept for the caller. Samples recorded after {@link #close()} may be lost.
+     *
+     * @param label The label id from {@link #label(String)}
+     * @param epochMillis Start of the request in epoch milliseconds
+     * @param latencyNanos Time to the complete response in nanoseconds
+     * @param bytes Size of the response body
+     * @param status HTTP status code, 0 if no response was received
+     */
+    public void record(int label, long epochMillis, long latencyNanos, int bytes, int status) {
+        Stripe stripe = stripes[(int) Thread.currentThread().threadId() & (stripes.length - 1)];
+        Block full = null;
+        stripe.lock.lock();
+        try {
+            Block block = stripe.block;
+            if (block.size == BLOCK_SAMPLES) {
+                // Only swapped here, so that a waiting hand-in does not hold up the other threads of the stripe
+                full = block;
+                block = newBlock();
+                stripe.block = block;
+            }
+            block.add(label, epochMillis, Math.max(0, latencyNanos / 1000), Math.max(0, bytes), Math.max(0, status));
+        } finally {
+            stripe.lock.unlock();
+        }
+        samples.increment();
+        if (full != null) {
+            handIn(full);
+        }
+    }
+
+    /**
+     * Returns the number of samples recorded so far.
+     *
+     * @return Recorded samples
+     */
+    public long samples() {
+        return samples.sum();
+    }
+
+    /**
+     * Writes all recorded samples, stops the writer thread and closes the file.
+     *
+     * @throws IOException if writing the log failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while closing the sample log", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Queues a full block for the writer, waiting while the writer is behind.
+     *
+     * @param block The full block, no longer referenced by its stripe
+     */
+    private void handIn(Block block) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (pending.offer(block, 100, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                // The block holds the samples of other threads too, so it is not given up on an interrupt
+                interrupted = true;
+            }
+            if (!writer.isAlive()) {
+                samples.add(-block.size);
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues the partly filled block of every stripe for the writer.
+     *
+     * @param closing Whether to wait for busy stripes instead of skipping them
+     * @return True if no stripe was skipped, either because it was busy or because the queue was full
+     */
+    private boolean handInPartialBlocks(boolean closing) {
+        boolean complete = true;
+        for (Stripe stripe : stripes) {
+            if (closing) {
+                stripe.lock.lock();
+            } else if (!stripe.lock.tryLock()) {
+                complete = false;
+                continue;
+            }
+            try {
+                if (stripe.block.size > 0) {
+                    if (pending.offer(stripe.block)) {
+                        stripe.block = newBlock();
+                    } else {
+                        complete = false;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return complete;
+    }
+
+    private Block newBlock() {
+        Block block = free.poll();
+        return block != null ? block : new Block();
+    }
+
+    /**
+     * Body of the writer thread: writes full blocks as they arrive, hands in partly filled ones every second
+     * however many full blocks arrive, and after close, and closes the file once everything is written.
+     */
+    private void writeLoop() {
+        Encoder encoder = new Encoder();
+        try {
+            long nextFlush = System.nanoTime() + FLUSH_INTERVAL_NANOS;
+            while (true) {
+                boolean last = closed;
+                long now = System.nanoTime();
+                // A hand-in that skipped a stripe keeps the deadline, so it is retried right after the next block
+                if ((last || now - nextFlush >= 0) && handInPartialBlocks(last)) {
+                    if (last && pending.isEmpty()) {
+                        break;
+                    }
+                    nextFlush = now + FLUSH_INTERVAL_NANOS;
+                }
+                Block block = last ? pending.poll()
+                        : pending.poll(Math.max(nextFlush - System.nanoTime(), RETRY_NANOS), TimeUnit.NANOSECONDS);
+                if (block != null) {
+                    encoder.write(block);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Writing the sample log failed, further samples are dropped", e);
+            failure = e;
+        } catch (InterruptedException e) {
+            failure = new IOException("Sample log writer interrupted", e);
+        } finally {
+            encoder.end();
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * One stripe: the block being filled and its lock.
+     */
+    private final class Stripe {
+
+        /** Guards the block, held only for single appends and swaps, never while waiting for the writer */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /** The block being filled */
+        private Block block = new Block();
+    }
+
+    /**
+     * Column buffers of up to {@link #BLOCK_SAMPLES} samples.
+     */
+    private static final class Block {
+
+        /** Columns: start time in epoch milliseconds, label id, latency in microseconds, response size, status */
+        private final long[] times = new long[BLOCK_SAMPLES];
+        private final int[] labels = new int[BLOCK_SAMPLES];
+        private final long[] latencies = new long[BLOCK_SAMPLES];
+        private final int[] bytes = new int[BLOCK_SAMPLES];
+        private final int[] statuses = new int[BLOCK_SAMPLES];
+
+        /** Number of samples in the block */
+        private int size;
+
+        private void add(int label, long epochMillis, long latencyMicros, int responseBytes, int status) {
+            times[size] = epochMillis;
+            labels[size] = label;
+            latencies[size] = latencyMicros;
+            bytes[size] = responseBytes;
+            statuses[size] = status;
+            size++;
+        }
+    }
+
+    /**
+     * Encoder of blocks, owned by the writer thread.
+     */
+    private final class Encoder {
+
+        /** Compressor reused for every block; the encoded columns leave little for slower levels to gain */
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        /** Raw block being encoded */
+        private byte[] raw = new byte[BLOCK_SAMPLES * 24];
+
+        /** Deflated block */
+        private byte[] compressed = new byte[BLOCK_SAMPLES * 24];
+
+        /** Length of the raw block */
+        private int length;
+
+        /** Number of labels already written to the file */
+        private int writtenLabels;
+
+        private void write(Block block) throws IOException {
+            length = 0;
+            varint(block.size);
+            List<String> known = labels;
+            int labelCount = known.size();
+            varint(labelCount - writtenLabels);
+            for (int i = writtenLabels; i < labelCount; i++) {
+                byte[] name = known.get(i).getBytes(StandardCharsets.UTF_8);
+                varint(name.length);
+                ensure(name.length);
+                System.arraycopy(name, 0, raw, length, name.length);
+                length += name.length;
+            }
+            writtenLabels = labelCount;
+            long previous = 0;
+            for (int i = 0; i < block.size; i++) {
+                varint(SampleLog.zigzagEncode(block.times[i] - previous));
+                previous = block.times[i];
+            }
+            for (int i = 0; i < block.size; i++) {
+                varint(block.labels[i]);
+            }
+            for (int i = 0; i < block.size; i++) {
+                varint(block.latencies[i]);
+            }
+            for (int i = 0; i < block.size; i++) {
+                varint(block.bytes[i]);
+            }
+            for (int i = 0; i < block.size; i++) {
+                varint(block.statuses[i]);
+            }
+            block.size = 0;
+            free.offer(block);
+
+            deflater.reset();
+            deflater.setInput(raw, 0, length);
+            deflater.finish();
+            int compressedLength = 0;
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+            }
+            out.writeInt(compressedLength);
+            out.writeInt(length);
+            out.write(compressed, 0, compressedLength);
+        }
+
+        private void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                raw[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            raw[length++] = (byte) value;
+        }
+
+        private void ensure(int bytes) {
+            if (length + bytes > raw.length) {
+                raw = Arrays.copyOf(raw, Math.max(raw.length * 2, length + bytes));
+            }
+        }
+
+        private void end() {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package load;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.IntCountsHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Offline reports of one or more {@link SampleLog} files, e.g. the logs of all workers of a distributed run.
+ * The HTML report is a single self-contained file with inline SVG charts of the latency over time, the
+ * latency by percentile and the throughput and errors over time per label, and a summary table.
+ * Percentiles come from HdrHistograms of the exact samples, not from averages of per-second values.
+ * The JTL export writes the samples as a JMeter CSV results file for tools that expect one.
+ */
+public final class SampleReport {
+
+    /** Logger instance for reporting the generated files */
+    private static final Logger logger = LogManager.getLogger(SampleReport.class);
+
+    /** Largest latency kept in the histograms, longer ones are clamped */
+    private static final long HIGHEST_TRACKABLE_MICROS = 3_600_000_000L;
+
+    /** Most points of a time chart; long runs get wider buckets */
+    static final int MAX_BUCKETS = 300;
+
+    /** Percentiles of the percentile chart */
+    private static final double[] PERCENTILES = {0, 50, 75, 90, 95, 99, 99.5, 99.9, 99.95, 99.99, 99.999};
+
+    /** Series colours, one per label */
+    private static final String[] COLORS = {"#1f77b4", "#ff7f0e", "#2ca02c", "#d62728", "#9467bd", "#8c564b", "#e377c2", "#7f7f7f"};
+
+    /** Width of a chart's plot area in pixels */
+    private static final int WIDTH = 860;
+
+    /** Height of a chart's plot area in pixels */
+    private static final int HEIGHT = 240;
+
+    /** Space left of a chart's plot area for the y axis labels */
+    private static final int LEFT = 60;
+
+    /** Space above a chart's plot area for the title */
+    private static final int TOP = 30;
+
+    /** Space below a chart's plot area for the x axis labels */
+    private static final int BOTTOM = 40;
+
+    private SampleReport() {
+    }
+
+    /**
+     * Writes the HTML report of sample logs. The logs are read twice: once for the time range and once for
+     * the statistics.
+     *
+     * @param report The HTML file to write
+     * @param logs The sample logs
+     * @return Number of samples in the report
+     * @throws IOException if a log cannot be read or the report cannot be written
+     */
+    public static long writeHtml(Path report, List<Path> logs) throws IOException {
+        long[] range = {Long.MAX_VALUE, Long.MIN_VALUE};
+        for (Path log : logs) {
+            SampleLog.read(log, sample -> {
+                range[0] = Math.min(range[0], sample.epochMillis());
+                range[1] = Math.max(range[1], sample.epochMillis());
+            });
+        }
+        if (range[0] > range[1]) {
+            range[0] = range[1] = System.currentTimeMillis();
+        }
+        long bucketMillis = Math.max(1000, (range[1] - range[0]) / MAX_BUCKETS + 1);
+        int buckets = (int) ((range[1] - range[0]) / bucketMillis) + 1;
+
+        Map<String, LabelStats> stats = new LinkedHashMap<>();
+        long samples = 0;
+        for (Path log : logs) {
+            samples += SampleLog.read(log, sample -> stats
+                    .computeIfAbsent(sample.label(), label -> new LabelStats(buckets))
+                    .add(sample, (int) ((sample.epochMillis() - range[0]) / bucketMillis)));
+        }
+
+        try (Writer out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            html(out, logs, stats, range[0], range[1], bucketMillis, samples);
+        }
+        logger.info("Wrote the report of {} samples to {}", samples, report);
+        return samples;
+    }
+
+    /**
+     * Writes the samples of sample logs as a JMeter CSV results (JTL) file with the columns
+     * {@code timeStamp,elapsed,label,responseCode,success,bytes}, in log order rather than time order.
+     *
+     * @param jtl The JTL file to write
+     * @param logs The sample logs
+     * @return Number of samples written
+     * @throws IOException if a log cannot be read or the JTL file cannot be written
+     */
+    public static long writeJtl(Path jtl, List<Path> logs) throws IOException {
+        long samples = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(jtl, StandardCharsets.UTF_8)) {
+            out.write("timeStamp,elapsed,label,responseCode,success,bytes\n");
+            StringBuilder line = new StringBuilder(128);
+            Map<String, String> escaped = new LinkedHashMap<>();
+            try {
+                for (Path log : logs) {
+                    samples += SampleLog.read(log, sample -> {
+                        line.setLength(0);
+                        line.append(sample.epochMillis()).append(',')
+                                .append((sample.latencyMicros() + 500) / 1000).append(',')
+                                .append(escaped.computeIfAbsent(sample.label(), SampleReport::csv)).append(',')
+                                .append(sample.status()).append(',')
+                                .append(sample.success()).append(',')
+                                .append(sample.bytes()).append('\n');
+                        try {
+                            out.append(line);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        logger.info("Wrote {} samples to {}", samples, jtl);
+        return samples;
+    }
+
+    /**
+     * Renders the summary table and the three charts.
+     *
+     * @param out The report file
+     * @param logs The sample logs, named in the header
+     * @param stats The statistics per label
+     * @param start Start of the first sample in epoch milliseconds
+     * @param end Start of the last sample in epoch milliseconds
+     * @param bucketMillis Width of a time chart point
+     * @param samples Number of samples
+     * @throws IOException if the report cannot be written
+     */
+    private static void html(Writer out, List<Path> logs, Map<String, LabelStats> stats, long start, long end,
+                             long bucketMillis, long samples) throws IOException {
+        StringBuilder html = new StringBuilder(64 * 1024);
+        html.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Load test report</title>\n<style>")
+                .append("body{font-family:sans-serif;margin:24px;color:#222}table{border-collapse:collapse}")
+                .append("th,td{border:1px solid #ccc;padding:4px 10px;text-align:right}th:first-child,td:first-child{text-align:left}")
+                .append("svg{display:block;margin:16px 0}text{font-size:11px}.title{font-size:14px;font-weight:bold}")
+                .append("</style></head><body>\n<h1>Load test report</h1>\n<p>");
+        for (Path log : logs) {
+            html.append(escape(log.getFileName().toString())).append(' ');
+        }
+        html.append("<br>").append(samples).append(" samples from ").append(Instant.ofEpochMilli(start))
+                .append(" to ").append(Instant.ofEpochMilli(end)).append(", ")
+                .append(bucketMillis / 1000.0).append(" s per point</p>\n");
+
+        html.append("<table><tr><th>Label</th><th>Samples</th><th>Errors</th><th>Error %</th><th>Throughput/s</th>")
+                .append("<th>p50 ms</th><th>p95 ms</th><th>p99 ms</th><th>Max ms</th><th>KB/s</th></tr>\n");
+        double seconds = Math.max(1000, end - start) / 1000.0;
+        for (Map.Entry<String, LabelStats> entry : stats.entrySet()) {
+            LabelStats label = entry.getValue();
+            Histogram latency = label.latency;
+            html.append("<tr><td>").append(escape(entry.getKey())).append("</td><td>").append(label.count)
+                    .append("</td><td>").append(label.errors).append("</td><td>")
+                    .append(format(100.0 * label.errors / Math.max(1, label.count))).append("</td><td>")
+                    .append(format(label.count / seconds)).append("</td><td>")
+                    .append(format(latency.getValueAtPercentile(50) / 1000.0)).append("</td><td>")
+                    .append(format(latency.getValueAtPercentile(95) / 1000.0)).append("</td><td>")
+                    .append(format(latency.getValueAtPercentile(99) / 1000.0)).append("</td><td>")
+                    .append(format(latency.getMaxValue() / 1000.0)).append("</td><td>")
+                    .append(format(label.bytes / 1024.0 / seconds)).append("</td></tr>\n");
+        }
+        html.append("</table>\n");
+
+        List<Line> p95 = new ArrayList<>();
+        List<Line> percentiles = new ArrayList<>();
+        List<Line> throughput = new ArrayList<>();
+        int color = 0;
+        for (Map.Entry<String, LabelStats> entry : stats.entrySet()) {
+            String name = entry.getKey();
+            LabelStats label = entry.getValue();
+            String stroke = COLORS[color++ % COLORS.length];
+            List<double[]> latencyPoints = new ArrayList<>();
+            List<double[]> requestPoints = new ArrayList<>();
+            List<double[]> errorPoints = new ArrayList<>();
+            for (int i = 0; i < label.buckets.length; i++) {
+                double time = (i + 0.5) * bucketMillis / 1000.0;
+                IntCountsHistogram bucket = label.buckets[i];
+                long count = bucket == null ? 0 : bucket.getTotalCount();
+                if (count > 0) {
+                    latencyPoints.add(new double[] {time, bucket.getValueAtPercentile(95) / 1000.0});
+                }
+                requestPoints.add(new double[] {time, count * 1000.0 / bucketMillis});
+                errorPoints.add(new double[] {time, label.bucketErrors[i] * 1000.0 / bucketMillis});
+            }
+            p95.add(new Line(name + " p95", stroke, false, latencyPoints));
+            throughput.add(new Line(name, stroke, false, requestPoints));
+            throughput.add(new Line(name + " errors", stroke, true, errorPoints));
+            List<double[]> percentilePoints = new ArrayList<>();
+            for (double percentile : PERCENTILES) {
+                percentilePoints.add(new double[] {percentileAxis(percentile),
+                        label.latency.getValueAtPercentile(percentile) / 1000.0});
+            }
+            percentiles.add(new Line(name, stroke, false, percentilePoints));
+        }
+        double runSeconds = ((end - start) / bucketMillis + 1) * bucketMillis / 1000.0;
+        String[] timeTicks = new String[5];
+        double[] timeTickValues = new double[5];
+        for (int i = 0; i < 5; i++) {
+            timeTickValues[i] = runSeconds * i / 4;
+            timeTicks[i] = format(timeTickValues[i]) + " s";
+        }
+        chart(html, "95th percentile latency over time (ms)", p95, runSeconds, timeTickValues, timeTicks);
+        double[] percentileTickValues = {0, 1, 2, 3, 4, 5};
+        String[] percentileTicks = {"0%", "90%", "99%", "99.9%", "99.99%", "99.999%"};
+        chart(html, "Latency by percentile (ms)", percentiles, 5, percentileTickValues, percentileTicks);
+        chart(html, "Throughput and errors over time (requests/s, errors dashed)", throughput, runSeconds,
+                timeTickValues, timeTicks);
+        html.append("</body></html>\n");
+        out.append(html);
+    }
+
+    /**
+     * Draws a line chart with a linear y axis from zero and a legend.
+     *
+     * @param html The report being written
+     * @param title The chart title, including the unit of the y axis
+     * @param lines The lines to draw
+     * @param xMax The largest x value
+     * @param xTickValues Positions of the x axis labels
+     * @param xTicks The x axis labels
+     */
+    private static void chart(StringBuilder html, String title, List<Line> lines, double xMax,
+                              double[] xTickValues, String[] xTicks) {
+        double yMax = 0;
+        for (Line line : lines) {
+            for (double[] point : line.points) {
+                yMax = Math.max(yMax, point[1]);
+            }
+        }
+        yMax = niceCeiling(yMax);
+        html.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(LEFT + WIDTH + 180)
+                .append("\" height=\"").append(TOP + HEIGHT + BOTTOM).append("\">\n<text class=\"title\" x=\"")
+                .append(LEFT).append("\" y=\"18\">").append(escape(title)).append("</text>\n");
+        for (int i = 0; i <= 4; i++) {
+            double y = TOP + HEIGHT - HEIGHT * i / 4.0;
+            html.append("<line x1=\"").append(LEFT).append("\" x2=\"").append(LEFT + WIDTH).append("\" y1=\"")
+                    .append(format(y)).append("\" y2=\"").append(format(y)).append("\" stroke=\"#e0e0e0\"/>")
+                    .append("<text x=\"").append(LEFT - 6).append("\" y=\"").append(format(y + 4))
+                    .append("\" text-anchor=\"end\">").append(format(yMax * i / 4)).append("</text>\n");
+        }
+        for (int i = 0; i < xTicks.length; i++) {
+            double x = LEFT + WIDTH * xTickValues[i] / xMax;
+            html.append("<text x=\"").append(format(x)).append("\" y=\"").append(TOP + HEIGHT + 16)
+                    .append("\" text-anchor=\"middle\">").append(escape(xTicks[i])).append("</text>\n");
+        }
+        html.append("<rect x=\"").append(LEFT).append("\" y=\"").append(TOP).append("\" width=\"").append(WIDTH)
+                .append("\" height=\"").append(HEIGHT).append("\" fill=\"none\" stroke=\"#999\"/>\n");
+        int legend = 0;
+        for (Line line : lines) {
+            html.append("<polyline fill=\"none\" stroke-width=\"1.5\" stroke=\"").append(line.color).append('"');
+            if (line.dashed) {
+                html.append(" stroke-dasharray=\"4 3\"");
+            }
+            html.append(" points=\"");
+            for (double[] point : line.points) {
+                html.append(format(LEFT + WIDTH * point[0] / xMax)).append(',')
+                        .append(format(TOP + HEIGHT - HEIGHT * point[1] / yMax)).append(' ');
+            }
+            html.append("\"/>\n");
+            double y = TOP + 10 + 16 * legend++;
+            html.append("<line x1=\"").append(LEFT + WIDTH + 12).append("\" x2=\"").append(LEFT + WIDTH + 32)
+                    .append("\" y1=\"").append(format(y)).append("\" y2=\"").append(format(y)).append("\" stroke=\"")
+                    .append(line.color).append(line.dashed ? "\" stroke-dasharray=\"4 3\"/>" : "\"/>")
+                    .append("<text x=\"").append(LEFT + WIDTH + 38).append("\" y=\"").append(format(y + 4))
+                    .append("\">").append(escape(line.name)).append("</text>\n");
+        }
+        html.append("</svg>\n");
+    }
+
+    /**
+     * Maps a percentile to the x axis of the percentile chart, where every further nine takes the same width.
+     *
+     * @param percentile The percentile below 100
+     * @return log10 of 1 / (1 - percentile / 100)
+     */
+    private static double percentileAxis(double percentile) {
+        return Math.log10(100 / (100 - percentile));
+    }
+
+    /**
+     * Rounds the top of an axis up to 1, 2 or 5 times a power of ten.
+     *
+     * @param value The largest value on the axis
+     * @return The axis maximum
+     */
+    private static double niceCeiling(double value) {
+        if (value <= 0) {
+            return 1;
+        }
+        double magnitude = Math.pow(10, Math.floor(Math.log10(value)));
+        for (double step : new double[] {1, 2, 5, 10}) {
+            if (value <= step * magnitude) {
+                return step * magnitude;
+            }
+        }
+        return 10 * magnitude;
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15
+                ? Long.toString((long) value) : String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    /**
+     * Escapes text for HTML content and attribute values.
+     *
+     * @param text The text, e.g. a label
+     * @return The escaped text
+     */
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '"' -> escaped.append("&quot;");
+                case '\'' -> escaped.append("&#39;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Quotes a CSV field if it contains a separator, quote or line break.
+     *
+     * @param text The field
+     * @return The field as written to the CSV file
+     */
+    static String csv(String text) {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Statistics of one label: overall, and per time bucket for the charts.
+     */
+    private static final class LabelStats {
+
+        /** Latencies of all samples in microseconds */
+        private final Histogram latency = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+
+        /** Latencies per time bucket, created on first use; two digits keep long runs small */
+        private final IntCountsHistogram[] buckets;
+
+        /** Failed samples per time bucket */
+        private final long[] bucketErrors;
+
+        /** Number of samples */
+        private long count;
+
+        /** Number of failed samples */
+        private long errors;
+
+        /** Sum of the response sizes */
+        private long bytes;
+
+        private LabelStats(int buckets) {
+            this.buckets = new IntCountsHistogram[buckets];
+            this.bucketErrors = new long[buckets];
+        }
+
+        private void add(SampleLog.Sample sample, int bucket) {
+            long micros = Math.min(Math.max(sample.latencyMicros(), 0), HIGHEST_TRACKABLE_MICROS);
+            latency.recordValue(micros);
+            if (buckets[bucket] == null) {
+                buckets[bucket] = new IntCountsHistogram(HIGHEST_TRACKABLE_MICROS, 2);
+            }
+            buckets[bucket].recordValue(micros);
+            count++;
+            bytes += sample.bytes();
+            if (!sample.success()) {
+                errors++;
+                bucketErrors[bucket]++;
+            }
+        }
+    }
+
+    /**
+     * One line of a chart.
+     *
+     * @param name The legend text
+     * @param color The stroke colour
+     * @param dashed Whether the line is dashed
+     * @param points The x and y values of the points
+     */
+    private record Line(String name, String color, boolean dashed, List<double[]> points) {
+    }
+
+    /**
+     * Command-line entry point writing a report of sample logs. A target ending in {@code .jtl} or
+     * {@code .csv} gets the JMeter CSV export, any other the HTML report.
+     * Example: {@code mvn -q compile exec:java -Dexec.mainClass=load.SampleReport -Dexec.args="report.html results.bin"}.
+     *
+     * @param args The target file followed by the sample logs
+     * @throws IOException if a log cannot be read or the target cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: SampleReport <report.html|results.jtl> <sample log>...");
+        }
+        Path target = Path.of(args[0]);
+        List<Path> logs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            logs.add(Path.of(args[i]));
+        }
+        String name = target.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".jtl") || name.endsWith(".csv")) {
+            writeJtl(target, logs);
+        } else {
+            writeHtml(target, logs);
+        }
+    }
+}
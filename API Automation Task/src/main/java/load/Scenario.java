@@ -0,0 +1,20 @@
+package load;
+
+/**
+ * A load scenario executed by the {@link LoadEngine}.
+ * The engine asks the scenario for one {@link VirtualUser} per simulated user, which lets
+ * a scenario keep per-user state (credentials, tokens, cookies) without any sharing
+ * between users.
+ */
+@FunctionalInterface
+public interface Scenario {
+
+    /**
+     * Creates the state for a single virtual user.
+     * Called on the virtual user's own thread right before its first iteration.
+     *
+     * @param userId Zero-based index of the virtual user within the run
+     * @return VirtualUser whose iterations are driven by the engine
+     */
+    VirtualUser newUser(int userId);
+}
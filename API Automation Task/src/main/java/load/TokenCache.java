@@ -0,0 +1,249 @@
+package load;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import config.ConfigurationManager;
+
+/**
+ * Cache of access tokens shared by the virtual users of a load run, keyed by credential.
+ * The JMeter plan logs in before every invoice, so half of its load is logins. Here a token is reused
+ * across iterations until shortly before the {@code exp} claim of the JWT, then refreshed ahead of expiry:
+ * the first caller in the refresh window logs in again while the others keep using the still-valid token.
+ * Only when no valid token is left do callers wait, and then on a single login per credential
+ * (single flight), so users sharing a credential never stampede the login endpoint.
+ * <p>
+ * A configurable share of requests forces a fresh login anyway, to keep a realistic amount of
+ * authentication traffic in the mix; {@link #freshLoginRatio()} reports the resulting share.
+ */
+public class TokenCache {
+
+    /** Lifetime assumed for tokens without a readable {@code exp} claim */
+    static final Duration FALLBACK_TTL = Duration.ofSeconds(60);
+
+    /** Margin before {@code exp} after which a token is no longer sent, for clock skew and transit time */
+    private static final long SKEW_MILLIS = 1000;
+
+    /** Parser of the JWT payloads */
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /** Cached tokens by credential */
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** Logins in progress by credential */
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> logins = new ConcurrentHashMap<>();
+
+    /** How long before expiry a token is refreshed */
+    private final long refreshAheadMillis;
+
+    /** Share of requests that force a fresh login, between 0 and 1 */
+    private final double freshRatio;
+
+    /** Number of token requests */
+    private final LongAdder requests = new LongAdder();
+
+    /** Number of logins performed */
+    private final LongAdder freshLogins = new LongAdder();
+
+    /**
+     * Creates a token cache.
+     *
+     * @param refreshAhead How long before expiry a token is refreshed; at most half of its lifetime is used
+     * @param freshRatio Share of requests that force a fresh login, between 0 and 1
+     */
+    public TokenCache(Duration refreshAhead, double freshRatio) {
+        if (freshRatio < 0 || freshRatio > 1) {
+            throw new IllegalArgumentException("freshRatio must be between 0 and 1 but was " + freshRatio);
+        }
+        this.refreshAheadMillis = refreshAhead.toMillis();
+        this.freshRatio = freshRatio;
+    }
+
+    /**
+     * Creates a token cache from {@code load.token.refresh.ahead.seconds} and {@code load.token.fresh.ratio},
+     * each of which can be overridden with a system property.
+     *
+     * @return TokenCache read from the configuration
+     */
+    public static TokenCache fromConfiguration() {
+        return new TokenCache(
+                Duration.ofSeconds(ConfigurationManager.getLongProperty("load.token.refresh.ahead.seconds", 30)),
+                Double.parseDouble(ConfigurationManager.getProperty("load.token.fresh.ratio", "0")));
+    }
+
+    /**
+     * Returns a valid token for a credential, logging in when there is none, when it is due for refresh
+     * or when the fresh-login ratio asks for it.
+     *
+     * @param key The credential, e.g. the e-mail address
+     * @param login Performs the login and returns the access token
+     * @return The access token
+     * @throws Exception if the login fails
+     */
+    public String token(String key, Login login) throws Exception {
+        requests.increment();
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        boolean forced = freshRatio > 0 && ThreadLocalRandom.current().nextDouble() < freshRatio;
+        if (!forced && entry != null && now < entry.refreshAt()) {
+            return entry.token();
+        }
+        boolean usable = entry != null && now < entry.expiresAt();
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = logins.putIfAbsent(key, mine);
+        if (running != null) {
+            // Another user is logging in with this credential: keep a valid token or wait for the new one
+            return usable ? entry.token() : await(running).token();
+        }
+        try {
+            String token = login.login();
+            freshLogins.increment();
+            Entry fresh = entry(token, System.currentTimeMillis());
+            entries.put(key, fresh);
+            mine.complete(fresh);
+            return token;
+        } catch (Exception | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            logins.remove(key, mine);
+        }
+    }
+
+    /**
+     * Returns the cached token of a credential without logging in.
+     *
+     * @param key The credential
+     * @return The token, or null if there is none or it is due for refresh
+     */
+    public String cachedToken(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && System.currentTimeMillis() < entry.refreshAt() ? entry.token() : null;
+    }
+
+    /**
+     * Removes the token of a credential, for example when a virtual user moves on to another customer.
+     *
+     * @param key The credential
+     */
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Returns the number of token requests.
+     *
+     * @return Requests made through {@link #token(String, Login)}
+     */
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of logins performed.
+     *
+     * @return Logins, including forced ones
+     */
+    public long logins() {
+        return freshLogins.sum();
+    }
+
+    /**
+     * Returns the share of token requests that led to a login.
+     *
+     * @return Fresh-login ratio between 0 and 1, 0 before the first request
+     */
+    public double freshLoginRatio() {
+        long total = requests.sum();
+        return total == 0 ? 0 : (double) freshLogins.sum() / total;
+    }
+
+    /**
+     * Formats a one-line summary of the cache for logging.
+     *
+     * @return Summary with requests, logins and the fresh-login ratio
+     */
+    public String summary() {
+        return String.format("token requests=%d logins=%d fresh-login ratio=%.3f", requests(), logins(), freshLoginRatio());
+    }
+
+    /**
+     * Reads the {@code exp} claim of a JWT.
+     *
+     * @param token The access token
+     * @return Expiry in epoch seconds, or -1 if the token is not a JWT with an {@code exp} claim
+     */
+    public static long expiry(String token) {
+        int start = token.indexOf('.');
+        int end = token.indexOf('.', start + 1);
+        if (start < 0 || end < 0) {
+            return -1;
+        }
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(start + 1, end));
+            JsonNode exp = objectMapper.readTree(new String(payload, StandardCharsets.UTF_8)).path("exp");
+            return exp.canConvertToLong() ? exp.asLong() : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Computes when a token is refreshed and when it stops being sent.
+     *
+     * @param token The access token
+     * @param now The current time in epoch milliseconds
+     * @return The cache entry
+     */
+    private Entry entry(String token, long now) {
+        long exp = expiry(token);
+        long expiresAt = exp < 0 ? now + FALLBACK_TTL.toMillis() : exp * 1000 - SKEW_MILLIS;
+        long refreshAt = Math.max(now + (expiresAt - now) / 2, expiresAt - refreshAheadMillis);
+        return new Entry(token, refreshAt, expiresAt);
+    }
+
+    private static Entry await(CompletableFuture<Entry> login) throws Exception {
+        try {
+            return login.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Performs a login.
+     */
+    @FunctionalInterface
+    public interface Login {
+
+        /**
+         * Logs in.
+         *
+         * @return The access token
+         * @throws Exception if the login fails
+         */
+        String login() throws Exception;
+    }
+
+    /**
+     * Cached token with its refresh and expiry times in epoch milliseconds.
+     *
+     * @param token The access token
+     * @param refreshAt Time from which the next request refreshes the token
+     * @param expiresAt Time from which the token is no longer sent
+     */
+    private record Entry(String token, long refreshAt, long expiresAt) {
+    }
+}
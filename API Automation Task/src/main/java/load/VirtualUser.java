@@ -0,0 +1,19 @@
+package load;
+
+/**
+ * One simulated user of a {@link Scenario}.
+ * Instances are used by one thread at a time, so implementations need no synchronization.
+ */
+@FunctionalInterface
+public interface VirtualUser {
+
+    /**
+     * Executes a single iteration of the scenario, the equivalent of one pass through
+     * the samplers of a JMeter Thread Group.
+     * Any exception marks the iteration as failed; the user then continues with the next
+     * iteration, matching the {@code continue} on-sample-error action of the test plan.
+     *
+     * @throws Exception if the iteration fails
+     */
+    void iterate() throws Exception;
+}
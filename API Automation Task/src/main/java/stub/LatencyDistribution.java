@@ -0,0 +1,108 @@
+package stub;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution of the artificial latency the {@link StubServer} adds before answering.
+ * Implementations must be thread-safe; the built-in ones only use {@link ThreadLocalRandom}.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /** Distribution that adds no latency */
+    LatencyDistribution NONE = () -> 0;
+
+    /**
+     * Draws the next latency sample.
+     *
+     * @return Latency to add in microseconds
+     */
+    long nextMicros();
+
+    /**
+     * Creates a distribution that always returns the same latency.
+     *
+     * @param millis The latency in milliseconds
+     * @return LatencyDistribution with a constant value
+     */
+    static LatencyDistribution fixed(double millis) {
+        long micros = Math.round(millis * 1000);
+        return () -> micros;
+    }
+
+    /**
+     * Creates a distribution drawing latencies uniformly between two bounds.
+     *
+     * @param minMillis The lower bound in milliseconds
+     * @param maxMillis The upper bound in milliseconds
+     * @return LatencyDistribution with uniformly distributed values
+     * @throws IllegalArgumentException if the lower bound is above the upper bound
+     */
+    static LatencyDistribution uniform(double minMillis, double maxMillis) {
+        if (minMillis > maxMillis) {
+            throw new IllegalArgumentException("Uniform latency bounds are reversed: " + minMillis + " > " + maxMillis);
+        }
+        long min = Math.round(minMillis * 1000);
+        long max = Math.round(maxMillis * 1000);
+        return () -> min == max ? min : ThreadLocalRandom.current().nextLong(min, max + 1);
+    }
+
+    /**
+     * Creates an exponential distribution, the usual model for service times with a long tail.
+     *
+     * @param meanMillis The mean latency in milliseconds
+     * @return LatencyDistribution with exponentially distributed values
+     */
+    static LatencyDistribution exponential(double meanMillis) {
+        double mean = meanMillis * 1000;
+        return () -> Math.round(-mean * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+    }
+
+    /**
+     * Creates a log-normal distribution, which matches measured web service latencies well.
+     *
+     * @param medianMillis The median latency in milliseconds
+     * @param sigma The standard deviation of the underlying normal distribution, e.g. 0.5
+     * @return LatencyDistribution with log-normally distributed values
+     */
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        double mu = Math.log(medianMillis * 1000);
+        return () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    /**
+     * Parses a distribution from its configuration form.
+     * Supported forms are {@code none}, {@code fixed:20}, {@code uniform:10-50},
+     * {@code exponential:30} and {@code lognormal:30,0.5}, all in milliseconds.
+     *
+     * @param spec The distribution specification
+     * @return LatencyDistribution described by the specification
+     * @throws IllegalArgumentException if the specification cannot be parsed
+     */
+    static LatencyDistribution parse(String spec) {
+        if (spec == null || spec.isBlank() || spec.trim().equals("none")) {
+            return NONE;
+        }
+        String[] parts = spec.trim().split(":", 2);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec);
+        }
+        String args = parts[1].trim();
+        return switch (parts[0].trim()) {
+            case "fixed" -> fixed(Double.parseDouble(args));
+            case "uniform" -> {
+                String[] bounds = args.split("-", 2);
+                if (bounds.length != 2) {
+                    throw new IllegalArgumentException("Expected uniform:<min>-<max> but got " + spec);
+                }
+                yield uniform(Double.parseDouble(bounds[0]), Double.parseDouble(bounds[1]));
+            }
+            case "exponential" -> exponential(Double.parseDouble(args));
+            case "lognormal" -> {
+                String[] params = args.split(",", 2);
+                yield logNormal(Double.parseDouble(params[0]), params.length > 1 ? Double.parseDouble(params[1]) : 0.5);
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        };
+    }
+}
@@ -0,0 +1,383 @@
+package stub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import config.ConfigurationManager;
+
+/**
+ * In-process HTTP stub of the reqres and practicesoftwaretesting APIs used by the tests and the load engine.
+ * Built on the JDK HttpServer with one virtual thread per exchange, it serves
+ * {@code POST /api/users}, {@code POST /users/login} and {@code POST /invoices} on one port,
+ * so both {@code base.url} and {@code checkout.base.url} can point at it. A configurable
+ * latency distribution, error rate and response padding make throughput and client-side
+ * overhead measurements reproducible and runs possible without network access.
+ */
+public class StubServer implements AutoCloseable {
+
+    /** Logger instance for reporting the server address */
+    private static final Logger logger = LogManager.getLogger(StubServer.class);
+
+    /** Path of the reqres user creation endpoint */
+    public static final String USERS_PATH = "/api/users";
+
+    /** Path of the checkout API login endpoint */
+    public static final String LOGIN_PATH = "/users/login";
+
+    /** Path of the checkout API invoice endpoint */
+    public static final String INVOICES_PATH = "/invoices";
+
+    /** Body returned for injected errors */
+    private static final byte[] ERROR_BODY = "{\"error\":\"Injected server error\"}".getBytes(StandardCharsets.UTF_8);
+
+    /** Body returned for invoice requests without a bearer token */
+    private static final byte[] UNAUTHORIZED_BODY = "{\"message\":\"Unauthorized\"}".getBytes(StandardCharsets.UTF_8);
+
+    /** Base64url encoded JWT header of every issued token */
+    private static final String TOKEN_HEADER = base64Url("{\"alg\":\"HS256\",\"typ\":\"JWT\"}");
+
+    /** Requests received per endpoint path */
+    private final Map<String, LongAdder> requestCounts = Map.of(
+            USERS_PATH, new LongAdder(), LOGIN_PATH, new LongAdder(), INVOICES_PATH, new LongAdder());
+
+    /** Sequence used for generated ids */
+    private final AtomicLong ids = new AtomicLong();
+
+    /** Port to bind, 0 for an ephemeral port */
+    private int port;
+
+    /** Latency added before every response */
+    private volatile LatencyDistribution latency = LatencyDistribution.NONE;
+
+    /** Probability of answering with HTTP 500 instead of the regular response */
+    private volatile double errorRate;
+
+    /** Filler added to every successful response body to reach a target payload size */
+    private volatile byte[] padding = new byte[0];
+
+    /** Lifetime of issued access tokens */
+    private volatile Duration tokenTtl = Duration.ofMinutes(5);
+
+    /** Running server, null until started */
+    private HttpServer server;
+
+    /** Executor running one virtual thread per exchange */
+    private ExecutorService executor;
+
+    /**
+     * Creates a stub server on an ephemeral port without latency, errors or padding.
+     */
+    public StubServer() {
+    }
+
+    /**
+     * Creates a stub server from the {@code stub.*} configuration properties:
+     * {@code stub.port}, {@code stub.latency} (see {@link LatencyDistribution#parse(String)}),
+     * {@code stub.error.rate}, {@code stub.payload.bytes} and {@code stub.token.ttl.seconds}.
+     *
+     * @return StubServer configured from the configuration, not yet started
+     */
+    public static StubServer fromConfiguration() {
+        return new StubServer()
+                .port((int) ConfigurationManager.getLongProperty("stub.port", 0))
+                .latency(LatencyDistribution.parse(ConfigurationManager.getProperty("stub.latency", "none")))
+                .errorRate(Double.parseDouble(ConfigurationManager.getProperty("stub.error.rate", "0")))
+                .payloadBytes((int) ConfigurationManager.getLongProperty("stub.payload.bytes", 0))
+                .tokenTtl(Duration.ofSeconds(ConfigurationManager.getLongProperty("stub.token.ttl.seconds", 300)));
+    }
+
+    /**
+     * Sets the port to bind; must be called before {@link #start()}.
+     *
+     * @param port The port, or 0 for an ephemeral port
+     * @return This StubServer for chaining
+     */
+    public StubServer port(int port) {
+        this.port = port;
+        return this;
+    }
+
+    /**
+     * Sets the latency added before every response. Can be changed while running.
+     *
+     * @param latency The latency distribution
+     * @return This StubServer for chaining
+     */
+    public StubServer latency(LatencyDistribution latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Sets the share of requests answered with HTTP 500. Can be changed while running.
+     *
+     * @param errorRate Probability between 0 and 1
+     * @return This StubServer for chaining
+     */
+    public StubServer errorRate(double errorRate) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("errorRate must be between 0 and 1 but was " + errorRate);
+        }
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Sets the number of filler bytes added to every successful response. Can be changed while running.
+     *
+     * @param bytes Size of the {@code padding} field value in bytes
+     * @return This StubServer for chaining
+     */
+    public StubServer payloadBytes(int bytes) {
+        byte[] filler = new byte[Math.max(0, bytes)];
+        Arrays.fill(filler, (byte) 'x');
+        this.padding = filler;
+        return this;
+    }
+
+    /**
+     * Sets the lifetime of access tokens issued by the login endpoint. Can be changed while running.
+     *
+     * @param tokenTtl The token lifetime
+     * @return This StubServer for chaining
+     */
+    public StubServer tokenTtl(Duration tokenTtl) {
+        this.tokenTtl = tokenTtl;
+        return this;
+    }
+
+    /**
+     * Binds the server to the loopback interface and starts serving requests.
+     *
+     * @return This StubServer for chaining
+     * @throws IOException if the port cannot be bound
+     */
+    public StubServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(USERS_PATH, exchange -> handle(exchange, USERS_PATH));
+        server.createContext(LOGIN_PATH, exchange -> handle(exchange, LOGIN_PATH));
+        server.createContext(INVOICES_PATH, exchange -> handle(exchange, INVOICES_PATH));
+        server.start();
+        logger.info("Stub server listening on {}", baseUrl());
+        return this;
+    }
+
+    /**
+     * Returns the base URL of the running server, usable as {@code base.url} and {@code checkout.base.url}.
+     *
+     * @return Base URL such as http://127.0.0.1:8089
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Returns how many requests an endpoint has received, including failed ones.
+     *
+     * @param path One of {@link #USERS_PATH}, {@link #LOGIN_PATH} or {@link #INVOICES_PATH}
+     * @return Number of received requests
+     */
+    public long requestCount(String path) {
+        return requestCounts.get(path).sum();
+    }
+
+    /**
+     * Stops the server immediately and releases its port.
+     */
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.close();
+            server = null;
+        }
+    }
+
+    /**
+     * Serves one exchange: reads the request, applies latency and error injection
+     * and writes the endpoint's response.
+     *
+     * @param exchange The HTTP exchange
+     * @param path The endpoint path the exchange was routed to
+     * @throws IOException if the exchange cannot be read or written
+     */
+    private void handle(HttpExchange exchange, String path) throws IOException {
+        try (exchange; InputStream in = exchange.getRequestBody()) {
+            byte[] request = in.readAllBytes();
+            requestCounts.get(path).increment();
+            long delay = latency.nextMicros();
+            if (delay > 0) {
+                Thread.sleep(Duration.ofNanos(delay * 1000));
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                send(exchange, 500, ERROR_BODY);
+                return;
+            }
+            switch (path) {
+                case USERS_PATH -> createUser(exchange, request);
+                case LOGIN_PATH -> login(exchange);
+                default -> createInvoice(exchange);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Echoes the posted user fields back with a generated id and creation timestamp, like reqres.
+     *
+     * @param exchange The HTTP exchange
+     * @param request The raw request body
+     * @throws IOException if the response cannot be written
+     */
+    private void createUser(HttpExchange exchange, byte[] request) throws IOException {
+        int end = lastIndexOf(request, (byte) '}');
+        if (end < 0) {
+            send(exchange, 400, "{\"error\":\"Expected a JSON object\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        boolean empty = new String(request, 0, end, StandardCharsets.UTF_8).strip().equals("{");
+        String fields = (empty ? "" : ",") + "\"id\":\"" + ids.incrementAndGet() + "\",\"createdAt\":\"" + Instant.now() + "\"";
+        sendObject(exchange, 201, Arrays.copyOf(request, end), fields);
+    }
+
+    /**
+     * Issues a JWT-shaped access token that expires after the configured token lifetime.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException if the response cannot be written
+     */
+    private void login(HttpExchange exchange) throws IOException {
+        long now = Instant.now().getEpochSecond();
+        long ttl = tokenTtl.toSeconds();
+        String payload = base64Url("{\"sub\":\"" + ids.incrementAndGet() + "\",\"iat\":" + now + ",\"exp\":" + (now + ttl) + "}");
+        byte[] signature = new byte[32];
+        ThreadLocalRandom.current().nextBytes(signature);
+        String token = TOKEN_HEADER + "." + payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        sendObject(exchange, 200, null, "\"access_token\":\"" + token + "\",\"token_type\":\"bearer\",\"expires_in\":" + ttl);
+    }
+
+    /**
+     * Creates an invoice for an authenticated request, or answers 401 without a bearer token.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException if the response cannot be written
+     */
+    private void createInvoice(HttpExchange exchange) throws IOException {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ") || authorization.length() == 7) {
+            send(exchange, 401, UNAUTHORIZED_BODY);
+            return;
+        }
+        long id = ids.incrementAndGet();
+        sendObject(exchange, 201, null, "\"id\":\"" + id + "\",\"invoice_number\":\"INV-" + id
+                + "\",\"status\":\"AWAITING_FULFILLMENT\",\"created_at\":\"" + Instant.now() + "\"");
+    }
+
+    /**
+     * Writes a JSON object response made of an optional raw prefix (an object without its closing brace),
+     * additional fields and the configured padding.
+     *
+     * @param exchange The HTTP exchange
+     * @param status The HTTP status code
+     * @param prefix Raw object start including the opening brace, or null for a fresh object
+     * @param fields Comma-separated JSON fields to add
+     * @throws IOException if the response cannot be written
+     */
+    private void sendObject(HttpExchange exchange, int status, byte[] prefix, String fields) throws IOException {
+        byte[] head = prefix != null ? prefix : new byte[]{'{'};
+        byte[] middle = fields.getBytes(StandardCharsets.UTF_8);
+        byte[] filler = padding;
+        byte[] paddingStart = filler.length > 0 ? ",\"padding\":\"".getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] tail = filler.length > 0 ? new byte[]{'"', '}'} : new byte[]{'}'};
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, head.length + middle.length + paddingStart.length + filler.length + tail.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(head);
+        out.write(middle);
+        out.write(paddingStart);
+        out.write(filler);
+        out.write(tail);
+    }
+
+    /**
+     * Writes a complete response body.
+     *
+     * @param exchange The HTTP exchange
+     * @param status The HTTP status code
+     * @param body The response body
+     * @throws IOException if the response cannot be written
+     */
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Finds the last occurrence of a byte.
+     *
+     * @param data The bytes to search
+     * @param value The byte to find
+     * @return Index of the last occurrence, or -1 if absent
+     */
+    private static int lastIndexOf(byte[] data, byte value) {
+        for (int i = data.length - 1; i >= 0; i--) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Encodes a string as unpadded base64url, the encoding of JWT segments.
+     *
+     * @param value The string to encode
+     * @return Base64url encoded UTF-8 bytes of the string
+     */
+    private static String base64Url(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Command-line entry point starting a stub server from the configuration and serving until killed.
+     * Point the tests or the load engine at it with {@code -Dbase.url=<url> -Dcheckout.base.url=<url>}.
+     *
+     * @param args Unused
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        StubServer stub = fromConfiguration();
+        if (stub.port == 0) {
+            stub.port(8089);
+        }
+        stub.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+    }
+}
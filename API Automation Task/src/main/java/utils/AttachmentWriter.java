@@ -0,0 +1,198 @@
+package utils;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import config.ConfigurationManager;
+import io.qameta.allure.Allure;
+import io.qameta.allure.util.PropertiesUtils;
+
+/**
+ * Streams Allure attachments straight into their allure-results files.
+ * {@link Allure#addAttachment} needs the whole content as a String or byte array, so large pages and
+ * payloads are held in memory, often twice. Here the attachment is registered with the running test
+ * and only its file reference is kept in the result; the content is written to the file through
+ * a small buffer while it is produced.
+ * Attachments are cut off after {@code attachment.max.bytes} bytes (default 10 MB) with a truncation
+ * note, and text attachments are gzip-compressed when {@code attachment.gzip} is true.
+ */
+public class AttachmentWriter {
+
+    /** Logger instance for reporting attachments that could not be written */
+    private static final Logger logger = LogManager.getLogger(AttachmentWriter.class);
+
+    /** Size of the file buffer and of the gzip buffer in bytes */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Extension marking a gzip-compressed attachment */
+    private static final String GZIP_EXTENSION = ".gz";
+
+    /** Directory Allure writes its results to */
+    private static final Path resultsDirectory = Paths.get(
+            PropertiesUtils.loadAllureProperties().getProperty("allure.results.directory", "allure-results"));
+
+    /**
+     * Produces the content of an attachment into the attachment file.
+     */
+    @FunctionalInterface
+    public interface Content {
+        /**
+         * Writes the attachment content.
+         *
+         * @param out Stream to the attachment file; must not be closed
+         * @throws IOException if the content cannot be produced or written
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Registers an attachment with the current test or step and returns its file reference.
+     * Text, JSON, XML and HTML attachments are registered as gzip when compression is enabled.
+     * Must be called on the thread running the test; the content can then be written from any thread.
+     *
+     * @param name The attachment name shown in the report
+     * @param type The MIME type of the content
+     * @param extension The file extension, including the dot
+     * @return The attachment source to pass to {@link #write(String, Content)}
+     */
+    public static String prepare(String name, String type, String extension) {
+        boolean gzip = Boolean.parseBoolean(ConfigurationManager.getProperty("attachment.gzip", "false")) && isText(type);
+        return gzip
+                ? Allure.getLifecycle().prepareAttachment(name, "application/gzip", extension + GZIP_EXTENSION)
+                : Allure.getLifecycle().prepareAttachment(name, type, extension);
+    }
+
+    /**
+     * Writes the content of a prepared attachment.
+     * Failures are logged and never fail the test.
+     *
+     * @param source The attachment source returned by {@link #prepare(String, String, String)}
+     * @param content Producer of the content
+     */
+    public static void write(String source, Content content) {
+        Path file = resultsDirectory.resolve(source);
+        long maxBytes = ConfigurationManager.getLongProperty("attachment.max.bytes", 10L * 1024 * 1024);
+        try {
+            Files.createDirectories(resultsDirectory);
+            // Buffered below the gzip and cap layers, so small writes of the producer do not each reach the file
+            try (OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+                 OutputStream encoded = source.endsWith(GZIP_EXTENSION) ? new GZIPOutputStream(fileOut, BUFFER_SIZE) : fileOut;
+                 CappedOutputStream capped = new CappedOutputStream(encoded, maxBytes)) {
+                content.writeTo(capped);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write attachment {}", source, e);
+        }
+    }
+
+    /**
+     * Registers an attachment and streams its content into the attachment file.
+     *
+     * @param name The attachment name shown in the report
+     * @param type The MIME type of the content
+     * @param extension The file extension, including the dot
+     * @param content Producer of the content
+     */
+    public static void attach(String name, String type, String extension, Content content) {
+        write(prepare(name, type, extension), content);
+    }
+
+    /**
+     * Registers an attachment and copies the stream into the attachment file.
+     * The stream is closed afterwards.
+     *
+     * @param name The attachment name shown in the report
+     * @param type The MIME type of the content
+     * @param extension The file extension, including the dot
+     * @param in Stream providing the content
+     */
+    public static void attach(String name, String type, String extension, InputStream in) {
+        attach(name, type, extension, out -> {
+            try (in) {
+                in.transferTo(out);
+            }
+        });
+    }
+
+    /**
+     * Registers a text attachment and encodes the text into the attachment file as UTF-8,
+     * without creating a byte array copy of it.
+     *
+     * @param name The attachment name shown in the report
+     * @param type The MIME type of the content
+     * @param extension The file extension, including the dot
+     * @param text The text to attach
+     */
+    public static void attachText(String name, String type, String extension, CharSequence text) {
+        attach(name, type, extension, out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.append(text);
+            writer.flush();
+        });
+    }
+
+    /**
+     * Tells whether a MIME type is worth compressing.
+     *
+     * @param type The MIME type
+     * @return true for text, JSON, XML and HTML content
+     */
+    private static boolean isText(String type) {
+        return type.startsWith("text/") || type.contains("json") || type.contains("xml") || type.contains("html");
+    }
+
+    /**
+     * Output stream passing through at most a fixed number of bytes.
+     * Everything beyond the limit is discarded and a truncation note is appended once.
+     */
+    private static final class CappedOutputStream extends FilterOutputStream {
+
+        /** Maximum number of content bytes passed through */
+        private final long limit;
+
+        /** Number of content bytes offered so far */
+        private long count;
+
+        CappedOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count++ < limit) {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long remaining = limit - count;
+            if (remaining > 0) {
+                out.write(b, off, (int) Math.min(len, remaining));
+            }
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (count > limit) {
+                out.write(("\n[truncated: " + count + " bytes, limit " + limit + "]\n").getBytes(StandardCharsets.UTF_8));
+            }
+            super.close();
+        }
+    }
+}
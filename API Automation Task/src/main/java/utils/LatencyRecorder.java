@@ -0,0 +1,122 @@
+package utils;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Thread-safe latency recorder backed by an HdrHistogram {@link Recorder}.
+ * Recording a sample is wait-free and allocation-free, so it can be called from any number
+ * of concurrent test or load threads without skewing the latencies it measures.
+ * Values are kept in nanoseconds with three significant digits over a range of one hour;
+ * larger values are clamped to the maximum. Snapshots accumulate everything recorded so far.
+ */
+public class LatencyRecorder {
+
+    /** Largest latency that can be recorded, larger samples are clamped to this value */
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    /** Number of significant decimal digits kept for every recorded value */
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /** Lock-free recorder written to by the measuring threads */
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+    /** All samples harvested from the recorder so far, guarded by this */
+    private final Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+    /** Interval histogram recycled between harvests to avoid reallocating it */
+    private Histogram interval;
+
+    /**
+     * Records a single latency sample.
+     *
+     * @param nanos The measured latency in nanoseconds
+     */
+    public void record(long nanos) {
+        recorder.recordValue(Math.min(Math.max(nanos, 0), HIGHEST_TRACKABLE_NANOS));
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()} start instant.
+     *
+     * @param startNanos The System.nanoTime() value taken before the measured operation
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns a copy of every sample recorded since this recorder was created.
+     * The copy can be inspected freely while recording continues.
+     *
+     * @return Histogram of all recorded latencies in nanoseconds
+     */
+    public synchronized Histogram snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        return total.copy();
+    }
+
+    /**
+     * Returns the latency at the given percentile of all samples recorded so far.
+     *
+     * @param percentile The percentile to look up, between 0 and 100
+     * @return Latency at the percentile in milliseconds
+     */
+    public double percentileMillis(double percentile) {
+        return snapshot().getValueAtPercentile(percentile) / 1_000_000.0;
+    }
+
+    /**
+     * Formats a one-line summary of the recorded latencies for logging.
+     *
+     * @return Summary with sample count and p50/p95/p99/max latencies in milliseconds
+     */
+    public String summary() {
+        return summary(snapshot());
+    }
+
+    /**
+     * Formats a one-line summary of a latency histogram for logging.
+     *
+     * @param histogram Histogram of latencies in nanoseconds
+     * @return Summary with sample count and p50/p95/p99/max latencies in milliseconds
+     */
+    public static String summary(Histogram histogram) {
+        return String.format("count=%d p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1_000_000.0,
+                histogram.getValueAtPercentile(95) / 1_000_000.0,
+                histogram.getValueAtPercentile(99) / 1_000_000.0,
+                histogram.getMaxValue() / 1_000_000.0);
+    }
+
+    /**
+     * Attaches the full percentile distribution of the recorded latencies to the Allure report.
+     * The attachment uses the standard HdrHistogram {@code .hgrm} text format with values in
+     * milliseconds, which can be plotted with the HdrHistogram plotter.
+     *
+     * @param name The attachment name shown in the report
+     */
+    public void attachToAllure(String name) {
+        attachToAllure(name, snapshot());
+    }
+
+    /**
+     * Attaches the percentile distribution of a latency histogram to the Allure report.
+     *
+     * @param name The attachment name shown in the report
+     * @param histogram Histogram of latencies in nanoseconds
+     */
+    public static void attachToAllure(String name, Histogram histogram) {
+        AttachmentWriter.attach(name, "text/plain", ".hgrm", out -> {
+            PrintStream printStream = new PrintStream(out, false, StandardCharsets.UTF_8);
+            histogram.outputPercentileDistribution(printStream, 1_000_000.0);
+            printStream.flush();
+        });
+    }
+}
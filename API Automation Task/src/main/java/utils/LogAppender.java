@@ -1,33 +1,81 @@
 package utils;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.core.Layout;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.appender.AbstractAppender;
 import org.apache.logging.log4j.core.config.plugins.Plugin;
 import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
 import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.core.layout.ByteBufferDestinationHelper;
 import org.apache.logging.log4j.core.layout.PatternLayout;
 
 /**
  * Custom Log4j2 appender for capturing log messages in memory.
  * This appender extends AbstractAppender to intercept log events and store them
- * in a static StringBuilder buffer for later retrieval and reporting purposes,
- * particularly useful for attaching logs to test reports like Allure.
+ * in a bounded ring buffer owned by the logging thread for later retrieval and reporting
+ * purposes, particularly useful for attaching logs to test reports like Allure.
+ * Because every thread writes only to its own ring, appending needs no locks and parallel
+ * tests never see each other's output. When a ring is full the oldest event is dropped.
+ * Events are encoded straight into preallocated per-slot byte arrays, so steady-state
+ * appending produces no garbage; events longer than {@code maxEventSize} bytes are truncated
+ * and keep their line separator. Every appender has its own rings and sizes;
+ * {@link #getLogs()} returns what all live appenders captured on the calling thread.
  */
 @Plugin(name = "LogAppender", category = "Core", elementType = "appender", printObject = true)
 public class LogAppender extends AbstractAppender {
 
-    /** Static buffer to store captured log messages across all instances */
-    private static final StringBuilder logBuffer = new StringBuilder();
+    /** Default number of events kept per thread */
+    private static final int DEFAULT_CAPACITY = 256;
+
+    /** Default maximum encoded size of a single event in bytes */
+    private static final int DEFAULT_MAX_EVENT_SIZE = 1024;
+
+    /** Line separator of the default layout, kept at the end of truncated events */
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    /** Appenders that have not been stopped, read by the static accessors */
+    private static final Set<LogAppender> appenders = ConcurrentHashMap.newKeySet();
+
+    /** Number of events kept per thread */
+    private final int capacity;
+
+    /** Maximum encoded size of a single event in bytes */
+    private final int maxEventSize;
+
+    /** Ring buffer of every thread, created on its first log event */
+    private final ThreadLocal<EventRing> rings = new ThreadLocal<>();
 
     /**
      * Protected constructor for creating a new LogAppender instance.
-     * Initializes the appender with the specified name and layout pattern.
+     * Initializes the appender with the specified name and layout pattern and the default sizes.
      *
      * @param name The name of the appender instance
      * @param layout The pattern layout for formatting log messages
      */
     protected LogAppender(String name, PatternLayout layout) {
+        this(name, layout, DEFAULT_CAPACITY, DEFAULT_MAX_EVENT_SIZE);
+    }
+
+    /**
+     * Protected constructor for creating a new LogAppender instance with explicit sizes.
+     *
+     * @param name The name of the appender instance
+     * @param layout The pattern layout for formatting log messages
+     * @param capacity Number of events kept per thread before the oldest are dropped
+     * @param maxEventSize Maximum encoded size of a single event in bytes
+     */
+    protected LogAppender(String name, PatternLayout layout, int capacity, int maxEventSize) {
         super(name, null, layout, true, null);
+        this.capacity = capacity;
+        this.maxEventSize = maxEventSize;
+        appenders.add(this);
     }
 
     /**
@@ -35,41 +83,166 @@ public class LogAppender extends AbstractAppender {
      * Creates a new appender with default pattern layout configuration.
      *
      * @param name The name attribute for the appender from configuration
+     * @param eventCapacity Number of events kept per thread before the oldest are dropped
+     * @param eventSize Maximum encoded size of a single event in bytes
      * @return A new LogAppender instance configured with default layout
      */
     @PluginFactory
-    public static LogAppender createAppender(@PluginAttribute("name") String name) {
+    public static LogAppender createAppender(@PluginAttribute("name") String name,
+                                             @PluginAttribute(value = "capacity", defaultInt = DEFAULT_CAPACITY) int eventCapacity,
+                                             @PluginAttribute(value = "maxEventSize", defaultInt = DEFAULT_MAX_EVENT_SIZE) int eventSize) {
         PatternLayout layout = PatternLayout.createDefaultLayout();
-        return new LogAppender(name, layout);
+        return new LogAppender(name, layout, Math.max(1, eventCapacity), Math.max(64, eventSize));
+    }
+
+    /**
+     * Stops the appender and drops it from the appenders read by {@link #getLogs()}, e.g. on reconfiguration.
+     *
+     * @param timeout The maximum time to wait for the appender to stop
+     * @param timeUnit The unit of the timeout
+     * @return True if the appender stopped within the timeout
+     */
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        appenders.remove(this);
+        return super.stop(timeout, timeUnit);
     }
 
     /**
-     * Appends a log event to the internal buffer.
-     * Converts the log event to a formatted string using the configured layout
-     * and appends it to the static log buffer with a line separator.
+     * Appends a log event to the calling thread's ring buffer.
+     * Encodes the log event with the configured layout directly into the next free slot,
+     * overwriting the oldest event when the ring is full.
      *
      * @param event The LogEvent containing the log message and metadata
      */
     @Override
     public void append(LogEvent event) {
-        logBuffer.append(new String(getLayout().toByteArray(event))).append(System.lineSeparator());
+        EventRing ring = rings.get();
+        if (ring == null) {
+            ring = new EventRing(capacity, maxEventSize);
+            rings.set(ring);
+        }
+        ring.append(getLayout(), event);
     }
 
     /**
-     * Retrieves all captured log messages from the buffer.
-     * Returns the complete contents of the log buffer as a string.
+     * Retrieves the log messages captured on the calling thread.
+     * Returns the retained events of the current test, oldest first, one appender after the other.
      *
-     * @return String containing all accumulated log messages
+     * @return String containing the accumulated log messages of the calling thread
      */
     public static String getLogs() {
-        return logBuffer.toString();
+        StringBuilder logs = new StringBuilder();
+        for (LogAppender appender : appenders) {
+            EventRing ring = appender.rings.get();
+            if (ring != null) {
+                ring.appendTo(logs);
+            }
+        }
+        return logs.toString();
     }
 
     /**
-     * Clears the log buffer by resetting its length to zero.
-     * Removes all previously captured log messages from memory.
+     * Clears the calling thread's ring buffer.
+     * Removes all previously captured log messages of the current test; the slot memory is kept for reuse.
      */
     public static void clearLogs() {
-        logBuffer.setLength(0);
+        for (LogAppender appender : appenders) {
+            EventRing ring = appender.rings.get();
+            if (ring != null) {
+                ring.clear();
+            }
+        }
+    }
+
+    /**
+     * Fixed-size ring of encoded log events confined to a single thread.
+     * Acts as the layout's ByteBufferDestination: the destination buffer is the slot being
+     * written, and anything beyond the slot size is drained into a scratch buffer and discarded.
+     * The end of every slot is reserved for the line separator of a truncated event.
+     */
+    private static final class EventRing implements ByteBufferDestination {
+
+        /** Encoded events, allocated lazily slot by slot */
+        private final ByteBuffer[] slots;
+
+        /** Size of every slot in bytes */
+        private final int slotSize;
+
+        /** Buffer receiving the part of an event that does not fit into its slot */
+        private ByteBuffer overflow;
+
+        /** Buffer the layout currently encodes into */
+        private ByteBuffer current;
+
+        /** Index of the slot the next event is written to */
+        private int next;
+
+        /** Number of events currently retained */
+        private int size;
+
+        /** Whether the event being encoded did not fit into its slot */
+        private boolean truncated;
+
+        EventRing(int capacity, int slotSize) {
+            this.slots = new ByteBuffer[capacity];
+            this.slotSize = slotSize;
+        }
+
+        void append(Layout<?> layout, LogEvent event) {
+            ByteBuffer slot = slots[next];
+            if (slot == null) {
+                slot = ByteBuffer.allocate(slotSize);
+                slots[next] = slot;
+            }
+            slot.clear().limit(slotSize - LINE_SEPARATOR.length);
+            current = slot;
+            truncated = false;
+            layout.encode(event, this);
+            if (truncated) {
+                slot.limit(slotSize).put(LINE_SEPARATOR);
+            }
+            next = (next + 1) % slots.length;
+            size = Math.min(size + 1, slots.length);
+        }
+
+        void appendTo(StringBuilder logs) {
+            int first = (next - size + slots.length) % slots.length;
+            for (int i = 0; i < size; i++) {
+                ByteBuffer slot = slots[(first + i) % slots.length];
+                logs.append(new String(slot.array(), 0, slot.position(), StandardCharsets.UTF_8));
+            }
+        }
+
+        void clear() {
+            next = 0;
+            size = 0;
+        }
+
+        @Override
+        public ByteBuffer getByteBuffer() {
+            return current;
+        }
+
+        @Override
+        public ByteBuffer drain(ByteBuffer buf) {
+            truncated = true;
+            if (overflow == null) {
+                overflow = ByteBuffer.allocate(slotSize);
+            }
+            overflow.clear();
+            current = overflow;
+            return overflow;
+        }
+
+        @Override
+        public void writeBytes(ByteBuffer data) {
+            ByteBufferDestinationHelper.writeToUnsynchronized(data, this);
+        }
+
+        @Override
+        public void writeBytes(byte[] data, int offset, int length) {
+            ByteBufferDestinationHelper.writeToUnsynchronized(data, offset, length, this);
+        }
     }
 }
@@ -0,0 +1,276 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-compiled JSON request payload with string placeholders.
+ * The template is split once into UTF-8 encoded literal segments around its {@code ${name}} placeholders;
+ * rendering copies the segments and writes every value JSON-escaped and UTF-8 encoded straight into the
+ * buffers of a {@link Renderer}. No Strings, encoders or intermediate arrays are created, so once a
+ * renderer's buffers have grown to the payload size, rendering allocates nothing; only a change of the
+ * payload length replaces the exactly sized array that is handed out.
+ * Placeholders belong inside string literals of the template, e.g. {@code {"name":"${name}"}}, and are
+ * filled in order of appearance.
+ * <p>
+ * Whoever renders repeatedly, such as a virtual user, keeps its own renderer per template and renders
+ * through it; the returned array is reused by that renderer's next render, so it must be sent (or copied)
+ * before that. The render methods of the template itself return a new array every time and suit one-off
+ * payloads. Buffers are not kept per thread, because open-model runs start every arrival on a new thread.
+ */
+public class PayloadTemplate {
+
+    /** Hexadecimal digits of {@code \}{@code uXXXX} escapes */
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /** Encoded literal text before, between and after the placeholders */
+    private final byte[][] literals;
+
+    /** Placeholder names in order of appearance */
+    private final List<String> fields;
+
+    /**
+     * Creates a template from its compiled parts.
+     *
+     * @param literals Encoded literal segments, one more than there are fields
+     * @param fields Placeholder names
+     */
+    private PayloadTemplate(byte[][] literals, List<String> fields) {
+        this.literals = literals;
+        this.fields = List.copyOf(fields);
+    }
+
+    /**
+     * Compiles a template.
+     *
+     * @param template JSON text with {@code ${name}} placeholders inside string literals
+     * @return The compiled template
+     * @throws IllegalArgumentException if a placeholder is not closed or its name is not an identifier
+     */
+    public static PayloadTemplate compile(String template) {
+        List<byte[]> literals = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        int position = 0;
+        int start;
+        while ((start = template.indexOf("${", position)) >= 0) {
+            int end = template.indexOf('}', start);
+            String field = end < 0 ? "" : template.substring(start + 2, end);
+            if (!field.matches("[A-Za-z_][A-Za-z0-9_.]*")) {
+                throw new IllegalArgumentException("Invalid or unclosed placeholder at " + start + " in " + template);
+            }
+            literals.add(template.substring(position, start).getBytes(StandardCharsets.UTF_8));
+            fields.add(field);
+            position = end + 1;
+        }
+        literals.add(template.substring(position).getBytes(StandardCharsets.UTF_8));
+        return new PayloadTemplate(literals.toArray(new byte[0][]), fields);
+    }
+
+    /**
+     * Returns the placeholder names.
+     *
+     * @return Field names in the order values are expected
+     */
+    public List<String> fields() {
+        return fields;
+    }
+
+    /**
+     * Creates a renderer with its own buffers, to be kept and used by a single thread at a time.
+     *
+     * @return A new renderer of this template
+     */
+    public Renderer renderer() {
+        return new Renderer();
+    }
+
+    /**
+     * Renders the template once into a new array, for payloads that are not rendered repeatedly.
+     *
+     * @param values The values of the placeholders in order
+     * @return The payload, owned by the caller
+     */
+    public byte[] render(CharSequence... values) {
+        return renderer().render(values);
+    }
+
+    /**
+     * Fails if the number of values does not match the placeholders.
+     *
+     * @param count The number of values given
+     */
+    private void checkArity(int count) {
+        if (count != fields.size()) {
+            throw new IllegalArgumentException("Template expects " + fields + " but got " + count + " value(s)");
+        }
+    }
+
+    /**
+     * Renders the template into reusable buffers: a growable scratch buffer and the exactly sized result
+     * array. Not thread-safe; keep one per template and virtual user or test thread.
+     */
+    public final class Renderer {
+
+        /** Scratch buffer the payload is assembled in */
+        private byte[] scratch = new byte[256];
+
+        /** Result array handed out, reallocated only when the payload length changes */
+        private byte[] result = new byte[0];
+
+        /** Number of bytes assembled in the scratch buffer */
+        private int length;
+
+        /**
+         * Creates a renderer; use {@link PayloadTemplate#renderer()}.
+         */
+        private Renderer() {
+        }
+
+        /**
+         * Renders a template with a single placeholder.
+         *
+         * @param value The value of the placeholder
+         * @return The payload, owned by this renderer until its next render
+         */
+        public byte[] render(CharSequence value) {
+            checkArity(1);
+            length = 0;
+            append(literals[0]);
+            appendEscaped(value);
+            append(literals[1]);
+            return result();
+        }
+
+        /**
+         * Renders a template with two placeholders.
+         *
+         * @param value0 The value of the first placeholder
+         * @param value1 The value of the second placeholder
+         * @return The payload, owned by this renderer until its next render
+         */
+        public byte[] render(CharSequence value0, CharSequence value1) {
+            checkArity(2);
+            length = 0;
+            append(literals[0]);
+            appendEscaped(value0);
+            append(literals[1]);
+            appendEscaped(value1);
+            append(literals[2]);
+            return result();
+        }
+
+        /**
+         * Renders a template with any number of placeholders.
+         *
+         * @param values The values of the placeholders in order
+         * @return The payload, owned by this renderer until its next render
+         */
+        public byte[] render(CharSequence... values) {
+            checkArity(values.length);
+            length = 0;
+            append(literals[0]);
+            for (int i = 0; i < values.length; i++) {
+                appendEscaped(values[i]);
+                append(literals[i + 1]);
+            }
+            return result();
+        }
+
+        private void append(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, scratch, length, bytes.length);
+            length += bytes.length;
+        }
+
+        /**
+         * Appends a value escaped for a JSON string literal and encoded as UTF-8.
+         * Quotes, backslashes and control characters are escaped, unpaired surrogates are written
+         * as {@code \}{@code uXXXX} escapes so the output is always valid UTF-8.
+         *
+         * @param value The value, null is written as an empty string
+         */
+        private void appendEscaped(CharSequence value) {
+            if (value == null) {
+                return;
+            }
+            int count = value.length();
+            // Worst case is six bytes per char (control character escapes)
+            ensure(count * 6);
+            byte[] out = scratch;
+            int pos = length;
+            for (int i = 0; i < count; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    if (c == '"' || c == '\\') {
+                        out[pos++] = '\\';
+                        out[pos++] = (byte) c;
+                    } else if (c >= 0x20) {
+                        out[pos++] = (byte) c;
+                    } else {
+                        pos = escapeControl(out, pos, c);
+                    }
+                } else if (c < 0x800) {
+                    out[pos++] = (byte) (0xC0 | (c >> 6));
+                    out[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    pos = unicodeEscape(out, pos, c);
+                } else {
+                    out[pos++] = (byte) (0xE0 | (c >> 12));
+                    out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    out[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            length = pos;
+        }
+
+        private byte[] result() {
+            if (result.length != length) {
+                result = new byte[length];
+            }
+            System.arraycopy(scratch, 0, result, 0, length);
+            return result;
+        }
+
+        private void ensure(int additional) {
+            if (length + additional > scratch.length) {
+                byte[] grown = new byte[Math.max(scratch.length * 2, length + additional)];
+                System.arraycopy(scratch, 0, grown, 0, length);
+                scratch = grown;
+            }
+        }
+
+        private static int escapeControl(byte[] out, int pos, char c) {
+            char shortEscape = switch (c) {
+                case '\b' -> 'b';
+                case '\f' -> 'f';
+                case '\n' -> 'n';
+                case '\r' -> 'r';
+                case '\t' -> 't';
+                default -> 0;
+            };
+            if (shortEscape == 0) {
+                return unicodeEscape(out, pos, c);
+            }
+            out[pos++] = '\\';
+            out[pos++] = (byte) shortEscape;
+            return pos;
+        }
+
+        private static int unicodeEscape(byte[] out, int pos, char c) {
+            out[pos++] = '\\';
+            out[pos++] = 'u';
+            out[pos++] = HEX[(c >> 12) & 0xF];
+            out[pos++] = HEX[(c >> 8) & 0xF];
+            out[pos++] = HEX[(c >> 4) & 0xF];
+            out[pos++] = HEX[c & 0xF];
+            return pos;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package utils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.CoreConnectionPNames;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+import config.ConfigurationManager;
+import io.restassured.config.HttpClientConfig;
+
+/**
+ * RestAssured HttpClientFactory handing out one shared, pooled keep-alive HTTP client.
+ * RestAssured otherwise creates a fresh client per request and pays a TCP (and TLS)
+ * handshake every time. The pool size, keep-alive and timeouts come from the configuration:
+ * {@code http.pool.max.per.route}, {@code http.pool.max.total}, {@code http.keepalive.seconds}
+ * and {@code timeout} (seconds, used for connect, socket and pool-wait timeouts).
+ * Connection statistics are collected across all pools so the reuse rate can be reported.
+ * Response bodies of up to {@code http.buffer.max.bytes} with a known length are buffered so that
+ * their connection goes back to the pool at once; larger or chunked bodies stay streamed and hold
+ * their connection until the caller has read or closed them.
+ */
+// RestAssured 5 still plugs in through the deprecated HttpClient 4 client, pool and parameter API
+@SuppressWarnings("deprecation")
+public class PooledHttpClientFactory implements HttpClientConfig.HttpClientFactory {
+
+    /** Number of connections handed out by the pools */
+    private static final LongAdder leased = new LongAdder();
+
+    /** Number of new TCP connections opened by the pools */
+    private static final LongAdder opened = new LongAdder();
+
+    /** The single client shared by every request using this factory */
+    private final DefaultHttpClient client;
+
+    /**
+     * Creates the shared client and its connection pool from the configuration.
+     */
+    public PooledHttpClientFactory() {
+        long keepAliveMillis = TimeUnit.SECONDS.toMillis(ConfigurationManager.getLongProperty("http.keepalive.seconds", 30));
+        long bufferMaxBytes = ConfigurationManager.getLongProperty("http.buffer.max.bytes", 65536);
+        CountingConnectionManager connectionManager = new CountingConnectionManager(SchemeRegistryFactory.createDefault());
+        connectionManager.setDefaultMaxPerRoute((int) ConfigurationManager.getLongProperty("http.pool.max.per.route", 200));
+        connectionManager.setMaxTotal((int) ConfigurationManager.getLongProperty("http.pool.max.total", 1000));
+        this.client = new DefaultHttpClient(connectionManager);
+        this.client.setKeepAliveStrategy((response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+        });
+        // RestAssured reads response bodies lazily and never releases unread ones, which would leak
+        // pooled connections; small bodies are buffered to hand the connection back as soon as they arrive
+        this.client.addResponseInterceptor((response, context) -> {
+            HttpEntity entity = response.getEntity();
+            if (entity != null && entity.isStreaming()
+                    && entity.getContentLength() >= 0 && entity.getContentLength() <= bufferMaxBytes) {
+                response.setEntity(new BufferedHttpEntity(entity));
+            }
+        });
+    }
+
+    /**
+     * Returns the shared pooled client.
+     *
+     * @return HttpClient backed by the connection pool
+     */
+    @Override
+    public HttpClient createHttpClient() {
+        return client;
+    }
+
+    /**
+     * Builds the RestAssured HttpClientConfig using this factory.
+     * Applies the {@code timeout} property as connect, socket and connection-pool wait timeout
+     * and tells RestAssured to keep the client instead of shutting it down after each request.
+     *
+     * @return HttpClientConfig reusing one pooled client
+     */
+    public static HttpClientConfig httpClientConfig() {
+        int timeoutMillis = (int) TimeUnit.SECONDS.toMillis(ConfigurationManager.getLongProperty("timeout", 10));
+        return HttpClientConfig.httpClientConfig()
+                .httpClientFactory(new PooledHttpClientFactory())
+                .reuseHttpClientInstance()
+                .setParam(CoreConnectionPNames.CONNECTION_TIMEOUT, timeoutMillis)
+                .setParam(CoreConnectionPNames.SO_TIMEOUT, timeoutMillis)
+                .setParam(ClientPNames.CONN_MANAGER_TIMEOUT, (long) timeoutMillis);
+    }
+
+    /**
+     * Returns how many connections have been leased from all pools so far.
+     *
+     * @return Number of leased connections, one per request
+     */
+    public static long leasedConnections() {
+        return leased.sum();
+    }
+
+    /**
+     * Returns how many new TCP connections all pools have opened so far.
+     *
+     * @return Number of opened connections
+     */
+    public static long openedConnections() {
+        return opened.sum();
+    }
+
+    /**
+     * Calculates the share of requests that were served on an already open connection.
+     *
+     * @return Reuse rate between 0 and 1, or 0 if no connection has been leased yet
+     */
+    public static double reuseRate() {
+        long leases = leased.sum();
+        return leases == 0 ? 0 : 1 - (double) opened.sum() / leases;
+    }
+
+    /**
+     * Pooling connection manager that counts leases and newly opened connections.
+     */
+    private static final class CountingConnectionManager extends PoolingClientConnectionManager {
+
+        CountingConnectionManager(SchemeRegistry schemeRegistry) {
+            super(schemeRegistry);
+        }
+
+        @Override
+        protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schemeRegistry) {
+            return new DefaultClientConnectionOperator(schemeRegistry) {
+                @Override
+                public void openConnection(OperatedClientConnection connection, HttpHost target, InetAddress local,
+                                           HttpContext context, HttpParams params) throws IOException {
+                    opened.increment();
+                    super.openConnection(connection, target, local, context, params);
+                }
+            };
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            leased.increment();
+            return super.requestConnection(route, state);
+        }
+    }
+}
@@ -1,30 +1,86 @@
 package utils;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import config.ConfigurationManager;
 import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.RestAssuredConfig;
 import io.restassured.specification.RequestSpecification;
 
 /**
  * Utility class for creating standardized RestAssured RequestSpecification objects.
  * Provides a centralized way to configure common request parameters such as base URI,
  * content type, and headers that are used across multiple API test requests.
+ * Specifications are built once per base URL and shared; every request sent with them
+ * goes through one pooled keep-alive HTTP client (see {@link PooledHttpClientFactory}),
+ * so load and parallel runs reuse TCP/TLS connections instead of opening one per request.
+ * The shared specifications must only be passed to {@code given().spec(...)}, never modified.
  */
 public class RequestSpecBuilderUtil {
 
+    /** Built specifications keyed by base URL */
+    private static final Map<String, RequestSpecification> specs = new ConcurrentHashMap<>();
+
+    /** RestAssured configuration with the pooled HTTP client, created on first use */
+    private static volatile RestAssuredConfig config;
+
     /**
-     * Creates and returns a RequestSpecification with common API configuration.
-     * Builds a reusable request specification that includes base URI from configuration,
-     * JSON content type, and required API key header for authentication.
+     * Returns the shared RequestSpecification with common API configuration.
+     * The specification includes base URI from configuration, JSON content type,
+     * and required API key header for authentication. The {@code base.url} property is
+     * looked up on every call so a system property override (e.g. a local stub) takes effect.
      *
      * @return RequestSpecification configured with base URI, content type, and API key header
      */
     public static RequestSpecification getRequestSpec(){
+        return getRequestSpec(ConfigurationManager.getProperty("base.url"));
+    }
+
+    /**
+     * Returns the shared RequestSpecification for an explicit base URL.
+     * Used for APIs other than the default {@code base.url}, such as the checkout API
+     * exercised by the load engine.
+     *
+     * @param baseUrl The base URI every request built from this specification is sent to
+     * @return RequestSpecification configured with the given base URI, content type, and API key header
+     */
+    public static RequestSpecification getRequestSpec(String baseUrl){
+        RequestSpecification spec = specs.get(baseUrl);
+        return spec != null ? spec : specs.computeIfAbsent(baseUrl, RequestSpecBuilderUtil::buildRequestSpec);
+    }
+
+    /**
+     * Builds a new RequestSpecification for the given base URL.
+     *
+     * @param baseUrl The base URI of the specification
+     * @return RequestSpecification using the pooled HTTP client
+     */
+    private static RequestSpecification buildRequestSpec(String baseUrl){
         return new RequestSpecBuilder()
-                .setBaseUri(ConfigurationManager.getProperty("base.url"))
+                .setBaseUri(baseUrl)
+                .setConfig(restAssuredConfig())
                 .setContentType("application/json")
                 .addHeader("x-api-key", "reqres-free-v1")
                 .build();
+    }
 
-
+    /**
+     * Returns the RestAssured configuration shared by all specifications, creating it on first use.
+     *
+     * @return RestAssuredConfig with the pooled HTTP client configuration
+     */
+    private static RestAssuredConfig restAssuredConfig(){
+        RestAssuredConfig result = config;
+        if (result == null) {
+            synchronized (RequestSpecBuilderUtil.class) {
+                result = config;
+                if (result == null) {
+                    result = RestAssuredConfig.config().httpClient(PooledHttpClientFactory.httpClientConfig());
+                    config = result;
+                }
+            }
+        }
+        return result;
     }
 }
@@ -0,0 +1,195 @@
+package utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Validates the top-level fields of a JSON response body with a streaming parser.
+ * {@code response.jsonPath()} parses the whole body into a tree on every call; a validator instead reads
+ * the raw UTF-8 bytes token by token, skips nested objects and arrays it does not need, compares expected
+ * values against the parser's character buffer and stops as soon as every required field has been seen.
+ * That keeps validating every response of a load run cheap next to the network time.
+ * <p>
+ * Validators are immutable and thread-safe, so one instance can be shared by all virtual users.
+ * A field counts as present when its value is not {@code null}.
+ */
+public final class ResponseValidator {
+
+    /** Factory of the streaming parsers, thread-safe and recycling their buffers per thread */
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    /** Names of the required top-level fields */
+    private final String[] fields;
+
+    /** Expected textual values by field index, null where only presence is checked */
+    private final String[] expected;
+
+    private ResponseValidator(String[] fields, String[] expected) {
+        this.fields = fields;
+        this.expected = expected;
+    }
+
+    /**
+     * Creates a validator that requires top-level fields to be present.
+     *
+     * @param fields The required field names, at most 64
+     * @return ResponseValidator checking the presence of the fields
+     * @throws IllegalArgumentException if there are no fields, duplicates or more than 64
+     */
+    public static ResponseValidator require(String... fields) {
+        if (fields.length == 0 || fields.length > Long.SIZE) {
+            throw new IllegalArgumentException("Between 1 and 64 fields are required but got " + fields.length);
+        }
+        if (Arrays.stream(fields).distinct().count() != fields.length) {
+            throw new IllegalArgumentException("Duplicate fields in " + Arrays.toString(fields));
+        }
+        return new ResponseValidator(fields.clone(), new String[fields.length]);
+    }
+
+    /**
+     * Returns a validator that also requires a field to have a value.
+     * Scalar values are compared by their JSON text, e.g. {@code 42} or {@code true}.
+     *
+     * @param field One of the required fields
+     * @param value The expected value
+     * @return ResponseValidator with the additional expectation
+     * @throws IllegalArgumentException if the field is not required by this validator
+     */
+    public ResponseValidator expect(String field, String value) {
+        int index = Arrays.asList(fields).indexOf(field);
+        if (index < 0) {
+            throw new IllegalArgumentException("Field " + field + " is not required by this validator");
+        }
+        String[] values = expected.clone();
+        values[index] = value;
+        return new ResponseValidator(fields, values);
+    }
+
+    /**
+     * Checks a response body.
+     *
+     * @param body The UTF-8 JSON body
+     * @return null if the body is valid, otherwise a description of the first problem found
+     */
+    public String check(byte[] body) {
+        long missing = fields.length == Long.SIZE ? -1L : (1L << fields.length) - 1;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return "Expected a JSON object";
+            }
+            String name;
+            while (missing != 0 && (name = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                int index = indexOf(name);
+                if (index < 0 || (missing & 1L << index) == 0) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (value == JsonToken.VALUE_NULL) {
+                    return "Field " + name + " is null";
+                }
+                if (expected[index] != null && !matches(parser, value, expected[index])) {
+                    return "Field " + name + " was " + (value.isScalarValue() ? "'" + parser.getText() + "'" : value)
+                            + " but expected '" + expected[index] + "'";
+                }
+                parser.skipChildren();
+                missing &= ~(1L << index);
+            }
+        } catch (IOException e) {
+            return "Malformed JSON: " + e.getMessage();
+        }
+        return missing == 0 ? null : "Missing fields " + missingFields(missing);
+    }
+
+    /**
+     * Validates a response body.
+     *
+     * @param body The UTF-8 JSON body
+     * @throws IllegalStateException if the body is not valid
+     */
+    public void validate(byte[] body) {
+        String failure = check(body);
+        if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+    }
+
+    /**
+     * Reads the value of a top-level field, stopping at the field.
+     *
+     * @param body The UTF-8 JSON body
+     * @param field The field name
+     * @return The textual value of the field, or null if it is missing, null or not a scalar
+     * @throws IllegalStateException if the body is not a JSON object or is malformed before the field
+     */
+    public static String value(byte[] body, String field) {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("Expected a JSON object");
+            }
+            String name;
+            while ((name = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                if (field.equals(name)) {
+                    return value.isScalarValue() && value != JsonToken.VALUE_NULL ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            throw new IllegalStateException("Malformed JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the current scalar value with an expected one without creating a String.
+     *
+     * @param parser The parser positioned at the value
+     * @param value The current token
+     * @param expected The expected textual value
+     * @return Whether the value is scalar and equal to the expected text
+     * @throws IOException if the value cannot be read
+     */
+    private static boolean matches(JsonParser parser, JsonToken value, String expected) throws IOException {
+        if (!value.isScalarValue()) {
+            return false;
+        }
+        int length = parser.getTextLength();
+        if (length != expected.length()) {
+            return false;
+        }
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = 0; i < length; i++) {
+            if (text[offset + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<String> missingFields(long missing) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < fields.length; i++) {
+            if ((missing & 1L << i) != 0) {
+                names.add(fields[i]);
+            }
+        }
+        return names;
+    }
+}
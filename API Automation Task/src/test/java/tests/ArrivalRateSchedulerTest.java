@@ -0,0 +1,154 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import load.ArrivalProfile;
+import load.ArrivalRateScheduler;
+import load.ArrivalResult;
+
+/**
+ * Test class for the open-model arrival-rate scheduler and its profiles.
+ * Uses in-memory scenarios so the schedule and both latency measurements can be verified without a server.
+ */
+@Listeners({AllureTestNg.class})
+public class ArrivalRateSchedulerTest {
+
+    /**
+     * Verifies that arrivals follow the target rate regardless of the number of users.
+     */
+    @Test
+    public void testConstantRate() {
+        ArrivalResult result = new ArrivalRateScheduler(ArrivalProfile.constant(200), Duration.ofSeconds(1), 50)
+                .run(userId -> () -> Thread.sleep(5));
+
+        assertEquals(result.arrivals(), 200);
+        assertEquals(result.iterations(), 200);
+        assertEquals(result.errors(), 0);
+        assertEquals(result.queued(), 0);
+    }
+
+    /**
+     * Verifies that a slow system does not slow down the arrivals and that the waiting is measured:
+     * two users serving 50 ms iterations can handle 40 arrivals per second, so at 100 per second the
+     * response time from the intended start grows far beyond the service time.
+     */
+    @Test
+    public void testQueueingIsMeasuredFromIntendedStart() {
+        ArrivalResult result = new ArrivalRateScheduler(ArrivalProfile.constant(100), Duration.ofSeconds(1), 2)
+                .run(userId -> () -> Thread.sleep(50));
+
+        assertEquals(result.arrivals(), 100);
+        assertEquals(result.iterations(), 100);
+        assertEquals(result.peakUsers(), 2);
+        assertTrue(result.queued() > 50, "Only " + result.queued() + " arrivals queued");
+        long serviceP99 = result.serviceTime().getValueAtPercentile(99);
+        long responseP99 = result.responseTime().getValueAtPercentile(99);
+        assertTrue(serviceP99 < 200_000_000L, "Service time p99 was " + serviceP99 + " ns");
+        assertTrue(responseP99 > 1_000_000_000L, "Response time p99 was " + responseP99 + " ns");
+    }
+
+    /**
+     * Verifies that failing iterations are counted as errors.
+     */
+    @Test
+    public void testErrorsAreCounted() {
+        ArrivalResult result = new ArrivalRateScheduler(ArrivalProfile.constant(50), Duration.ofMillis(200), 5)
+                .run(userId -> () -> {
+                    throw new IllegalStateException("boom");
+                });
+
+        assertEquals(result.iterations(), 10);
+        assertEquals(result.errors(), 10);
+    }
+
+    /**
+     * Verifies that profiles starting from a zero or low rate issue the arrivals the area under their rate
+     * holds: 100 during a one-second ramp from 0 to 200 and 100 more at 200 per second, 0 + 50 + 100 for
+     * half-second steps of 100 per second from 0, and 0.1 + 100 for a half-second spike from 0.2 to 200.
+     */
+    @Test
+    public void testArrivalsFollowTheIntegratedRate() {
+        assertArrivals("ramp:0-200,1", Duration.ofMillis(1500), 200);
+        assertArrivals("step:0,100,0.5", Duration.ofMillis(1500), 150);
+        assertArrivals("spike:0.2,200,0.5,0.5", Duration.ofSeconds(1), 101);
+        assertArrivals("constant:0", Duration.ofMillis(200), 0);
+    }
+
+    /**
+     * Verifies that a phase delays the first arrival by that part of the interval without changing the
+     * number of arrivals, and that phases outside [0, 1) are rejected.
+     */
+    @Test
+    public void testPhaseDelaysFirstArrival() {
+        long start = System.nanoTime();
+        AtomicLong firstIteration = new AtomicLong();
+        ArrivalResult result = new ArrivalRateScheduler(ArrivalProfile.constant(10), Duration.ofSeconds(1), 2, 0.5)
+                .run(userId -> () -> firstIteration.compareAndSet(0, System.nanoTime()));
+
+        assertEquals(result.arrivals(), 10);
+        long delay = firstIteration.get() - start;
+        assertTrue(delay >= 50_000_000L, "First arrival after " + delay + " ns");
+        assertThrows(IllegalArgumentException.class,
+                () -> new ArrivalRateScheduler(ArrivalProfile.constant(10), Duration.ofSeconds(1), 2, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ArrivalRateScheduler(ArrivalProfile.constant(10), Duration.ofSeconds(1), 2, -0.5));
+    }
+
+    /**
+     * Verifies the rates of the parsed constant, ramp, step and spike profiles.
+     */
+    @Test
+    public void testProfiles() {
+        assertEquals(ArrivalProfile.parse("constant:50").ratePerSecond(1234), 50.0);
+
+        ArrivalProfile ramp = ArrivalProfile.parse("ramp:10-200,60");
+        assertEquals(ramp.ratePerSecond(0), 10.0);
+        assertEquals(ramp.ratePerSecond(30), 105.0);
+        assertEquals(ramp.ratePerSecond(90), 200.0);
+
+        ArrivalProfile step = ArrivalProfile.parse("step:50,25,30,100");
+        assertEquals(step.ratePerSecond(29), 50.0);
+        assertEquals(step.ratePerSecond(30), 75.0);
+        assertEquals(step.ratePerSecond(300), 100.0);
+
+        ArrivalProfile spike = ArrivalProfile.parse("spike:50,500,60,10");
+        assertEquals(spike.ratePerSecond(59), 50.0);
+        assertEquals(spike.ratePerSecond(65), 500.0);
+        assertEquals(spike.ratePerSecond(70), 50.0);
+
+        assertThrows(IllegalArgumentException.class, () -> ArrivalProfile.parse("constant"));
+        assertThrows(IllegalArgumentException.class, () -> ArrivalProfile.parse("ramp:10"));
+        assertThrows(IllegalArgumentException.class, () -> ArrivalProfile.parse("ramp:10,60"));
+        assertThrows(IllegalArgumentException.class, () -> ArrivalProfile.parse("ramp:10-200"));
+        assertThrows(IllegalArgumentException.class, () -> ArrivalProfile.parse("poisson:10"));
+        assertThrows(IllegalArgumentException.class, () -> ArrivalProfile.constant(-1));
+    }
+
+    /**
+     * Runs a profile with instant iterations and checks its number of arrivals.
+     *
+     * @param spec The profile specification
+     * @param duration The time during which arrivals are scheduled
+     * @param expected The arrivals the integrated rate holds, give or take one
+     */
+    private static void assertArrivals(String spec, Duration duration, long expected) {
+        ArrivalResult result = new ArrivalRateScheduler(ArrivalProfile.parse(spec), duration, 10)
+                .run(userId -> () -> { });
+
+        assertTrue(Math.abs(result.arrivals() - expected) <= 1, spec + " issued " + result.arrivals() + " arrivals");
+        assertEquals(result.iterations(), result.arrivals());
+        if (expected > 0) {
+            // The last arrival is due within its interval before the end of the duration
+            assertTrue(result.elapsed().compareTo(duration.minusMillis(100)) >= 0, spec + " finished after " + result.elapsed());
+        }
+    }
+}
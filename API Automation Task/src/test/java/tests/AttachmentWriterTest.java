@@ -0,0 +1,84 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import utils.AttachmentWriter;
+
+/**
+ * Test class for the streaming AttachmentWriter.
+ * Verifies that attachments are written to allure-results, capped in size and optionally compressed.
+ */
+@Listeners({AllureTestNg.class})
+public class AttachmentWriterTest {
+
+    /**
+     * Restores the default attachment settings.
+     */
+    @AfterMethod(alwaysRun = true)
+    public void resetProperties() {
+        System.clearProperty("attachment.max.bytes");
+        System.clearProperty("attachment.gzip");
+    }
+
+    /**
+     * Verifies that content beyond the size cap is cut off and a truncation note is appended.
+     *
+     * @throws IOException if the attachment file cannot be read
+     */
+    @Test
+    public void testAttachmentIsCapped() throws IOException {
+        System.setProperty("attachment.max.bytes", "1000");
+        String source = AttachmentWriter.prepare("Capped", "text/plain", ".txt");
+        AttachmentWriter.write(source, out -> {
+            byte[] chunk = "x".repeat(100).getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < 1000; i++) {
+                out.write(chunk);
+            }
+        });
+
+        String content = Files.readString(file(source));
+        assertTrue(content.startsWith("x".repeat(1000) + "\n[truncated: 100000 bytes"), content);
+    }
+
+    /**
+     * Verifies that text attachments are gzip-compressed when compression is enabled.
+     *
+     * @throws IOException if the attachment file cannot be read
+     */
+    @Test
+    public void testTextAttachmentIsCompressed() throws IOException {
+        System.setProperty("attachment.gzip", "true");
+        String text = "{\"name\":\"John Doe\"}".repeat(10_000);
+        String source = AttachmentWriter.prepare("Compressed", "application/json", ".json");
+        AttachmentWriter.write(source, out -> out.write(text.getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(source.endsWith(".json.gz"), source);
+        assertTrue(Files.size(file(source)) < text.length() / 10, "Attachment was not compressed");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file(source)))) {
+            assertEquals(new String(in.readAllBytes(), StandardCharsets.UTF_8), text);
+        }
+    }
+
+    /**
+     * Resolves the file of an attachment in the results directory.
+     *
+     * @param source The attachment source
+     * @return Path of the attachment file
+     */
+    private Path file(String source) {
+        return Path.of(System.getProperty("allure.results.directory", "allure-results"), source);
+    }
+}
@@ -0,0 +1,119 @@
+package tests;
+
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.testng.AllureTestNg;
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.specification.RequestSpecification;
+import load.LoadEngine;
+import load.LoadProfile;
+import load.LoadResult;
+import stub.StubServer;
+import utils.PooledHttpClientFactory;
+import utils.RequestSpecBuilderUtil;
+
+/**
+ * Benchmark-style test for the pooled keep-alive connections of RequestSpecBuilderUtil.
+ * Sends the same concurrent workload once through the shared specification and once
+ * through a plain per-call specification against the local stub server, and reports the
+ * connection reuse rate and throughput of both.
+ */
+@Listeners({AllureTestNg.class})
+public class ConnectionReuseTest {
+
+    /** Logger instance for reporting the benchmark figures */
+    private static final Logger logger = LogManager.getLogger(ConnectionReuseTest.class);
+
+    /** Concurrent virtual users sending requests */
+    private static final int USERS = 16;
+
+    /** Requests sent by every virtual user */
+    private static final int REQUESTS_PER_USER = 50;
+
+    /** Local stub server answering the benchmark requests */
+    private StubServer stub;
+
+    /** Base URL of the local server */
+    private String baseUrl;
+
+    /**
+     * Starts the local stub server on an ephemeral port.
+     *
+     * @throws IOException if the server cannot be bound
+     */
+    @BeforeClass
+    public void startServer() throws IOException {
+        stub = new StubServer().start();
+        baseUrl = stub.baseUrl();
+    }
+
+    /**
+     * Stops the local stub server.
+     */
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        stub.close();
+    }
+
+    /**
+     * Verifies that nearly every request runs on a reused connection and compares the
+     * throughput against unpooled per-call specifications. Both variants are warmed up first.
+     */
+    @Test
+    public void testPooledConnectionsAreReused() {
+        RequestSpecification shared = RequestSpecBuilderUtil.getRequestSpec(baseUrl);
+        Supplier<RequestSpecification> perCall = () -> new RequestSpecBuilder()
+                .setBaseUri(baseUrl)
+                .setContentType("application/json")
+                .build();
+        runWorkload(() -> shared, 2);
+        runWorkload(perCall, 2);
+
+        long leasedBefore = PooledHttpClientFactory.leasedConnections();
+        long openedBefore = PooledHttpClientFactory.openedConnections();
+        LoadResult pooled = runWorkload(() -> shared, USERS);
+        long leased = PooledHttpClientFactory.leasedConnections() - leasedBefore;
+        long opened = PooledHttpClientFactory.openedConnections() - openedBefore;
+        double reuseRate = 1 - (double) opened / leased;
+
+        LoadResult unpooled = runWorkload(perCall, USERS);
+
+        String report = String.format("pooled: %d requests, %d connections opened, reuse rate %.1f%%, %.0f req/s%n"
+                        + "unpooled: %d requests, %.0f req/s",
+                leased, opened, reuseRate * 100, pooled.throughput(), unpooled.iterations(), unpooled.throughput());
+        logger.info(report);
+        Allure.addAttachment("Connection Reuse", "text/plain", report, ".txt");
+
+        assertTrue(pooled.errors() == 0 && unpooled.errors() == 0, "Requests failed");
+        assertTrue(opened <= USERS, "Opened " + opened + " connections for " + USERS + " users");
+        assertTrue(reuseRate >= 0.9, "Reuse rate " + reuseRate + " is below 90%");
+    }
+
+    /**
+     * Sends the benchmark workload with specifications supplied per request.
+     *
+     * @param specs Supplier of the specification used for each request
+     * @param users Number of concurrent virtual users
+     * @return LoadResult of the workload
+     */
+    private LoadResult runWorkload(Supplier<RequestSpecification> specs, int users) {
+        return new LoadEngine(new LoadProfile(users, 0, 60, REQUESTS_PER_USER)).run(userId -> () -> {
+            int status = RestAssured.given().spec(specs.get()).body("{}").post("/api/users").getStatusCode();
+            if (status != 201) {
+                throw new IllegalStateException("Unexpected status " + status);
+            }
+        });
+    }
+}
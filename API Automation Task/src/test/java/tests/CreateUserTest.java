@@ -1,19 +1,33 @@
 package tests;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.HdrHistogram.Histogram;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 import org.testng.annotations.Listeners;
 import org.testng.annotations.Test;
 
+import config.ConfigurationManager;
 import io.qameta.allure.Allure;
 import io.qameta.allure.testng.AllureTestNg;
 import io.restassured.RestAssured;
 import io.restassured.response.Response;
+import load.LoadEngine;
+import load.LoadProfile;
+import load.LoadResult;
+import utils.AttachmentWriter;
 import utils.JsonUtil;
+import utils.LatencyRecorder;
+import utils.LogAppender;
+import utils.PayloadTemplate;
 import utils.RequestSpecBuilderUtil;
+import utils.ResponseValidator;
 
 /**
  * Test class for creating user via REST API.
@@ -26,8 +40,14 @@ public class CreateUserTest {
     /** Logger instance for recording test execution details */
     private static final Logger logger = LogManager.getLogger(CreateUserTest.class);
 
-    /** Buffer to capture log messages for Allure report attachments */
-    private static final StringBuilder logBuffer = new StringBuilder();
+    /** Create-user payload, rendered with JSON escaping */
+    private static final PayloadTemplate CREATE_USER_BODY = PayloadTemplate.compile("{\n  \"name\": \"${name}\",\n  \"job\": \"${job}\"\n}");
+
+    /** Render buffers of the request body of this test */
+    private final PayloadTemplate.Renderer requestBodies = CREATE_USER_BODY.renderer();
+
+    /** Fields of a created user, read with a streaming parser that stops once all of them are found */
+    private static final ResponseValidator CREATED_USER = ResponseValidator.require("name", "job", "id", "createdAt");
 
     /**
      * Main test method for user creation workflow.
@@ -40,7 +60,7 @@ public class CreateUserTest {
         String name = (String) userData.get("name");
         String job = (String) userData.get("job");
 
-        String requestBody = Allure.step("Construct JSON payload for user creation", () -> createRequestBody(name, job));
+        byte[] requestBody = Allure.step("Construct JSON payload for user creation", () -> createRequestBody(name, job));
 
         Response response = Allure.step("Execute HTTP POST request to create new user", () -> sendPostRequest(requestBody));
 
@@ -49,8 +69,8 @@ public class CreateUserTest {
             return null;
         });
 
-        Allure.step("Validate response time is less than 1000ms", () -> {
-            verifyResponseTime(response);
+        Allure.step("Validate response time percentiles against SLOs", () -> {
+            verifyResponseTime(response, name, job);
             return null;
         });
 
@@ -68,40 +88,32 @@ public class CreateUserTest {
      * @return Map containing user data with keys "name" and "job"
      */
     public Map<String, Object> readUserDataFromJson() {
-        logBuffer.setLength(0);
+        LogAppender.clearLogs();
         String log1 = "Reading user data from JSON file";
         logger.info(log1);
-        logBuffer.append(log1).append(System.lineSeparator());
         Map<String, Object> userData = JsonUtil.readJsonFile("src/testdata/userData.json");
         String log2 = "User data read successfully: " + userData;
         logger.info(log2);
-        logBuffer.append(log2).append(System.lineSeparator());
-        Allure.addAttachment("Step 1 Logs", "text/plain", logBuffer.toString(), ".txt");
+        Allure.addAttachment("Step 1 Logs", "text/plain", LogAppender.getLogs(), ".txt");
         return userData;
     }
 
     /**
      * Constructs JSON payload for user creation request.
-     * Builds a properly formatted JSON string containing user name and job information.
+     * Renders the pre-compiled payload template with the escaped user name and job information;
+     * the body itself is attached to the report with the request, so only its size is logged here.
      * Logs the payload construction process and attaches logs to Allure report.
      *
      * @param name The user's name to include in the request
      * @param job The user's job title to include in the request
-     * @return JSON string representing the request body
+     * @return UTF-8 JSON request body, owned by this test until its next payload is rendered
      */
-    public String createRequestBody(String name, String job) {
-        logBuffer.setLength(0);
-        String log1 = "Creating request body for user: " + name + " with job: " + job;
-        logger.info(log1);
-        logBuffer.append(log1).append(System.lineSeparator());
-        String requestBody = "{\n" +
-                "  \"name\": \"" + name + "\",\n" +
-                "  \"job\": \"" + job + "\"\n" +
-                "}";
-        String log2 = "Request body created: " + requestBody;
-        logger.info(log2);
-        logBuffer.append(log2).append(System.lineSeparator());
-        Allure.addAttachment("Step 2 Logs", "text/plain", logBuffer.toString(), ".txt");
+    public byte[] createRequestBody(String name, String job) {
+        LogAppender.clearLogs();
+        logger.info("Creating request body for user: {} with job: {}", name, job);
+        byte[] requestBody = requestBodies.render(name, job);
+        logger.info("Request body created: {} bytes", requestBody.length);
+        Allure.addAttachment("Step 2 Logs", "text/plain", LogAppender.getLogs(), ".txt");
         return requestBody;
     }
 
@@ -109,25 +121,23 @@ public class CreateUserTest {
      * Executes HTTP POST request to create a new user.
      * Sends the JSON payload to the user creation endpoint using RestAssured.
      * Logs the request execution and attaches request/response data to Allure report.
+     * The response body is not streamed: later steps parse it again, so it is read into memory once
+     * and that copy is written to the report instead of being turned into a String.
      *
-     * @param requestBody JSON string containing user creation data
+     * @param requestBody UTF-8 JSON containing user creation data
      * @return Response object containing the API response
      */
-    public Response sendPostRequest(String requestBody) {
-        logBuffer.setLength(0);
+    public Response sendPostRequest(byte[] requestBody) {
+        LogAppender.clearLogs();
         String log1 = "Sending POST request to create user";
         logger.info(log1);
-        logBuffer.append(log1).append(System.lineSeparator());
-        Response response = RestAssured.given()
-                .spec(RequestSpecBuilderUtil.getRequestSpec())
-                .body(requestBody)
-                .post("/api/users");
+        Response response = postCreateUser(requestBody);
         String log2 = "POST request sent, response status: " + response.getStatusCode();
         logger.info(log2);
-        logBuffer.append(log2).append(System.lineSeparator());
-        Allure.addAttachment("Request Body", "application/json", requestBody, ".json");
-        Allure.addAttachment("Response Body", "application/json", response.getBody().asString(), ".json");
-        Allure.addAttachment("Step 3 Logs", "text/plain", logBuffer.toString(), ".txt");
+        AttachmentWriter.attach("Request Body", "application/json", ".json", out -> out.write(requestBody));
+        byte[] responseBody = response.asByteArray();
+        AttachmentWriter.attach("Response Body", "application/json", ".json", out -> out.write(responseBody));
+        Allure.addAttachment("Step 3 Logs", "text/plain", LogAppender.getLogs(), ".txt");
         return response;
     }
 
@@ -139,62 +149,110 @@ public class CreateUserTest {
      * @param response The Response object from the API call
      */
     public void verifyStatusCode(Response response) {
-        logBuffer.setLength(0);
+        LogAppender.clearLogs();
         String log1 = "Verifying response status code";
         logger.info(log1);
-        logBuffer.append(log1).append(System.lineSeparator());
         assertEquals(response.getStatusCode(), 201);
         String log2 = "Status code verified: 201";
         logger.info(log2);
-        logBuffer.append(log2).append(System.lineSeparator());
-        Allure.addAttachment("Step 4 Logs", "text/plain", logBuffer.toString(), ".txt");
+        Allure.addAttachment("Step 4 Logs", "text/plain", LogAppender.getLogs(), ".txt");
+    }
+
+    /**
+     * Sends a single create-user request without any logging or reporting.
+     * Shared by the functional request step and the response time sampling runs.
+     *
+     * @param requestBody UTF-8 JSON containing user creation data
+     * @return Response object containing the API response
+     */
+    private Response postCreateUser(byte[] requestBody) {
+        return RestAssured.given()
+                .spec(RequestSpecBuilderUtil.getRequestSpec())
+                .body(requestBody)
+                .post("/api/users");
     }
 
     /**
-     * Validates the API response time performance.
-     * Ensures that the API response time is within acceptable performance limits (< 1000ms).
-     * Logs the response time measurement and validation process for performance monitoring.
+     * Validates the API response time performance against percentile SLOs.
+     * Besides the functional response, sends {@code perf.samples - 1} additional create-user
+     * requests spread over {@code perf.concurrency} concurrent virtual users, records every
+     * latency in a histogram and asserts that p95 and p99 stay within {@code perf.slo.p95.ms}
+     * and {@code perf.slo.p99.ms}. The full latency distribution is attached to the Allure report.
+     * Every sampling request renders its payload into the buffers of its virtual user, so the sampling
+     * loop does not allocate request bodies, and every sampled response body is validated as well.
      *
      * @param response The Response object from the API call to measure response time
+     * @param name The user's name sent by the sampling requests
+     * @param job The user's job title sent by the sampling requests
      */
-    public void verifyResponseTime(Response response) {
-        logBuffer.setLength(0);
-        String log1 = "Verifying response time";
+    public void verifyResponseTime(Response response, String name, String job) {
+        LogAppender.clearLogs();
+        String log1 = "Verifying response time percentiles";
         logger.info(log1);
-        logBuffer.append(log1).append(System.lineSeparator());
-        long responseTime = response.getTime();
-        String log2 = "Response time: " + responseTime + " ms";
+        int samples = (int) ConfigurationManager.getLongProperty("perf.samples", 1);
+        int concurrency = (int) ConfigurationManager.getLongProperty("perf.concurrency", 1);
+        long p95Slo = ConfigurationManager.getLongProperty("perf.slo.p95.ms", 1000);
+        long p99Slo = ConfigurationManager.getLongProperty("perf.slo.p99.ms", 1000);
+
+        LatencyRecorder latency = new LatencyRecorder();
+        latency.record(response.getTimeIn(TimeUnit.NANOSECONDS));
+        int users = Math.max(1, Math.min(concurrency, samples - 1));
+        if (samples > 1) {
+            long iterationsPerUser = (samples - 1 + users - 1) / users;
+            // Rounding up per user would overshoot; the users share the exact number of remaining samples
+            AtomicInteger remaining = new AtomicInteger(samples - 1);
+            ResponseValidator createdUser = CREATED_USER.expect("name", name).expect("job", job);
+            LoadResult result = new LoadEngine(new LoadProfile(users, 0, 3600, iterationsPerUser)).run(userId -> {
+                PayloadTemplate.Renderer body = CREATE_USER_BODY.renderer();
+                return () -> {
+                    if (remaining.getAndDecrement() <= 0) {
+                        return;
+                    }
+                    long start = System.nanoTime();
+                    Response sample = postCreateUser(body.render(name, job));
+                    latency.recordSince(start);
+                    if (sample.getStatusCode() != 201) {
+                        throw new IllegalStateException("Unexpected status " + sample.getStatusCode());
+                    }
+                    createdUser.validate(sample.asByteArray());
+                };
+            });
+            assertEquals(result.errors(), 0, "Failed sampling requests");
+        }
+
+        Histogram histogram = latency.snapshot();
+        assertEquals(histogram.getTotalCount(), Math.max(samples, 1), "Recorded response time samples");
+        double p95 = histogram.getValueAtPercentile(95) / 1_000_000.0;
+        double p99 = histogram.getValueAtPercentile(99) / 1_000_000.0;
+        String log2 = "Response time over " + users + " concurrent users: " + LatencyRecorder.summary(histogram);
         logger.info(log2);
-        logBuffer.append(log2).append(System.lineSeparator());
-        assert responseTime < 1000 : "Response time " + responseTime + "ms exceeds 1000ms limit";
-        String log3 = "Response time validated: " + responseTime + " ms < 1000 ms";
+        LatencyRecorder.attachToAllure("Response Time Distribution", histogram);
+        assertTrue(p95 <= p95Slo, "p95 response time " + p95 + "ms exceeds " + p95Slo + "ms SLO");
+        assertTrue(p99 <= p99Slo, "p99 response time " + p99 + "ms exceeds " + p99Slo + "ms SLO");
+        String log3 = "Response time validated: p95 " + p95 + " ms <= " + p95Slo + " ms, p99 " + p99 + " ms <= " + p99Slo + " ms";
         logger.info(log3);
-        logBuffer.append(log3).append(System.lineSeparator());
-        Allure.addAttachment("Step 5 Logs", "text/plain", logBuffer.toString(), ".txt");
+        Allure.addAttachment("Step 5 Logs", "text/plain", LogAppender.getLogs(), ".txt");
     }
 
     /**
      * Validates the content of the API response payload.
      * Ensures that the response JSON contains the correct user name and job information
-     * that matches the data sent in the request. Performs comprehensive data validation.
+     * that matches the data sent in the request, plus the generated id and creation time.
+     * The cached body bytes are validated in a single streaming pass instead of parsing them per field.
      *
      * @param response The Response object from the API call
      * @param expectedName The expected user name in the response
      * @param expectedJob The expected user job in the response
      */
     public void verifyResponseBody(Response response, String expectedName, String expectedJob) {
-        logBuffer.setLength(0);
+        LogAppender.clearLogs();
         String log1 = "Verifying response body";
         logger.info(log1);
-        logBuffer.append(log1).append(System.lineSeparator());
-        String responseName = response.jsonPath().getString("name");
-        String responseJob = response.jsonPath().getString("job");
+        String failure = CREATED_USER.expect("name", expectedName).expect("job", expectedJob).check(response.asByteArray());
 
-        assertEquals(responseName, expectedName);
-        assertEquals(responseJob, expectedJob);
-        String log2 = "Response body verified: name=" + responseName + ", job=" + responseJob;
+        assertNull(failure, failure);
+        String log2 = "Response body verified: name=" + expectedName + ", job=" + expectedJob;
         logger.info(log2);
-        logBuffer.append(log2).append(System.lineSeparator());
-        Allure.addAttachment("Step 6 Logs", "text/plain", logBuffer.toString(), ".txt");
+        Allure.addAttachment("Step 6 Logs", "text/plain", LogAppender.getLogs(), ".txt");
     }
 }
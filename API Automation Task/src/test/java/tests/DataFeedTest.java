@@ -0,0 +1,183 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import load.DataFeed;
+import load.DataFeedGenerator;
+
+/**
+ * Test class for the memory-mapped DataFeed and its generator.
+ * Verifies that partitions are disjoint, cover the whole feed and reuse their record views.
+ */
+@Listeners({AllureTestNg.class})
+public class DataFeedTest {
+
+    /** Number of records in the generated feed */
+    private static final int RECORDS = 10_000;
+
+    /** Directory of the feed files */
+    private Path directory;
+
+    /** Feed generated by DataFeedGenerator */
+    private DataFeed feed;
+
+    /**
+     * Generates the feed shared by the tests.
+     *
+     * @throws IOException if the feed cannot be written
+     */
+    @BeforeClass
+    public void generateFeed() throws IOException {
+        directory = Files.createTempDirectory("data-feed");
+        Path file = directory.resolve("customers.feed");
+        DataFeedGenerator.generate(file, RECORDS, 7);
+        feed = DataFeed.open(file);
+    }
+
+    /**
+     * Deletes the feed files.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    @AfterClass(alwaysRun = true)
+    public void deleteFeed() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Verifies that the partitions of all users together hand out every record exactly once per cycle.
+     */
+    @Test
+    public void testPartitionsAreDisjointAndComplete() {
+        assertEquals(feed.size(), RECORDS);
+        assertEquals(feed.fields(), DataFeedGenerator.FIELDS);
+        int email = feed.fieldIndex("email");
+        int users = 7;
+        Set<String> emails = new HashSet<>();
+        long total = 0;
+        for (int user = 0; user < users; user++) {
+            DataFeed.Partition partition = feed.partition(user, users);
+            for (long i = 0; i < partition.size(); i++) {
+                assertTrue(emails.add(partition.next().get(email).toString()), "Record handed out twice");
+            }
+            total += partition.size();
+        }
+        assertEquals(total, RECORDS);
+        assertEquals(emails.size(), RECORDS);
+    }
+
+    /**
+     * Verifies that a partition reuses one record view and value per field and starts over after its last record.
+     */
+    @Test
+    public void testPartitionReusesViewsAndCycles() {
+        DataFeed.Partition partition = feed.partition(3, 4);
+        int email = feed.fieldIndex("email");
+        DataFeed.Record first = partition.next();
+        CharSequence value = first.get(email);
+        String firstEmail = value.toString();
+        assertEquals(firstEmail, "customer7500@loadtest.example");
+
+        DataFeed.Record second = partition.next();
+        assertSame(second, first);
+        assertSame(second.get(email), value);
+        assertEquals(value.toString(), "customer7501@loadtest.example");
+
+        for (long i = 2; i < partition.size(); i++) {
+            partition.next();
+        }
+        assertEquals(partition.cycles(), 0);
+        assertEquals(partition.next().get(email).toString(), firstEmail);
+        assertEquals(partition.cycles(), 1);
+    }
+
+    /**
+     * Verifies that values of any width and script survive a write and read round trip.
+     *
+     * @throws IOException if the feed cannot be written or read
+     */
+    @Test
+    public void testWriterRoundTrip() throws IOException {
+        Path file = directory.resolve("round-trip.feed");
+        List<DataFeed.Field> fields = List.of(new DataFeed.Field("name", 20), new DataFeed.Field("city", 255));
+        String[][] rows = {{"Jürgen \"JD\" Doe", "München"}, {"😀 日本", "x".repeat(255)}, {"", "a"}};
+        try (DataFeed.Writer writer = new DataFeed.Writer(file, fields)) {
+            for (String[] row : rows) {
+                writer.write(row);
+            }
+            assertThrows(IllegalArgumentException.class, () -> writer.write("x".repeat(21), "a"));
+        }
+
+        DataFeed read = DataFeed.open(file);
+        DataFeed.Partition partition = read.partition(0, 1);
+        for (String[] row : rows) {
+            DataFeed.Record record = partition.next();
+            assertEquals(record.get(0).toString(), row[0]);
+            assertEquals(record.get(1).toString(), row[1]);
+            assertEquals(record.get(0).length(), row[0].length());
+        }
+    }
+
+    /**
+     * Verifies that a record rejected for a too wide later field leaves no bytes behind, so the records
+     * written after it stay aligned.
+     *
+     * @throws IOException if the feed cannot be written or read
+     */
+    @Test
+    public void testRejectedRecordWritesNothing() throws IOException {
+        Path file = directory.resolve("rejected.feed");
+        List<DataFeed.Field> fields = List.of(new DataFeed.Field("name", 8), new DataFeed.Field("city", 4));
+        try (DataFeed.Writer writer = new DataFeed.Writer(file, fields)) {
+            writer.write("first", "Rome");
+            assertThrows(IllegalArgumentException.class, () -> writer.write("rejected", "Munich"));
+            writer.write("second", "Oslo");
+        }
+
+        DataFeed read = DataFeed.open(file);
+        assertEquals(read.size(), 2);
+        DataFeed.Partition partition = read.partition(0, 1);
+        for (String[] row : new String[][]{{"first", "Rome"}, {"second", "Oslo"}}) {
+            DataFeed.Record record = partition.next();
+            assertEquals(record.get(0).toString(), row[0]);
+            assertEquals(record.get(1).toString(), row[1]);
+        }
+    }
+
+    /**
+     * Verifies that invalid files, unknown fields and more partitions than records are rejected.
+     *
+     * @throws IOException if the test file cannot be written
+     */
+    @Test
+    public void testRejectsInvalidUse() throws IOException {
+        Path file = directory.resolve("invalid.feed");
+        Files.writeString(file, "not a feed");
+
+        assertThrows(IOException.class, () -> DataFeed.open(file));
+        assertThrows(IllegalArgumentException.class, () -> feed.fieldIndex("phone"));
+        assertThrows(IllegalArgumentException.class, () -> feed.partition(0, RECORDS + 1));
+        assertThrows(IllegalStateException.class, () -> feed.partition(0, 1).record().get(0).length());
+    }
+}
@@ -0,0 +1,99 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import utils.LatencyRecorder;
+
+/**
+ * Test class for the latency recorder: percentiles, clamping, snapshots while recording continues and
+ * concurrent recording. Runs in memory without any network access.
+ */
+@Listeners({AllureTestNg.class})
+public class LatencyRecorderTest {
+
+    /**
+     * Verifies the percentiles of a known distribution of one to a thousand milliseconds.
+     */
+    @Test
+    public void testPercentiles() {
+        LatencyRecorder latency = new LatencyRecorder();
+        for (int i = 1; i <= 1_000; i++) {
+            latency.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        Histogram histogram = latency.snapshot();
+        assertEquals(histogram.getTotalCount(), 1_000);
+        assertEquals(latency.percentileMillis(50), 500, 1);
+        assertEquals(latency.percentileMillis(95), 950, 1);
+        assertEquals(latency.percentileMillis(99), 990, 1);
+        assertEquals(histogram.getMaxValue() / 1_000_000.0, 1_000, 1);
+        assertTrue(latency.summary().startsWith("count=1000 p50=500."), latency.summary());
+    }
+
+    /**
+     * Verifies that negative and huge latencies are clamped instead of failing the recording thread.
+     */
+    @Test
+    public void testClampsOutOfRangeValues() {
+        LatencyRecorder latency = new LatencyRecorder();
+        latency.record(-5);
+        latency.record(TimeUnit.HOURS.toNanos(2));
+
+        Histogram histogram = latency.snapshot();
+        assertEquals(histogram.getTotalCount(), 2);
+        assertEquals(histogram.getMinValue(), 0);
+        assertEquals(histogram.getMaxValue() / 1_000_000_000.0, 3_600, 3_600 * 0.001);
+    }
+
+    /**
+     * Verifies that snapshots accumulate every sample and stay unchanged while recording continues.
+     */
+    @Test
+    public void testSnapshotsAccumulate() {
+        LatencyRecorder latency = new LatencyRecorder();
+        latency.record(1_000_000);
+        Histogram first = latency.snapshot();
+        latency.record(2_000_000);
+        latency.record(3_000_000);
+
+        assertEquals(first.getTotalCount(), 1);
+        assertEquals(latency.snapshot().getTotalCount(), 3);
+        assertEquals(latency.snapshot().getTotalCount(), 3, "A snapshot must not drain the samples");
+    }
+
+    /**
+     * Verifies that no sample is lost when many virtual threads record and snapshot concurrently.
+     *
+     * @throws InterruptedException if the test thread is interrupted
+     */
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        LatencyRecorder latency = new LatencyRecorder();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    latency.record(1_000 + i);
+                    if (i % 1_000 == 0) {
+                        latency.snapshot();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(latency.snapshot().getTotalCount(), 160_000);
+    }
+}
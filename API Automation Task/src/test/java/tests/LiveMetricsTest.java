@@ -0,0 +1,186 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import load.LiveMetrics;
+import load.LoadEngine;
+import load.LoadProfile;
+import load.LoginInvoiceScenario;
+import stub.StubServer;
+
+/**
+ * Test class for the live per-second metrics: intervals and rolling percentiles, the HTTP endpoint and
+ * threshold aborts. Most tests drive the ticks themselves instead of waiting for the ticker.
+ */
+@Listeners({AllureTestNg.class})
+public class LiveMetricsTest {
+
+    /**
+     * Verifies the counts, error rate and rolling percentiles of an interval and the ring of past intervals.
+     */
+    @Test
+    public void testIntervals() {
+        LiveMetrics metrics = metrics(0, Duration.ZERO, 2);
+        LiveMetrics.Series login = metrics.series("login");
+        assertNull(metrics.latest("login"));
+
+        for (int i = 0; i < 100; i++) {
+            login.record(TimeUnit.MILLISECONDS.toNanos(i < 99 ? 1 : 50), i >= 10);
+        }
+        metrics.tick();
+        LiveMetrics.Interval first = metrics.latest("login");
+        assertEquals(first.requests(), 100);
+        assertEquals(first.errors(), 10);
+        assertEquals(first.errorRate(), 0.1);
+        assertEquals(first.p50() / 1_000_000, 1);
+        assertEquals(first.max() / 1_000_000, 50);
+
+        login.record(TimeUnit.MILLISECONDS.toNanos(2), true);
+        metrics.tick();
+        LiveMetrics.Interval second = metrics.latest("login");
+        assertEquals(second.requests(), 1);
+        assertEquals(second.errors(), 0);
+        assertEquals(second.max() / 1_000_000, 50, "The window spans two seconds");
+
+        metrics.tick();
+        assertEquals(metrics.latest("login").max() / 1_000_000, 2, "The first second left the window");
+        assertEquals(metrics.history("login").size(), 3);
+        assertEquals(metrics.history("login").get(0), first);
+    }
+
+    /**
+     * Verifies that a series staying above the error rate threshold aborts the run once, and only after
+     * the configured number of seconds.
+     */
+    @Test
+    public void testErrorRateAborts() {
+        AtomicInteger aborts = new AtomicInteger();
+        LiveMetrics metrics = metrics(0.5, Duration.ZERO, 10);
+        LiveMetrics.Series invoice = metrics.series("invoice");
+        try {
+            // Registers the callback without leaving the ticker running next to the manual ticks
+            metrics.start(aborts::incrementAndGet).close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        for (int second = 0; second < 4; second++) {
+            invoice.record(1_000, false);
+            metrics.tick();
+            assertEquals(aborts.get(), second < 2 ? 0 : 1);
+        }
+        assertTrue(metrics.abortReason().startsWith("invoice error rate 100.0%"), metrics.abortReason());
+    }
+
+    /**
+     * Verifies that ticks racing with failing requests never report more errors than requests and lose none.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testErrorRateNeverExceedsOne() throws InterruptedException {
+        LiveMetrics metrics = metrics(0, Duration.ZERO, 2);
+        LiveMetrics.Series login = metrics.series("login");
+        AtomicInteger recorded = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    login.record(1_000, false);
+                    recorded.incrementAndGet();
+                }
+            }));
+        }
+        for (int tick = 0; tick < 50 && recorded.get() < 800_000; tick++) {
+            metrics.tick();
+            Thread.sleep(1);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        metrics.tick();
+
+        long requests = 0;
+        long errors = 0;
+        for (LiveMetrics.Interval interval : metrics.history("login")) {
+            assertTrue(interval.errors() <= interval.requests(), interval.toString());
+            requests += interval.requests();
+            errors += interval.errors();
+        }
+        assertEquals(requests, 800_000);
+        assertEquals(errors, 800_000);
+    }
+
+    /**
+     * Verifies that live metrics abort a closed-model run against a failing stub long before its duration.
+     *
+     * @throws IOException if the stub or the endpoint cannot be bound
+     */
+    @Test
+    public void testAbortStopsLoadEngine() throws IOException {
+        try (StubServer stub = new StubServer().start().errorRate(1)) {
+            LoadEngine engine = new LoadEngine(new LoadProfile(5, 0, 600, -1));
+            LoginInvoiceScenario scenario = new LoginInvoiceScenario(stub.baseUrl());
+            long start = System.nanoTime();
+            try (LiveMetrics metrics = metrics(0.5, Duration.ZERO, 10).start(engine::stop)) {
+                engine.run(scenario.recordTo(metrics));
+
+                assertTrue(metrics.aborted());
+                assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+            }
+        }
+    }
+
+    /**
+     * Verifies that the endpoint serves the latest interval of every series as JSON.
+     *
+     * @throws IOException if the endpoint cannot be bound
+     */
+    @Test
+    public void testEndpoint() throws IOException {
+        try (LiveMetrics metrics = new LiveMetrics(Duration.ofSeconds(10), Duration.ofSeconds(60), 0, Duration.ZERO,
+                Duration.ofSeconds(10), 0, false).start(() -> { })) {
+            metrics.series("login").record(3_000_000, true);
+            metrics.tick();
+
+            Response response = RestAssured.get("http://127.0.0.1:" + metrics.port() + "/metrics");
+            Response history = RestAssured.get("http://127.0.0.1:" + metrics.port() + "/metrics/history");
+
+            // The ticker may have closed further, empty seconds while the first request was prepared
+            assertEquals(response.getStatusCode(), 200);
+            assertFalse(response.jsonPath().getBoolean("aborted"));
+            assertTrue(response.jsonPath().getInt("series.login.requests") <= 1);
+            assertEquals(history.jsonPath().getInt("series.login[0].requests"), 1);
+            assertEquals(history.jsonPath().getDouble("series.login[0].errorRate"), 0.0);
+        }
+    }
+
+    /**
+     * Creates live metrics without endpoint or console output that abort after three bad seconds.
+     *
+     * @param abortErrorRate Error rate threshold, 0 to disable
+     * @param abortP99 p99 threshold, zero to disable
+     * @param windowSeconds Span of the rolling percentiles
+     * @return The live metrics
+     */
+    private static LiveMetrics metrics(double abortErrorRate, Duration abortP99, int windowSeconds) {
+        return new LiveMetrics(Duration.ofSeconds(windowSeconds), Duration.ofSeconds(60), abortErrorRate, abortP99,
+                Duration.ofSeconds(3), -1, false);
+    }
+}
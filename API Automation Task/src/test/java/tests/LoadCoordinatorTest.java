@@ -0,0 +1,155 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import load.ArrivalResult;
+import load.LoadCoordinator;
+import stub.StubServer;
+
+/**
+ * Test class for distributed runs: worker JVMs started by the coordinator against the embedded stub server,
+ * and the lossless merge of their results.
+ */
+@Listeners({AllureTestNg.class})
+public class LoadCoordinatorTest {
+
+    /** Stub server shared by all tests of the class */
+    private StubServer stub;
+
+    /**
+     * Starts the stub server on an ephemeral port.
+     *
+     * @throws IOException if the server cannot be bound
+     */
+    @BeforeClass
+    public void startStub() throws IOException {
+        stub = new StubServer().start();
+    }
+
+    /**
+     * Stops the stub server.
+     */
+    @AfterClass(alwaysRun = true)
+    public void stopStub() {
+        stub.close();
+    }
+
+    /**
+     * Verifies that two worker JVMs together produce the target rate, with their arrivals interleaved and an
+     * uneven number of users, and that their results add up.
+     *
+     * @throws Exception if a worker fails
+     */
+    @Test
+    public void testWorkersShareTheRate() throws Exception {
+        long invoices = stub.requestCount(StubServer.INVOICES_PATH);
+
+        ArrivalResult result = new LoadCoordinator(2, "constant:100", Duration.ofSeconds(2), 21, stub.baseUrl(),
+                List.of("-Xmx256m"), Duration.ofSeconds(60)).run();
+
+        assertEquals(result.arrivals(), 200);
+        assertEquals(result.iterations(), 200);
+        assertEquals(result.errors(), 0);
+        assertEquals(result.serviceTime().getTotalCount(), 200);
+        assertEquals(result.responseTime().getTotalCount(), 200);
+        assertEquals(stub.requestCount(StubServer.INVOICES_PATH) - invoices, 200);
+    }
+
+    /**
+     * Verifies that phased workers sharing a ramp from zero each send their share of the arrivals the ramp
+     * holds: 100 during the first second and 200 during the second.
+     *
+     * @throws Exception if a worker fails
+     */
+    @Test
+    public void testWorkersShareARampFromZero() throws Exception {
+        ArrivalResult result = new LoadCoordinator(3, "ramp:0-200,1", Duration.ofSeconds(2), 30, stub.baseUrl(),
+                List.of("-Xmx256m"), Duration.ofSeconds(60)).run();
+
+        assertTrue(Math.abs(result.arrivals() - 300) <= 3, result.arrivals() + " arrivals");
+        assertEquals(result.iterations(), result.arrivals());
+        assertEquals(result.errors(), 0);
+    }
+
+    /**
+     * Verifies that workers whose live metrics see only failures abort a distributed run long before its
+     * duration and that the coordinator reports it.
+     *
+     * @throws Exception if a worker fails
+     */
+    @Test
+    public void testAbortStopsTheRun() throws Exception {
+        System.setProperty("load.abort.error.rate", "0.5");
+        System.setProperty("load.abort.after.seconds", "2");
+        try (StubServer failing = new StubServer().start().errorRate(1)) {
+            LoadCoordinator coordinator = new LoadCoordinator(2, "constant:20", Duration.ofSeconds(120), 10,
+                    failing.baseUrl(), List.of("-Xmx256m"), Duration.ofSeconds(60));
+            long start = System.nanoTime();
+
+            ArrivalResult result = coordinator.run();
+
+            assertTrue(coordinator.abortedWorkers() >= 1);
+            assertTrue(result.elapsed().toSeconds() < 30, "Workers ran for " + result.elapsed());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(60));
+        } finally {
+            System.clearProperty("load.abort.error.rate");
+            System.clearProperty("load.abort.after.seconds");
+        }
+    }
+
+    /**
+     * Verifies that merged histograms hold exactly the samples of all workers, so the merged percentiles
+     * equal those of recording everything in one histogram.
+     */
+    @Test
+    public void testMergeIsLossless() {
+        Histogram all = new Histogram(3);
+        Histogram first = new Histogram(3);
+        Histogram second = new Histogram(3);
+        for (long value = 1; value <= 10_000; value++) {
+            all.recordValue(value * 1_000);
+            (value % 3 == 0 ? first : second).recordValue(value * 1_000);
+        }
+
+        ArrivalResult merged = ArrivalResult.merge(List.of(
+                new ArrivalResult(10, 3_333, 1, 2, 5, Duration.ofSeconds(1), first, first),
+                new ArrivalResult(20, 6_667, 2, 3, 7, Duration.ofSeconds(2), second, second)));
+
+        assertEquals(merged.arrivals(), 30);
+        assertEquals(merged.iterations(), 10_000);
+        assertEquals(merged.errors(), 3);
+        assertEquals(merged.queued(), 5);
+        assertEquals(merged.peakUsers(), 12);
+        assertEquals(merged.elapsed(), Duration.ofSeconds(2));
+        assertEquals(merged.serviceTime(), all);
+        assertEquals(merged.responseTime().getValueAtPercentile(99.9), all.getValueAtPercentile(99.9));
+        assertEquals(first.getTotalCount(), 3_333, "Merging must not modify the inputs");
+    }
+
+    /**
+     * Verifies that coordinators without workers or with fewer users than workers are rejected.
+     */
+    @Test
+    public void testInvalidCoordinator() {
+        assertThrows(IllegalArgumentException.class, () -> new LoadCoordinator(0, "constant:10", Duration.ofSeconds(1),
+                10, stub.baseUrl(), List.of(), Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new LoadCoordinator(4, "constant:10", Duration.ofSeconds(1),
+                3, stub.baseUrl(), List.of(), Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new LoadCoordinator(1, "linear:10", Duration.ofSeconds(1),
+                3, stub.baseUrl(), List.of(), Duration.ofSeconds(1)));
+    }
+}
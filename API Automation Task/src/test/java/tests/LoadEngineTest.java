@@ -0,0 +1,90 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import load.LoadEngine;
+import load.LoadProfile;
+import load.LoadResult;
+
+/**
+ * Test class for the virtual-thread load engine.
+ * Uses in-memory scenarios so the engine's scheduling can be verified without a server.
+ */
+@Listeners({AllureTestNg.class})
+public class LoadEngineTest {
+
+    /**
+     * Verifies that every virtual user runs exactly the configured number of iterations.
+     */
+    @Test
+    public void testIterationsPerUser() {
+        LongAdder calls = new LongAdder();
+        LoadResult result = new LoadEngine(new LoadProfile(50, 0, 60, 5))
+                .run(userId -> calls::increment);
+
+        assertEquals(result.iterations(), 250);
+        assertEquals(calls.sum(), 250);
+        assertEquals(result.errors(), 0);
+    }
+
+    /**
+     * Verifies that failing iterations are counted as errors and the user keeps iterating.
+     */
+    @Test
+    public void testErrorsAreCountedAndUsersContinue() {
+        LoadResult result = new LoadEngine(new LoadProfile(4, 0, 60, 10))
+                .run(userId -> () -> {
+                    throw new IllegalStateException("boom");
+                });
+
+        assertEquals(result.iterations(), 40);
+        assertEquals(result.errors(), 40);
+    }
+
+    /**
+     * Verifies that an endless run stops once the duration has elapsed.
+     */
+    @Test
+    public void testDurationBoundsEndlessRun() {
+        LoadResult result = new LoadEngine(new LoadProfile(20, 0, 1, -1))
+                .run(userId -> () -> Thread.sleep(10));
+
+        assertTrue(result.elapsed().toMillis() < 3000, "Run took " + result.elapsed().toMillis() + " ms");
+        assertTrue(result.iterations() > 0);
+    }
+
+    /**
+     * Verifies that a stop requested before the run starts is not lost.
+     */
+    @Test
+    public void testStopBeforeRun() {
+        LoadEngine engine = new LoadEngine(new LoadProfile(5, 0, 60, -1));
+        engine.stop();
+        LoadResult result = engine.run(userId -> () -> Thread.sleep(10));
+
+        assertEquals(result.iterations(), 0);
+        assertTrue(result.elapsed().toMillis() < 3000, "Run took " + result.elapsed().toMillis() + " ms");
+    }
+
+    /**
+     * Verifies that ten thousand blocked virtual users can be active at the same time,
+     * which a platform-thread-per-user model cannot sustain in a default-sized JVM.
+     */
+    @Test
+    public void testTensOfThousandsOfConcurrentUsers() {
+        int users = 20_000;
+        LoadResult result = new LoadEngine(new LoadProfile(users, 0, 60, 1))
+                .run(userId -> () -> Thread.sleep(1000));
+
+        assertEquals(result.iterations(), users);
+        assertEquals(result.peakUsers(), users);
+        assertTrue(result.elapsed().toMillis() < 10_000, "Run took " + result.elapsed().toMillis() + " ms");
+    }
+}
@@ -0,0 +1,111 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import utils.LogAppender;
+
+/**
+ * Test class for the in-memory LogAppender.
+ * Verifies that captured logs are scoped to the logging thread and bounded in size.
+ */
+@Listeners({AllureTestNg.class})
+public class LogAppenderTest {
+
+    /** Appender under test, created with the default capacity of 256 events and 1024 bytes per event */
+    private final LogAppender appender = LogAppender.createAppender("LogAppenderTest", 256, 1024);
+
+    /**
+     * Verifies that parallel threads only see their own log events.
+     *
+     * @throws Exception if a worker thread fails
+     */
+    @Test
+    public void testLogsAreScopedToCallingThread() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                String name = "worker-" + t;
+                results.add(executor.submit(() -> {
+                    LogAppender.clearLogs();
+                    for (int i = 0; i < 100; i++) {
+                        appender.append(event(name + " message " + i));
+                    }
+                    return LogAppender.getLogs();
+                }));
+            }
+            for (int t = 0; t < 8; t++) {
+                String logs = results.get(t).get();
+                assertEquals(logs.lines().count(), 100);
+                assertTrue(logs.lines().allMatch(line -> line.startsWith("worker-")));
+                assertFalse(logs.contains("worker-" + ((t + 1) % 8) + " "), "Logs leaked between threads");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Verifies that the oldest events are dropped once the ring is full.
+     */
+    @Test
+    public void testOldestEventsAreDropped() {
+        LogAppender.clearLogs();
+        for (int i = 0; i < 300; i++) {
+            appender.append(event("message " + i));
+        }
+        String logs = LogAppender.getLogs();
+
+        assertEquals(logs.lines().count(), 256);
+        assertTrue(logs.startsWith("message 44" + System.lineSeparator()), logs.substring(0, 20));
+        assertTrue(logs.endsWith("message 299" + System.lineSeparator()));
+    }
+
+    /**
+     * Verifies that oversized events are truncated instead of growing the buffer and keep their line separator.
+     */
+    @Test
+    public void testOversizedEventIsTruncated() {
+        LogAppender.clearLogs();
+        appender.append(event("x".repeat(5000)));
+        appender.append(event("after"));
+
+        String logs = LogAppender.getLogs();
+        assertEquals(logs.length(), 1024 + ("after" + System.lineSeparator()).length());
+        assertTrue(logs.endsWith("after" + System.lineSeparator()));
+        List<String> lines = logs.lines().toList();
+        assertEquals(lines.size(), 2);
+        assertTrue(lines.get(0).endsWith("xxx"), lines.get(0));
+        assertTrue(lines.get(1).endsWith("after"), lines.get(1));
+    }
+
+    /**
+     * Creates an INFO log event carrying the given message.
+     *
+     * @param message The log message
+     * @return LogEvent for the message
+     */
+    private static LogEvent event(String message) {
+        return Log4jLogEvent.newBuilder()
+                .setLoggerName("tests.LogAppenderTest")
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage(message))
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.qameta.allure.testng.AllureTestNg;
+import utils.PayloadTemplate;
+
+/**
+ * Test class for the pre-compiled PayloadTemplate.
+ * Verifies that rendered payloads are valid, correctly escaped JSON and that a renderer reuses its buffers.
+ */
+@Listeners({AllureTestNg.class})
+public class PayloadTemplateTest {
+
+    /** Parser used to check the rendered payloads */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /** Template under test */
+    private final PayloadTemplate template = PayloadTemplate.compile("{\"name\":\"${name}\",\"job\":\"${job}\"}");
+
+    /**
+     * Verifies that a payload renders to the same bytes as the literal JSON.
+     */
+    @Test
+    public void testRendersTemplate() {
+        byte[] payload = template.render("John Doe", "QA Engineer");
+
+        assertEquals(new String(payload, StandardCharsets.UTF_8), "{\"name\":\"John Doe\",\"job\":\"QA Engineer\"}");
+        assertEquals(template.fields(), List.of("name", "job"));
+    }
+
+    /**
+     * Verifies that quotes, backslashes, control characters, non-ASCII text and surrogates survive a JSON round trip.
+     *
+     * @throws IOException if a payload is not valid JSON
+     */
+    @Test
+    public void testEscapesValues() throws IOException {
+        String[] values = {
+                "say \"hi\"", "back\\slash", "line\nbreak\ttab\r\b\f", "\u0000\u001f", "Jürgen été",
+                "日本語", "emoji 😀", "lone \ud83d surrogate", "  ", ""
+        };
+        for (String value : values) {
+            Map<?, ?> parsed = objectMapper.readValue(template.render(value, value), Map.class);
+            assertEquals(parsed.get("name"), value, "Round trip of " + value);
+            assertEquals(parsed.get("job"), value, "Round trip of " + value);
+        }
+    }
+
+    /**
+     * Verifies that random strings of ASCII and BMP characters survive a JSON round trip.
+     *
+     * @throws IOException if a payload is not valid JSON
+     */
+    @Test
+    public void testRoundTripsRandomValues() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder value = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int c = 0; c < length; c++) {
+                value.append((char) (random.nextBoolean() ? random.nextInt(0x80) : random.nextInt(0xD800)));
+            }
+            Map<?, ?> parsed = objectMapper.readValue(template.render(value, "job"), Map.class);
+            assertEquals(parsed.get("name"), value.toString());
+        }
+    }
+
+    /**
+     * Verifies that a renderer reuses its array for payloads of the same length, while other renderers and
+     * one-off renders of the template get arrays of their own.
+     */
+    @Test
+    public void testReusesBuffersForSameLength() {
+        PayloadTemplate.Renderer renderer = template.renderer();
+        byte[] first = renderer.render("John Doe", "QA Engineer");
+        byte[] other = template.renderer().render("John Doe", "QA Engineer");
+        byte[] oneOff = template.render("John Doe", "QA Engineer");
+        byte[] second = renderer.render("Jane Roe", "QA Engineer");
+
+        assertSame(second, first);
+        assertEquals(new String(second, StandardCharsets.UTF_8), "{\"name\":\"Jane Roe\",\"job\":\"QA Engineer\"}");
+        assertNotSame(other, first);
+        assertNotSame(oneOff, first);
+        assertEquals(new String(other, StandardCharsets.UTF_8), "{\"name\":\"John Doe\",\"job\":\"QA Engineer\"}");
+    }
+
+    /**
+     * Verifies that payloads larger than the initial buffer are rendered completely.
+     *
+     * @throws IOException if the payload is not valid JSON
+     */
+    @Test
+    public void testGrowsForLargeValues() throws IOException {
+        String name = "\"".repeat(5000);
+
+        Map<?, ?> parsed = objectMapper.readValue(template.render(name, "job"), Map.class);
+        assertEquals(parsed.get("name"), name);
+    }
+
+    /**
+     * Verifies that a wrong number of values and unclosed placeholders are rejected.
+     */
+    @Test
+    public void testRejectsInvalidUse() {
+        assertThrows(IllegalArgumentException.class, () -> template.render("only name"));
+        assertThrows(IllegalArgumentException.class, () -> template.render("a", "b", "c"));
+        assertThrows(IllegalArgumentException.class, () -> template.renderer().render("only name"));
+        assertThrows(IllegalArgumentException.class, () -> PayloadTemplate.compile("{\"name\":\"${name\"}"));
+    }
+}
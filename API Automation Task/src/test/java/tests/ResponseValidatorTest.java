@@ -0,0 +1,80 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import utils.ResponseValidator;
+
+/**
+ * Test class for the streaming response validator.
+ */
+@Listeners({AllureTestNg.class})
+public class ResponseValidatorTest {
+
+    /** Validator of the create-user response fields */
+    private static final ResponseValidator CREATED_USER = ResponseValidator.require("name", "job", "id", "createdAt");
+
+    /**
+     * Verifies that a created-user response with the expected values passes, whatever the field order
+     * and nested values around the fields.
+     */
+    @Test
+    public void testValidResponse() {
+        byte[] body = bytes("{\"meta\":{\"name\":\"x\",\"tags\":[1,{\"job\":null}]},\"id\":\"42\",\"job\":\"QA Engineer\","
+                + "\"createdAt\":\"2024-01-01T00:00:00Z\",\"name\":\"Jürgen \\\"JD\\\" Doe\"}");
+
+        assertNull(CREATED_USER.expect("name", "Jürgen \"JD\" Doe").expect("job", "QA Engineer").check(body));
+    }
+
+    /**
+     * Verifies that validation stops once every field is found, so trailing content is never read.
+     */
+    @Test
+    public void testStopsAtLastRequiredField() {
+        byte[] body = bytes("{\"name\":\"a\",\"job\":\"b\",\"id\":\"1\",\"createdAt\":\"t\",\"rest\": not json at all");
+
+        assertNull(CREATED_USER.check(body));
+        assertEquals(ResponseValidator.value(body, "id"), "1");
+    }
+
+    /**
+     * Verifies the failure descriptions for missing, null and unexpected fields and for malformed bodies.
+     */
+    @Test
+    public void testFailures() {
+        assertEquals(CREATED_USER.check(bytes("{\"name\":\"a\",\"job\":\"b\"}")), "Missing fields [id, createdAt]");
+        assertEquals(CREATED_USER.check(bytes("{\"name\":null}")), "Field name is null");
+        assertEquals(CREATED_USER.expect("job", "QA").check(bytes("{\"job\":\"Dev\"}")), "Field job was 'Dev' but expected 'QA'");
+        assertEquals(CREATED_USER.expect("id", "7").check(bytes("{\"id\":7,\"name\":1,\"job\":true,\"createdAt\":[]}")), null);
+        assertEquals(CREATED_USER.check(bytes("[]")), "Expected a JSON object");
+        assertEquals(CREATED_USER.check(bytes("{\"name\":")).startsWith("Malformed JSON"), true);
+        assertThrows(IllegalStateException.class, () -> CREATED_USER.validate(bytes("{}")));
+        assertThrows(IllegalArgumentException.class, () -> CREATED_USER.expect("token", "x"));
+        assertThrows(IllegalArgumentException.class, () -> ResponseValidator.require("id", "id"));
+    }
+
+    /**
+     * Verifies that single top-level values are read, and nested or null ones are not.
+     */
+    @Test
+    public void testValue() {
+        byte[] body = bytes("{\"user\":{\"access_token\":\"nested\"},\"access_token\":\"abc.def.ghi\",\"expires_in\":300,\"scope\":null}");
+
+        assertEquals(ResponseValidator.value(body, "access_token"), "abc.def.ghi");
+        assertEquals(ResponseValidator.value(body, "expires_in"), "300");
+        assertNull(ResponseValidator.value(body, "scope"));
+        assertNull(ResponseValidator.value(body, "user"));
+        assertNull(ResponseValidator.value(body, "refresh_token"));
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
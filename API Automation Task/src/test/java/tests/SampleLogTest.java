@@ -0,0 +1,199 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import load.LoadEngine;
+import load.LoadProfile;
+import load.LoadResult;
+import load.LoginInvoiceScenario;
+import load.SampleLog;
+import load.SampleLogWriter;
+import load.SampleReport;
+import stub.StubServer;
+
+/**
+ * Test class for the binary sample log: concurrent writing and reading back, the size per sample, the HTML
+ * report and JTL export, and logging the login → invoice scenario.
+ */
+@Listeners({AllureTestNg.class})
+public class SampleLogTest {
+
+    /** Number of recording threads */
+    private static final int THREADS = 8;
+
+    /** Samples recorded per thread */
+    private static final int SAMPLES_PER_THREAD = 20_000;
+
+    /** Directory of the log and report files */
+    private Path directory;
+
+    /**
+     * Creates the directory shared by the tests.
+     *
+     * @throws IOException if the directory cannot be created
+     */
+    @BeforeClass
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("sample-log");
+    }
+
+    /**
+     * Deletes the log and report files.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    @AfterClass(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Verifies that samples recorded by concurrent virtual threads are all read back intact and take
+     * only a few bytes each.
+     *
+     * @throws Exception if the log cannot be written or read
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        Path file = directory.resolve("round-trip.bin");
+        long start = System.currentTimeMillis();
+        try (SampleLogWriter writer = new SampleLogWriter(file)) {
+            int login = writer.label("login");
+            int invoice = writer.label("invoice");
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                threads.add(Thread.ofVirtual().start(() -> {
+                    for (int i = 0; i < SAMPLES_PER_THREAD; i++) {
+                        writer.record(i % 10 == 0 ? login : invoice, start + i / 20, (1_000 + i % 500) * 1_000L,
+                                120 + i % 7, i % 100 == 0 ? 500 : 200);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(writer.samples(), (long) THREADS * SAMPLES_PER_THREAD);
+        }
+
+        Map<String, LongAdder> labels = new HashMap<>();
+        long[] sums = new long[4];
+        long samples = SampleLog.read(file, sample -> {
+            labels.computeIfAbsent(sample.label(), label -> new LongAdder()).increment();
+            sums[0] += sample.latencyMicros();
+            sums[1] += sample.bytes();
+            sums[2] += sample.success() ? 0 : 1;
+            sums[3] += sample.epochMillis() - start;
+        });
+
+        int total = THREADS * SAMPLES_PER_THREAD;
+        long latency = 0;
+        long bytes = 0;
+        long time = 0;
+        for (int i = 0; i < SAMPLES_PER_THREAD; i++) {
+            latency += 1_000 + i % 500;
+            bytes += 120 + i % 7;
+            time += i / 20;
+        }
+        assertEquals(samples, total);
+        assertEquals(labels.get("login").sum(), total / 10);
+        assertEquals(labels.get("invoice").sum(), total - total / 10);
+        assertEquals(sums[0], latency * THREADS);
+        assertEquals(sums[1], bytes * THREADS);
+        assertEquals(sums[2], total / 100);
+        assertEquals(sums[3], time * THREADS);
+        double bytesPerSample = (double) Files.size(file) / total;
+        assertTrue(bytesPerSample < 4, bytesPerSample + " bytes per sample");
+    }
+
+    /**
+     * Verifies the HTML report and the JTL export of a log, including the escaping of labels.
+     *
+     * @throws IOException if the files cannot be written or read
+     */
+    @Test
+    public void testReports() throws IOException {
+        Path file = directory.resolve("report.bin");
+        long start = System.currentTimeMillis();
+        try (SampleLogWriter writer = new SampleLogWriter(file)) {
+            int plain = writer.label("login");
+            int special = writer.label("<cart>, \"big\"");
+            for (int i = 0; i < 1_000; i++) {
+                writer.record(i % 2 == 0 ? plain : special, start + i * 10L, (i + 1) * 10_000_000L, 64,
+                        i % 50 == 0 ? 0 : 201);
+            }
+        }
+
+        Path html = directory.resolve("report.html");
+        assertEquals(SampleReport.writeHtml(html, List.of(file)), 1_000);
+        String report = Files.readString(html);
+        assertEquals(report.split("<svg", -1).length - 1, 3);
+        assertTrue(report.contains("<td>login</td><td>500</td><td>20</td>"), report);
+        assertTrue(report.contains("&lt;cart&gt;, &quot;big&quot;"));
+        assertFalse(report.contains("<cart>"));
+
+        Path jtl = directory.resolve("report.jtl");
+        assertEquals(SampleReport.writeJtl(jtl, List.of(file)), 1_000);
+        List<String> lines = Files.readAllLines(jtl);
+        assertEquals(lines.size(), 1_001);
+        assertEquals(lines.get(0), "timeStamp,elapsed,label,responseCode,success,bytes");
+        assertEquals(lines.get(1), start + ",10,login,0,false,64");
+        assertEquals(lines.get(2), (start + 10) + ",20,\"<cart>, \"\"big\"\"\",201,true,64");
+    }
+
+    /**
+     * Verifies that the login → invoice scenario logs every request it sends.
+     *
+     * @throws IOException if the stub cannot be bound or the log cannot be written or read
+     */
+    @Test
+    public void testScenarioLog() throws IOException {
+        Path file = directory.resolve("scenario.bin");
+        LoadResult result;
+        try (StubServer stub = new StubServer().start(); SampleLogWriter writer = new SampleLogWriter(file)) {
+            result = new LoadEngine(new LoadProfile(4, 0, 60, 25))
+                    .run(new LoginInvoiceScenario(stub.baseUrl()).logTo(writer));
+        }
+
+        Map<String, Integer> statuses = new HashMap<>();
+        long samples = SampleLog.read(file, sample -> statuses.merge(sample.label() + " " + sample.status(), 1, Integer::sum));
+        assertEquals(result.errors(), 0);
+        assertEquals(samples, 200);
+        assertEquals(statuses, Map.of("login 200", 100, "invoice 201", 100));
+    }
+
+    /**
+     * Verifies that a file which is not a sample log is rejected.
+     *
+     * @throws IOException if the test file cannot be written
+     */
+    @Test
+    public void testRejectsInvalidFile() throws IOException {
+        Path file = directory.resolve("invalid.bin");
+        Files.writeString(file, "timeStamp,elapsed,label\n");
+
+        assertThrows(IOException.class, () -> SampleLog.read(file, sample -> { }));
+    }
+}
@@ -0,0 +1,227 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import load.DataFeed;
+import load.DataFeedGenerator;
+import load.LoadEngine;
+import load.LoadProfile;
+import load.LoadResult;
+import load.LoginInvoiceScenario;
+import load.TokenCache;
+import stub.LatencyDistribution;
+import stub.StubServer;
+import utils.RequestSpecBuilderUtil;
+
+/**
+ * Test class for the embedded stub server and the load engine scenarios running against it.
+ */
+@Listeners({AllureTestNg.class})
+public class StubServerTest {
+
+    /** Stub server shared by all tests of the class */
+    private StubServer stub;
+
+    /**
+     * Starts the stub server on an ephemeral port.
+     *
+     * @throws IOException if the server cannot be bound
+     */
+    @BeforeClass
+    public void startStub() throws IOException {
+        stub = new StubServer().start();
+    }
+
+    /**
+     * Resets latency, error and payload injection after each test.
+     */
+    @AfterMethod(alwaysRun = true)
+    public void resetStub() {
+        stub.latency(LatencyDistribution.NONE).errorRate(0).payloadBytes(0);
+    }
+
+    /**
+     * Stops the stub server.
+     */
+    @AfterClass(alwaysRun = true)
+    public void stopStub() {
+        stub.close();
+    }
+
+    /**
+     * Verifies that user creation echoes the posted fields with an id and creation time like reqres.
+     */
+    @Test
+    public void testCreateUserEchoesFields() {
+        Response response = post("/api/users", "{\n  \"name\": \"John Doe\",\n  \"job\": \"QA Engineer\"\n}");
+
+        assertEquals(response.getStatusCode(), 201);
+        assertEquals(response.jsonPath().getString("name"), "John Doe");
+        assertEquals(response.jsonPath().getString("job"), "QA Engineer");
+        assertNotNull(response.jsonPath().getString("id"));
+        assertNotNull(response.jsonPath().getString("createdAt"));
+    }
+
+    /**
+     * Verifies that login issues a JWT-shaped token expiring after the token lifetime
+     * and that invoices require it.
+     */
+    @Test
+    public void testLoginTokenAuthorizesInvoice() {
+        Response login = post("/users/login", "{\"email\":\"customer@practicesoftwaretesting.com\",\"password\":\"welcome01\"}");
+        assertEquals(login.getStatusCode(), 200);
+        String token = login.jsonPath().getString("access_token");
+        String payload = new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+        long exp = Long.parseLong(payload.replaceAll(".*\"exp\":(\\d+).*", "$1"));
+        assertTrue(exp > Instant.now().getEpochSecond(), "Token already expired: " + payload);
+
+        assertEquals(post("/invoices", "{}").getStatusCode(), 401);
+        Response invoice = RestAssured.given()
+                .spec(RequestSpecBuilderUtil.getRequestSpec(stub.baseUrl()))
+                .header("Authorization", "Bearer " + token)
+                .body("{\"cart_id\":\"1\"}")
+                .post("/invoices");
+        assertEquals(invoice.getStatusCode(), 201);
+        assertTrue(invoice.jsonPath().getString("invoice_number").startsWith("INV-"));
+    }
+
+    /**
+     * Verifies latency, error and payload size injection.
+     */
+    @Test
+    public void testInjection() {
+        stub.latency(LatencyDistribution.fixed(100));
+        long start = System.nanoTime();
+        post("/api/users", "{}");
+        assertTrue(System.nanoTime() - start >= 100_000_000L, "Latency was not injected");
+
+        stub.latency(LatencyDistribution.NONE).payloadBytes(10_000);
+        assertTrue(post("/api/users", "{}").asByteArray().length > 10_000, "Payload was not padded");
+
+        stub.errorRate(1);
+        assertEquals(post("/api/users", "{}").getStatusCode(), 500);
+    }
+
+    /**
+     * Verifies that the JMeter login → invoice flow runs error-free on the load engine against the stub.
+     */
+    @Test
+    public void testLoginInvoiceScenarioAgainstStub() {
+        long logins = stub.requestCount(StubServer.LOGIN_PATH);
+        long invoices = stub.requestCount(StubServer.INVOICES_PATH);
+
+        LoadResult result = new LoadEngine(new LoadProfile(20, 0, 60, 10))
+                .run(new LoginInvoiceScenario(stub.baseUrl()));
+
+        assertEquals(result.errors(), 0);
+        assertEquals(result.iterations(), 200);
+        assertEquals(stub.requestCount(StubServer.LOGIN_PATH) - logins, 200);
+        assertEquals(stub.requestCount(StubServer.INVOICES_PATH) - invoices, 200);
+    }
+
+    /**
+     * Verifies that the scenario logs in as a different customer of the data feed on every iteration.
+     *
+     * @throws IOException if the feed cannot be written or mapped
+     */
+    @Test
+    public void testLoginInvoiceScenarioWithDataFeed() throws IOException {
+        Path file = Files.createTempFile("customers", ".feed");
+        try {
+            DataFeedGenerator.generate(file, 1_000, 42);
+            DataFeed feed = DataFeed.open(file);
+            long logins = stub.requestCount(StubServer.LOGIN_PATH);
+
+            LoadResult result = new LoadEngine(new LoadProfile(10, 0, 60, 150))
+                    .run(new LoginInvoiceScenario(stub.baseUrl(), feed, 10));
+
+            assertEquals(result.errors(), 0);
+            assertEquals(result.iterations(), 1_500);
+            assertEquals(stub.requestCount(StubServer.LOGIN_PATH) - logins, 1_500);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that with a token cache the scenario logs in once and then only creates invoices.
+     */
+    @Test
+    public void testLoginInvoiceScenarioWithTokenCache() {
+        long logins = stub.requestCount(StubServer.LOGIN_PATH);
+        long invoices = stub.requestCount(StubServer.INVOICES_PATH);
+        TokenCache tokens = new TokenCache(Duration.ofSeconds(30), 0);
+
+        LoadResult result = new LoadEngine(new LoadProfile(20, 0, 60, 10))
+                .run(new LoginInvoiceScenario(stub.baseUrl(), null, 20, tokens));
+
+        assertEquals(result.errors(), 0);
+        assertEquals(result.iterations(), 200);
+        assertEquals(stub.requestCount(StubServer.LOGIN_PATH) - logins, 1);
+        assertEquals(stub.requestCount(StubServer.INVOICES_PATH) - invoices, 200);
+        assertEquals(tokens.requests(), 200);
+        assertEquals(tokens.logins(), 1);
+    }
+
+    /**
+     * Verifies that a run with injected errors reports them as failed iterations.
+     */
+    @Test
+    public void testInjectedErrorsFailIterations() {
+        stub.errorRate(1);
+
+        LoadResult result = new LoadEngine(new LoadProfile(5, 0, 60, 4))
+                .run(new LoginInvoiceScenario(stub.baseUrl()));
+
+        assertEquals(result.errors(), 20);
+    }
+
+    /**
+     * Verifies that a uniform latency without both bounds or with reversed bounds is rejected when it is parsed.
+     */
+    @Test
+    public void testInvalidUniformLatencyIsRejected() {
+        IllegalArgumentException missing = expectThrows(IllegalArgumentException.class,
+                () -> LatencyDistribution.parse("uniform:10"));
+        IllegalArgumentException reversed = expectThrows(IllegalArgumentException.class,
+                () -> LatencyDistribution.parse("uniform:50-10"));
+
+        assertEquals(missing.getMessage(), "Expected uniform:<min>-<max> but got uniform:10");
+        assertTrue(reversed.getMessage().startsWith("Uniform latency bounds are reversed"), reversed.getMessage());
+        assertNotNull(LatencyDistribution.parse("uniform:10-10"));
+    }
+
+    /**
+     * Posts a JSON body to the stub.
+     *
+     * @param path The endpoint path
+     * @param body The JSON body
+     * @return Response of the stub
+     */
+    private Response post(String path, String body) {
+        return RestAssured.given()
+                .spec(RequestSpecBuilderUtil.getRequestSpec(stub.baseUrl()))
+                .body(body)
+                .post(path);
+    }
+}
@@ -0,0 +1,166 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+import io.qameta.allure.testng.AllureTestNg;
+import load.TokenCache;
+
+/**
+ * Test class for the expiry-aware access token cache.
+ * Uses JWT-shaped tokens built in memory so expiry, refresh and single-flight logins can be verified
+ * without a server.
+ */
+@Listeners({AllureTestNg.class})
+public class TokenCacheTest {
+
+    /**
+     * Verifies that the {@code exp} claim is read from a JWT and that other tokens have no expiry.
+     */
+    @Test
+    public void testExpiryIsDecoded() {
+        assertEquals(TokenCache.expiry(jwt(1_700_000_000L)), 1_700_000_000L);
+        assertEquals(TokenCache.expiry("opaque-token"), -1);
+        assertEquals(TokenCache.expiry("a.b.c"), -1);
+    }
+
+    /**
+     * Verifies that a cached token is returned without logging in again.
+     *
+     * @throws Exception if the login fails
+     */
+    @Test
+    public void testCachedTokenAvoidsLogin() throws Exception {
+        TokenCache tokens = new TokenCache(Duration.ofSeconds(30), 0);
+        AtomicInteger logins = new AtomicInteger();
+        String token = jwt(epochSeconds() + 300);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(tokens.token("customer", () -> {
+                logins.incrementAndGet();
+                return token;
+            }), token);
+        }
+
+        assertEquals(logins.get(), 1);
+        assertEquals(tokens.cachedToken("customer"), token);
+        assertEquals(tokens.freshLoginRatio(), 0.01);
+        tokens.invalidate("customer");
+        assertNull(tokens.cachedToken("customer"));
+    }
+
+    /**
+     * Verifies that concurrent requests for a missing token share a single login.
+     *
+     * @throws Exception if a login fails
+     */
+    @Test
+    public void testConcurrentRequestsShareOneLogin() throws Exception {
+        TokenCache tokens = new TokenCache(Duration.ofSeconds(30), 0);
+        AtomicInteger logins = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        String token = jwt(epochSeconds() + 300);
+        List<Future<String>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                results.add(executor.submit(() -> tokens.token("customer", () -> {
+                    logins.incrementAndGet();
+                    release.await();
+                    return token;
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals(result.get(), token);
+            }
+        }
+
+        assertEquals(logins.get(), 1);
+    }
+
+    /**
+     * Verifies that a short-lived token is used for about half of its lifetime and then refreshed
+     * before it expires.
+     *
+     * @throws Exception if the login fails
+     */
+    @Test
+    public void testTokenIsRefreshedAheadOfExpiry() throws Exception {
+        TokenCache tokens = new TokenCache(Duration.ofSeconds(30), 0);
+        AtomicInteger logins = new AtomicInteger();
+        // Valid for two to three seconds, shorter than the refresh window
+        TokenCache.Login login = () -> jwt(epochSeconds() + 3, logins.incrementAndGet());
+
+        String first = tokens.token("customer", login);
+        assertEquals(tokens.token("customer", login), first);
+        Thread.sleep(1_100);
+        String second = tokens.token("customer", login);
+
+        assertEquals(logins.get(), 2);
+        assertNotEquals(first, second);
+    }
+
+    /**
+     * Verifies that a fresh-login ratio of 1 logs in on every request and that invalid ratios are rejected.
+     *
+     * @throws Exception if the login fails
+     */
+    @Test
+    public void testFreshLoginRatio() throws Exception {
+        TokenCache tokens = new TokenCache(Duration.ofSeconds(30), 1);
+        String token = jwt(epochSeconds() + 300);
+
+        for (int i = 0; i < 10; i++) {
+            tokens.token("customer", () -> token);
+        }
+
+        assertEquals(tokens.logins(), 10);
+        assertEquals(tokens.freshLoginRatio(), 1.0);
+        assertThrows(IllegalArgumentException.class, () -> new TokenCache(Duration.ZERO, 1.5));
+    }
+
+    /**
+     * Builds an unsigned JWT-shaped token.
+     *
+     * @param exp The expiry in epoch seconds
+     * @return The token
+     */
+    private static String jwt(long exp) {
+        return jwt(exp, 0);
+    }
+
+    /**
+     * Builds an unsigned JWT-shaped token with a token id.
+     *
+     * @param exp The expiry in epoch seconds
+     * @param id The token id, to tell tokens with the same expiry apart
+     * @return The token
+     */
+    private static String jwt(long exp, int id) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(("{\"jti\":" + id + ",\"exp\":" + exp + "}").getBytes(StandardCharsets.UTF_8)) + ".";
+    }
+
+    private static long epochSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -1,33 +1,129 @@
 package pages;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.ElementNotInteractableException;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.FluentWait;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 public class BasePage {
     protected WebDriver driver;
     protected final int TIMOUTINSECONDS = 20;
+    protected final int POLLINGINMILLIS = 100;
+
+    // One wait per page object; stale elements are re-resolved on the next poll
+    protected final WebDriverWait wait;
+
+    // Sets every field through the native value setter (so framework value tracking sees the change) and fires
+    // the events a user would; returns the indexes of fields it could not fill
+    private static final String FILL_FORM_SCRIPT = String.join("\n",
+            "var failed = [];",
+            "arguments[0].forEach(function (field, i) {",
+            "  var using = field[0], selector = field[1], value = field[2], el = null;",
+            "  try {",
+            "    if (using === 'css selector') { el = document.querySelector(selector); }",
+            "    else if (using === 'xpath') { el = document.evaluate(selector, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue; }",
+            "  } catch (e) { el = null; }",
+            "  if (!el || el.disabled || el.readOnly || !('value' in el)) { failed.push(i); return; }",
+            "  var setter = Object.getOwnPropertyDescriptor(Object.getPrototypeOf(el), 'value');",
+            "  el.focus();",
+            "  if (setter && setter.set) { setter.set.call(el, value); } else { el.value = value; }",
+            "  el.dispatchEvent(new Event('input', { bubbles: true }));",
+            "  el.dispatchEvent(new Event('change', { bubbles: true }));",
+            "  el.dispatchEvent(new Event('blur'));",
+            "  if (el.value !== value) { failed.push(i); }",
+            "});",
+            "return failed;");
+
+    // Collects page performance since the previous capture on this document: navigation timing, LCP and heap
+    // once per document load, then per call the resources loaded, layout shift and slowest interaction.
+    // Observers are registered with buffered: true so entries from before the first call are delivered too
+    private static final String PERFORMANCE_SCRIPT = String.join("\n",
+            "var done = arguments[arguments.length - 1];",
+            "var state = window.__perfState, fresh = !state;",
+            "if (fresh) {",
+            "  state = window.__perfState = { lcp: 0, cls: 0, inp: 0, resourceIndex: 0, observers: [] };",
+            "  try { performance.setResourceTimingBufferSize(1000); } catch (e) {}",
+            "  var observe = function (type, options, handle) {",
+            "    try {",
+            "      var observer = new PerformanceObserver(function (list) { list.getEntries().forEach(handle); });",
+            "      observer.observe(Object.assign({ type: type, buffered: true }, options));",
+            "      state.observers.push({ observer: observer, handle: handle });",
+            "    } catch (e) {}",
+            "  };",
+            "  observe('largest-contentful-paint', {}, function (e) { state.lcp = e.renderTime || e.loadTime || e.startTime; });",
+            "  observe('layout-shift', {}, function (e) { if (!e.hadRecentInput) { state.cls += e.value; } });",
+            "  observe('event', { durationThreshold: 16 }, function (e) { if (e.interactionId) { state.inp = Math.max(state.inp, e.duration); } });",
+            "}",
+            "var collect = function () {",
+            "  state.observers.forEach(function (o) { o.observer.takeRecords().forEach(o.handle); });",
+            "  var result = {};",
+            "  var navigation = performance.getEntriesByType('navigation')[0];",
+            "  if (fresh && navigation) {",
+            "    result.ttfbMs = navigation.responseStart;",
+            "    result.domContentLoadedMs = navigation.domContentLoadedEventEnd;",
+            "    result.loadMs = navigation.loadEventEnd;",
+            "    result.lcpMs = state.lcp;",
+            "  }",
+            "  var resources = performance.getEntriesByType('resource').slice(state.resourceIndex);",
+            "  state.resourceIndex += resources.length;",
+            "  result.resourceCount = resources.length;",
+            "  result.transferBytes = resources.reduce(function (sum, r) { return sum + (r.transferSize || 0); }, 0);",
+            "  result.slowestResourceMs = resources.reduce(function (max, r) { return Math.max(max, r.duration); }, 0);",
+            "  result.cls = state.cls;",
+            "  result.inpMs = state.inp;",
+            "  state.cls = 0;",
+            "  state.inp = 0;",
+            "  if (performance.memory) { result.heapMb = performance.memory.usedJSHeapSize / 1048576; }",
+            "  done(result);",
+            "};",
+            "if (fresh) { setTimeout(collect, 100); } else { collect(); }");
+
+    // WebDriver commands issued by page objects on the current thread
+    private static final ThreadLocal<long[]> commandCount = ThreadLocal.withInitial(() -> new long[1]);
 
     public BasePage(WebDriver driver) {
         this.driver = driver;
+        this.wait = new WebDriverWait(driver, Duration.ofSeconds(TIMOUTINSECONDS), Duration.ofMillis(POLLINGINMILLIS));
+        this.wait.ignoring(StaleElementReferenceException.class);
+    }
+
+    public static long getCommandCount() {
+        return commandCount.get()[0];
     }
 
-    protected  void waitForElementToBeVisible(By locator) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(TIMOUTINSECONDS));
-        wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+    public static void resetCommandCount() {
+        commandCount.get()[0] = 0;
     }
 
-        protected  void waitForElementToBeClickable(By locator) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(TIMOUTINSECONDS));
-        wait.until(ExpectedConditions.elementToBeClickable(locator));
+    protected static void countCommands(int commands) {
+        commandCount.get()[0] += commands;
+    }
+
+    // find + isDisplayed per poll, returns the element so callers do not look it up again
+    protected WebElement waitForElementToBeVisible(By locator) {
+        return wait.until(d -> {
+            WebElement element = find(locator);
+            countCommands(1);
+            return element.isDisplayed() ? element : null;
+        });
+    }
+
+    protected WebElement waitForElementToBeClickable(By locator) {
+        return wait.until(d -> {
+            WebElement element = find(locator);
+            countCommands(2);
+            return element.isDisplayed() && element.isEnabled() ? element : null;
+        });
     }
 
     public WebElement waitForElementFluently(By locator, WebDriver driver) {
@@ -36,26 +132,39 @@ public class BasePage {
                 .pollingEvery(Duration.ofMillis(200))
 //                .ignoring(TimeoutException.class)
                 .ignoring(StaleElementReferenceException.class)
-                .until(driver1 -> driver1.findElement(locator));
+                .until(driver1 -> {
+                    countCommands(1);
+                    return driver1.findElement(locator);
+                });
     }
 
-    protected void waitForElementsToBePresent(By locator) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(TIMOUTINSECONDS));
-        wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(locator));
+    protected List<WebElement> waitForElementsToBePresent(By locator) {
+        return wait.until(d -> {
+            countCommands(1);
+            List<WebElement> elements = d.findElements(locator);
+            return elements.isEmpty() ? null : elements;
+        });
     }
 
     protected void waitForElementsToBeInvisibile(By locator) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(TIMOUTINSECONDS));
-        wait.until(ExpectedConditions.invisibilityOfElementLocated(locator));
+        wait.until(d -> {
+            countCommands(1);
+            List<WebElement> elements = d.findElements(locator);
+            if (elements.isEmpty()) {
+                return true;
+            }
+            countCommands(1);
+            return !elements.get(0).isDisplayed();
+        });
     }
+
     protected WebElement findElement(By locator) {
-        waitForElementToBeVisible(locator);
-        return driver.findElement(locator);
+        return waitForElementToBeVisible(locator);
     }
 
     protected boolean ElementisDisplayed(By locator) {
         try {
-            driver.findElement(locator);
+            find(locator);
             return true;
         } catch (org.openqa.selenium.NoSuchElementException e) {
             return false;
@@ -64,29 +173,85 @@ public class BasePage {
     }
 
     protected List<WebElement> findElements(By locator) {
-        waitForElementsToBePresent(locator);
-        return driver.findElements(locator);
+        return waitForElementsToBePresent(locator);
     }
 
     protected void waitImplicitly (int duration) {
+        countCommands(1);
         driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(duration));
     }
 
     protected void reloadPage () {
+        countCommands(1);
         driver.navigate().refresh();
     }
 
     protected void clickElementWithJS(By locator) {
         WebElement element = findElement(locator);
         JavascriptExecutor js = (JavascriptExecutor) driver;
+        countCommands(1);
         js.executeScript("arguments[0].click();", element);
     }
 
+    // find + isEnabled + click per attempt; the click itself scrolls the element into view and fails
+    // when it is hidden or covered, in which case the whole sequence is retried until the timeout
     protected void clickElement(By locator) {
-        WebElement element = findElement(locator);
-        waitForElementsToBePresent(locator);
-        waitForElementToBeClickable(locator);
-        element.click();
+        wait.until(d -> {
+            WebElement element = find(locator);
+            countCommands(1);
+            if (!element.isEnabled()) {
+                return false;
+            }
+            try {
+                countCommands(1);
+                element.click();
+                return true;
+            } catch (ElementNotInteractableException e) {
+                return false;
+            }
+        });
+    }
 
+    // Fills all fields with one script execution once the first field is visible; fields the script cannot
+    // locate (non-CSS/XPath locators) or fill are typed natively
+    protected void fillForm(Map<By, String> values) {
+        List<By> locators = new ArrayList<>(values.keySet());
+        if (locators.isEmpty()) {
+            return;
+        }
+        List<List<String>> fields = new ArrayList<>();
+        for (By locator : locators) {
+            String using = null;
+            String selector = null;
+            if (locator instanceof By.Remotable remotable) {
+                By.Remotable.Parameters parameters = remotable.getRemoteParameters();
+                using = parameters.using();
+                selector = String.valueOf(parameters.value());
+            }
+            fields.add(Arrays.asList(using, selector, values.get(locator)));
+        }
+        waitForElementToBeVisible(locators.get(0));
+        countCommands(1);
+        List<?> failed = (List<?>) ((JavascriptExecutor) driver).executeScript(FILL_FORM_SCRIPT, fields);
+        for (Object index : failed) {
+            By locator = locators.get(((Number) index).intValue());
+            WebElement element = findElement(locator);
+            countCommands(2);
+            element.clear();
+            element.sendKeys(values.get(locator));
+        }
+    }
+
+    // One async script call; metric names are the keys of PERFORMANCE_SCRIPT's result
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> capturePerformance() {
+        countCommands(1);
+        Object metrics = ((JavascriptExecutor) driver).executeAsyncScript(PERFORMANCE_SCRIPT);
+        return metrics instanceof Map ? (Map<String, Object>) metrics : Map.of();
+    }
+
+    private WebElement find(By locator) {
+        countCommands(1);
+        return driver.findElement(locator);
     }
 }
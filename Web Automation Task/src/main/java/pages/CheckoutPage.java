@@ -1,5 +1,8 @@
 package pages;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.ui.Select;
@@ -33,16 +36,13 @@ public class CheckoutPage extends BasePage{
         By stateInput = By.id("state");
         By countryInput = By.id("country");
         By postalCodeInput = By.id("postal_code");
-        findElement(streetInput).clear();
-        findElement(streetInput).sendKeys(street);
-        findElement(cityInput).clear();
-        findElement(cityInput).sendKeys(city);
-        findElement(stateInput).clear();
-        findElement(stateInput).sendKeys(state);
-        findElement(countryInput).clear();
-        findElement(countryInput).sendKeys(country);
-        findElement(postalCodeInput).clear();
-        findElement(postalCodeInput).sendKeys(postal_code);
+        Map<By, String> billing = new LinkedHashMap<>();
+        billing.put(streetInput, street);
+        billing.put(cityInput, city);
+        billing.put(stateInput, state);
+        billing.put(countryInput, country);
+        billing.put(postalCodeInput, postal_code);
+        fillForm(billing);
         return this;
     }
 
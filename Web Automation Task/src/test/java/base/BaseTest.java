@@ -1,87 +1,171 @@
 package base;
 
-import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
+import org.testng.Assert;
+import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeSuite;
 
 import io.qameta.allure.Allure;
+import pages.BasePage;
 
 /**
  * Base test class providing common setup, teardown, and utility methods for Selenium WebDriver tests.
- * This class initializes the ChromeDriver, manages the WebDriver lifecycle, and provides helper methods
- * for attaching screenshots and logs to Allure reports.
+ * This class borrows a warm ChromeDriver session from the {@link DriverPool} for every test, returns it
+ * afterwards, and provides helper methods for attaching screenshots and logs to Allure reports.
+ * Every driver is confined to the thread running its test, so data provider rows and test methods can run
+ * in parallel without sharing a browser. The driver is also registered on the running ITestResult so
+ * listeners, which TestNG may call on another thread, can resolve the browser of a given test.
  */
 public class BaseTest {
     /** Logger instance for logging test execution details */
     protected static final Logger logger = LogManager.getLogger(BaseTest.class);
 
-    /** WebDriver instance for browser automation */
-    protected WebDriver driver;
+    /** Name of the ITestResult attribute holding the driver of a test */
+    public static final String DRIVER_ATTRIBUTE = "webdriver";
+
+    /** WebDriver instance of the test running on the current thread */
+    private static final ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+
+    /**
+     * Starts the configured number of browser sessions before the suite runs.
+     * Defaults to the pool size so every parallel data row finds a warm browser.
+     */
+    @BeforeSuite(alwaysRun = true)
+    public void prestartDrivers() {
+        DriverPool.shared().prestart(Integer.getInteger("driver.pool.prestart", Integer.getInteger("driver.pool.size", 4)));
+    }
 
     /**
-     * Initializes the Chrome WebDriver before each test method.
-     * Creates a new ChromeDriver instance if not already initialized and maximizes the browser window.
+     * Reports the pool metrics and quits all browser sessions after the suite, exports the command
+     * timings of the run to {@code target/command-timings.json} and the per-step browser performance to
+     * {@code target/performance-report.json}, then waits for pending screenshots to be written.
      */
-    @BeforeMethod
-    public void initializeDriver() {
-        if (driver == null) {
-            // Create new ChromeDriver instance
-            driver = new ChromeDriver();
-            // Maximize browser window for consistent test execution
-            driver.manage().window().maximize();
+    @AfterSuite(alwaysRun = true)
+    public void shutdownDrivers() {
+        logger.info("Driver pool: {}", DriverPool.shared().stats());
+        DriverPool.shared().shutdown();
+        CommandTimer.shared().export(Path.of("target", "command-timings.json"));
+        PerformanceReport.shared().export(Path.of("target", "performance-report.json"));
+        ScreenshotPipeline.shared().shutdown(60);
+    }
+
+    /**
+     * Borrows a WebDriver from the pool before each test method.
+     * Acquires a warm session for the current thread if not already initialized
+     * and registers the driver on the test result.
+     * @param result The result of the test method about to run
+     */
+    @BeforeMethod(alwaysRun = true)
+    public void initializeDriver(ITestResult result) {
+        WebDriver webDriver = driver.get();
+        if (webDriver == null) {
+            webDriver = DriverPool.shared().acquire();
+            driver.set(webDriver);
+        }
+        NetworkMonitor monitor = DriverPool.shared().networkMonitor(webDriver);
+        if (monitor != null) {
+            // Drop the traffic of the previous test and of the session reset
+            monitor.reset();
         }
+        TestLog.start(result.getName());
+        BasePage.resetCommandCount();
+        CommandTimer.shared().startTest();
+        PerformanceReport.shared().startTest();
+        ScreenshotPipeline.shared().startTest();
+        result.setAttribute(DRIVER_ATTRIBUTE, webDriver);
     }
 
     /**
-     * Cleans up the WebDriver after each test method.
-     * Quits the browser and sets the driver to null for proper cleanup.
+     * Returns the WebDriver to the pool after each test method.
+     * Reports the number of WebDriver commands issued by page objects, attaches the command timings, the
+     * browser performance metrics and the network traffic of the test when the browser profile monitors it, then the session
+     * is reset for the next test, or recycled if this test failed.
+     * @param result The result of the test method that just ran
      */
-    @AfterMethod
-    public void quitDriver() {
-        if (driver != null) {
-            // Close browser and clean up resources
-            driver.quit();
-            driver = null;
+    @AfterMethod(alwaysRun = true)
+    public void quitDriver(ITestResult result) {
+        WebDriver webDriver = driver.get();
+        if (webDriver != null) {
+            logger.info("Page object commands of {}: {}", result.getName(), BasePage.getCommandCount());
+            CommandTimer.shared().finishTest(result.getName());
+            PerformanceReport.shared().finishTest();
+            NetworkMonitor monitor = DriverPool.shared().networkMonitor(webDriver);
+            if (monitor != null) {
+                NetworkMonitor.Traffic traffic = monitor.reset();
+                logger.info("Network traffic of {}: {}", result.getName(), traffic);
+                Allure.addAttachment("Network Traffic", traffic.toString());
+            }
+            driver.remove();
+            result.removeAttribute(DRIVER_ATTRIBUTE);
+            DriverPool.shared().release(webDriver, result.getStatus() == ITestResult.FAILURE);
         }
+        TestLog.end();
+    }
+
+    /**
+     * Returns the WebDriver of the test running on the current thread.
+     * @return WebDriver instance, or null if no driver has been initialized on this thread
+     */
+    protected WebDriver getDriver() {
+        return driver.get();
     }
 
     /**
-     * Captures a screenshot of the current browser state and attaches it to the Allure report.
+     * Resolves the WebDriver that was used by the given test.
+     * @param result The test result to look up
+     * @return WebDriver instance of the test, or null if it has none or it has already been quit
+     */
+    public static WebDriver getDriver(ITestResult result) {
+        Object webDriver = result.getAttribute(DRIVER_ATTRIBUTE);
+        return webDriver instanceof WebDriver ? (WebDriver) webDriver : null;
+    }
+
+    /**
+     * Hands the current browser state to the screenshot pipeline after a step.
+     * Whether the screenshot is taken and attached depends on the {@link ScreenshotPipeline} policy.
      * @param name The name for the screenshot attachment
      */
     protected void attachScreenshot(String name) {
-        if (driver != null) {
-            // Capture screenshot as byte array
-            byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
-            // Attach screenshot to Allure report
-            Allure.addAttachment(name, "image/png", new ByteArrayInputStream(screenshot), "screenshot.png");
+        ScreenshotPipeline.shared().step(getDriver(), name);
+    }
+
+    /**
+     * Captures the browser performance after a step through the current page object and records it in the
+     * {@link PerformanceReport}. Budget violations are logged here and fail the test in
+     * {@link #assertPerformanceBudgets()}, so the scenario still runs to the end.
+     * Does nothing when capturing is disabled with {@code -Dperf.capture=false}.
+     * @param step The name of the step the metrics belong to
+     * @param page The page object the step ended on
+     */
+    protected void recordPerformance(String step, BasePage page) {
+        if (PerformanceReport.isEnabled()) {
+            PerformanceReport.shared().record(step, page.capturePerformance());
         }
     }
 
     /**
-     * Attaches the test execution log file to the Allure report for the specified step.
+     * Fails the test if any metric recorded by {@link #recordPerformance(String, BasePage)} exceeded its budget.
+     */
+    protected void assertPerformanceBudgets() {
+        List<String> violations = PerformanceReport.shared().violations();
+        if (!violations.isEmpty()) {
+            Assert.fail("Performance budgets exceeded:\n" + String.join("\n", violations));
+        }
+    }
+
+    /**
+     * Attaches the log lines written by the current test since its previous step to the Allure report.
      * @param stepName The name of the step for which logs are being attached
      */
     protected void attachLogs(String stepName) {
-        try {
-            // Locate the log file
-            File logFile = new File("target/test-logs/test.log");
-            if (logFile.exists()) {
-                // Attach log file to Allure report
-                Allure.addAttachment(stepName + " Logs", new FileInputStream(logFile));
-            }
-        } catch (FileNotFoundException e) {
-            // Silently ignore if log file is not found
-        }
+        TestLog.attachSinceLast(stepName + " Logs");
     }
 }
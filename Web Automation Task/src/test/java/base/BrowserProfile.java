@@ -0,0 +1,74 @@
+package base;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.openqa.selenium.chrome.ChromeOptions;
+
+/**
+ * Browser execution profiles selectable with the {@code browser.profile} system property.
+ * <ul>
+ *     <li>{@code default} - headed Chrome with a maximized window, every resource is loaded</li>
+ *     <li>{@code fast} - headless Chrome with a fixed small viewport; images, fonts and third-party
+ *     scripts matching {@code browser.blocked.urls} are blocked through the DevTools Network domain</li>
+ * </ul>
+ */
+public enum BrowserProfile {
+    DEFAULT,
+    FAST;
+
+    /** URL patterns blocked by the fast profile unless overridden by {@code browser.blocked.urls} */
+    private static final String DEFAULT_BLOCKED_URLS = String.join(",",
+            "*.png", "*.jpg", "*.jpeg", "*.gif", "*.webp", "*.svg", "*.ico",
+            "*.woff", "*.woff2", "*.ttf", "*.otf",
+            "*google-analytics.com*", "*googletagmanager.com*", "*doubleclick.net*",
+            "*facebook.net*", "*hotjar.com*", "*clarity.ms*");
+
+    /**
+     * Resolves the profile selected by the {@code browser.profile} system property.
+     * @return The selected profile, DEFAULT if the property is not set
+     */
+    public static BrowserProfile fromSystemProperty() {
+        return valueOf(System.getProperty("browser.profile", "default").trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Builds the Chrome options of this profile.
+     * @return ChromeOptions to start a session with
+     */
+    public ChromeOptions chromeOptions() {
+        ChromeOptions options = new ChromeOptions();
+        if (this == FAST) {
+            options.addArguments("--headless=new",
+                    "--window-size=" + System.getProperty("browser.window.size", "1280,800"),
+                    "--disable-extensions",
+                    "--mute-audio",
+                    "--no-first-run");
+        }
+        return options;
+    }
+
+    /**
+     * Returns the URL patterns this profile blocks.
+     * Patterns use the DevTools wildcard syntax, where {@code *} matches any sequence of characters.
+     * @return Blocked URL patterns, empty if nothing is blocked
+     */
+    public List<String> blockedUrls() {
+        if (this != FAST) {
+            return List.of();
+        }
+        return Arrays.stream(System.getProperty("browser.blocked.urls", DEFAULT_BLOCKED_URLS).split(","))
+                .map(String::trim)
+                .filter(pattern -> !pattern.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Tells whether the browser window should be maximized after startup.
+     * @return true for headed profiles
+     */
+    public boolean maximizeWindow() {
+        return this == DEFAULT;
+    }
+}
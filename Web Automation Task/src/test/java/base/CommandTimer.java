@@ -0,0 +1,244 @@
+package base;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import pages.BasePage;
+import utils.AttachmentWriter;
+
+/**
+ * WebDriverListener timing every WebDriver command of the decorated sessions.
+ * Each command (findElement, click, sendKeys, executeScript, getScreenshotAs, ...) is recorded into a
+ * histogram of its name and into a histogram of the page object that issued it, found by walking the stack
+ * for the nearest {@link BasePage} subclass; commands issued outside page objects are recorded as "test".
+ * Histograms are kept per test thread, so recording takes no locks, and merged into run totals when the
+ * test ends. Values are microseconds with two significant digits, which keeps the auto-resizing histograms
+ * small. Timing is on by default and can be disabled with {@code -Dcommand.timing=false}.
+ */
+public class CommandTimer implements WebDriverListener {
+    /** Logger instance for reporting the slowest commands of the run */
+    private static final Logger logger = LogManager.getLogger(CommandTimer.class);
+
+    /** Timer shared by all sessions of the JVM */
+    private static final CommandTimer shared = new CommandTimer();
+
+    /** Local calls that only return a decorated helper object and never reach the browser */
+    private static final Set<String> LOCAL_CALLS = Set.of(
+            "manage", "switchTo", "navigate", "timeouts", "window", "logs", "getWrappedDriver", "getWrappedElement");
+
+    /** Label of commands that were not issued by a page object */
+    private static final String NO_PAGE = "test";
+
+    /** Number of significant digits of the command histograms */
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    /** Stack walker resolving the page object issuing a command */
+    private static final StackWalker stackWalker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    /** Serializer of the exported timings */
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    /** Timings of the test running on each thread */
+    private final ThreadLocal<TestTimings> timings = ThreadLocal.withInitial(TestTimings::new);
+
+    /** Timings of all finished tests, guarded by this */
+    private final TestTimings total = new TestTimings();
+
+    /**
+     * Returns the timer shared by all sessions.
+     * @return The shared CommandTimer
+     */
+    public static CommandTimer shared() {
+        return shared;
+    }
+
+    /**
+     * Wraps a session so that all its commands are timed, unless timing is disabled.
+     * The decorated driver implements the same interfaces as the original one.
+     * @param driver The session to time
+     * @return The decorated session, or the session itself when timing is disabled
+     */
+    public WebDriver decorate(WebDriver driver) {
+        if (!Boolean.parseBoolean(System.getProperty("command.timing", "true"))) {
+            return driver;
+        }
+        return new EventFiringDecorator<>(this).decorate(driver);
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        TestTimings test = timings.get();
+        if (test.depth < test.starts.length) {
+            test.starts[test.depth] = System.nanoTime();
+        }
+        test.depth++;
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        record(method);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        record(method);
+    }
+
+    /**
+     * Starts a new test on the current thread, dropping timings recorded outside of a test.
+     */
+    public void startTest() {
+        TestTimings test = timings.get();
+        test.commands.clear();
+        test.pages.clear();
+    }
+
+    /**
+     * Ends the test on the current thread: adds its timings to the run totals and attaches them
+     * to the Allure report as JSON.
+     * @param testName The name of the test, used for logging
+     */
+    public void finishTest(String testName) {
+        TestTimings test = timings.get();
+        if (test.commands.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            total.add(test);
+        }
+        String json = gson.toJson(test.export());
+        AttachmentWriter.attachText("Command Timings", "application/json", ".json", json);
+        logger.debug("Command timings of {}: {}", testName, json);
+        test.commands.clear();
+        test.pages.clear();
+    }
+
+    /**
+     * Writes the run totals as JSON and logs the commands that took the most time overall.
+     * @param file The file to write the JSON export to
+     */
+    public synchronized void export(Path file) {
+        if (total.commands.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Map<String, Object>>> export = total.export();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                gson.toJson(export, writer);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write command timings to {}", file, e);
+        }
+        export.get("commands").entrySet().stream().limit(5).forEach(entry ->
+                logger.info("Command {}: {}", entry.getKey(), entry.getValue()));
+        logger.info("Command timings written to {}", file);
+    }
+
+    /**
+     * Records the duration of the call that is ending on the current thread.
+     * @param method The WebDriver method that was called
+     */
+    private void record(Method method) {
+        TestTimings test = timings.get();
+        test.depth--;
+        if (test.depth >= test.starts.length || method.getDeclaringClass() == Object.class
+                || LOCAL_CALLS.contains(method.getName())) {
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - test.starts[test.depth]);
+        test.commands.computeIfAbsent(method.getName(), name -> new Histogram(SIGNIFICANT_DIGITS)).recordValue(micros);
+        test.pages.computeIfAbsent(pageObject(), name -> new Histogram(SIGNIFICANT_DIGITS)).recordValue(micros);
+    }
+
+    /**
+     * Finds the page object issuing the current command.
+     * @return Simple name of the nearest BasePage subclass on the stack, or "test"
+     */
+    private static String pageObject() {
+        return stackWalker.walk(frames -> frames
+                .map(StackWalker.StackFrame::getDeclaringClass)
+                .filter(type -> type != BasePage.class && BasePage.class.isAssignableFrom(type))
+                .findFirst()
+                .map(Class::getSimpleName)
+                .orElse(NO_PAGE));
+    }
+
+    /**
+     * Command and page object histograms of one test or of the whole run.
+     */
+    private static final class TestTimings {
+        /** Latencies per command name in microseconds */
+        private final Map<String, Histogram> commands = new HashMap<>();
+
+        /** Latencies per page object in microseconds */
+        private final Map<String, Histogram> pages = new HashMap<>();
+
+        /** Start times of the calls in progress; decorated calls can nest */
+        private final long[] starts = new long[16];
+
+        /** Number of calls in progress */
+        private int depth;
+
+        void add(TestTimings other) {
+            other.commands.forEach((name, histogram) ->
+                    commands.computeIfAbsent(name, key -> new Histogram(SIGNIFICANT_DIGITS)).add(histogram));
+            other.pages.forEach((name, histogram) ->
+                    pages.computeIfAbsent(name, key -> new Histogram(SIGNIFICANT_DIGITS)).add(histogram));
+        }
+
+        Map<String, Map<String, Map<String, Object>>> export() {
+            Map<String, Map<String, Map<String, Object>>> export = new LinkedHashMap<>();
+            export.put("commands", summarize(commands));
+            export.put("pages", summarize(pages));
+            return export;
+        }
+
+        private static Map<String, Map<String, Object>> summarize(Map<String, Histogram> histograms) {
+            Map<String, Map<String, Object>> summary = new LinkedHashMap<>();
+            histograms.entrySet().stream()
+                    .sorted(Comparator.comparingDouble(entry -> -totalMicros(entry.getValue())))
+                    .forEach(entry -> {
+                        Histogram histogram = entry.getValue();
+                        Map<String, Object> stats = new LinkedHashMap<>();
+                        stats.put("count", histogram.getTotalCount());
+                        stats.put("totalMs", round(totalMicros(histogram) / 1000));
+                        stats.put("p50Ms", round(histogram.getValueAtPercentile(50) / 1000.0));
+                        stats.put("p95Ms", round(histogram.getValueAtPercentile(95) / 1000.0));
+                        stats.put("p99Ms", round(histogram.getValueAtPercentile(99) / 1000.0));
+                        stats.put("maxMs", round(histogram.getMaxValue() / 1000.0));
+                        summary.put(entry.getKey(), stats);
+                    });
+            return summary;
+        }
+
+        private static double totalMicros(Histogram histogram) {
+            return histogram.getMean() * histogram.getTotalCount();
+        }
+
+        private static double round(double millis) {
+            return Math.round(millis * 100) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package base;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Streaming reader of test data rows for lazy TestNG data providers.
+ * Rows are pulled one at a time from a JSON or CSV file, so a data set of any size starts immediately
+ * and only the rows TestNG has asked for are in memory. Every row is a map from field name to value.
+ * <ul>
+ *     <li>JSON: an array of flat objects, either at the top level or under a named property of the top-level
+ *     object (e.g. {@code {"testData": [...]}}), read with Gson's pull parser; nested values are skipped</li>
+ *     <li>CSV ({@code .csv} files): a header row with the field names followed by one row per line, quoted
+ *     as in RFC 4180</li>
+ * </ul>
+ * The file is closed as soon as the last row has been read or reading fails.
+ */
+public abstract class DataRows implements Iterator<Map<String, String>>, Closeable {
+
+    /** File the rows are read from, used in error messages */
+    protected final Path file;
+
+    /** Reader of the file */
+    protected final Reader reader;
+
+    /** Next row, read ahead by hasNext */
+    private Map<String, String> next;
+
+    /** Number of rows returned so far */
+    private long rowNumber;
+
+    /** Whether the end of the data has been reached */
+    private boolean finished;
+
+    /**
+     * Creates a row reader.
+     * @param file The data file
+     * @param reader Reader of the file
+     */
+    protected DataRows(Path file, Reader reader) {
+        this.file = file;
+        this.reader = reader;
+    }
+
+    /**
+     * Opens a data file, choosing the format by its extension.
+     * @param file The data file, {@code .csv} for CSV, anything else is read as JSON
+     * @param arrayName Name of the top-level JSON property holding the rows, or null if the file is an array;
+     *                  ignored for CSV
+     * @return Row reader positioned before the first row
+     * @throws IOException if the file cannot be opened or its JSON structure does not contain the rows
+     */
+    public static DataRows open(Path file, String arrayName) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        try {
+            return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")
+                    ? new CsvRows(file, reader)
+                    : new JsonRows(file, reader, arrayName);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps every row onto a typed value and wraps it as a single-parameter data provider row.
+     * The returned iterator is also {@link Closeable}, closing this reader, for callers that stop early.
+     * @param mapper Conversion of a row into the test method's parameter
+     * @param <T> The parameter type
+     * @return Lazy iterator for a TestNG data provider
+     */
+    public <T> Iterator<Object[]> asParameters(Function<Map<String, String>, T> mapper) {
+        class Parameters implements Iterator<Object[]>, Closeable {
+            @Override
+            public boolean hasNext() {
+                return DataRows.this.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                Map<String, String> row = DataRows.this.next();
+                try {
+                    return new Object[]{mapper.apply(row)};
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Invalid row " + rowNumber + " of " + file + ": " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                DataRows.this.close();
+            }
+        }
+        return new Parameters();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                next = readRow();
+            } catch (IOException | RuntimeException e) {
+                closeQuietly();
+                throw new IllegalStateException("Could not read row " + (rowNumber + 1) + " of " + file, e);
+            }
+            if (next == null) {
+                closeQuietly();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Map<String, String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Map<String, String> row = next;
+        next = null;
+        rowNumber++;
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        reader.close();
+    }
+
+    /**
+     * Reads the next row from the file.
+     * @return The row, or null at the end of the data
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    protected abstract Map<String, String> readRow() throws IOException;
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rows of a JSON array of flat objects, read with Gson's pull parser.
+     */
+    private static final class JsonRows extends DataRows {
+        /** Pull parser positioned inside the row array */
+        private final JsonReader json;
+
+        JsonRows(Path file, Reader reader, String arrayName) throws IOException {
+            super(file, reader);
+            this.json = new JsonReader(reader);
+            if (arrayName != null && json.peek() == JsonToken.BEGIN_OBJECT) {
+                json.beginObject();
+                while (json.hasNext() && !json.nextName().equals(arrayName)) {
+                    json.skipValue();
+                }
+                if (json.peek() != JsonToken.BEGIN_ARRAY) {
+                    throw new IOException("No array \"" + arrayName + "\" in " + file);
+                }
+            }
+            json.beginArray();
+        }
+
+        @Override
+        protected Map<String, String> readRow() throws IOException {
+            if (!json.hasNext()) {
+                return null;
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                switch (json.peek()) {
+                    case STRING, NUMBER -> row.put(name, json.nextString());
+                    case BOOLEAN -> row.put(name, Boolean.toString(json.nextBoolean()));
+                    case NULL -> {
+                        json.nextNull();
+                        row.put(name, null);
+                    }
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+            return row;
+        }
+    }
+
+    /**
+     * Rows of a CSV file with a header row.
+     */
+    private static final class CsvRows extends DataRows {
+        /** Field names from the header row */
+        private final List<String> header;
+
+        /** Reusable field list of the record being parsed */
+        private final List<String> fields = new ArrayList<>();
+
+        /** Reusable buffer of the field being parsed */
+        private final StringBuilder field = new StringBuilder();
+
+        /** Character read ahead, or -2 if none */
+        private int pushedBack = -2;
+
+        CsvRows(Path file, Reader reader) throws IOException {
+            super(file, reader);
+            int first = reader.read();
+            // Skip a UTF-8 byte order mark
+            if (first != '\uFEFF') {
+                pushedBack = first;
+            }
+            if (!readRecord()) {
+                throw new IOException("No header row in " + file);
+            }
+            this.header = List.copyOf(fields);
+        }
+
+        @Override
+        protected Map<String, String> readRow() throws IOException {
+            while (readRecord()) {
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    // Blank line
+                    continue;
+                }
+                if (fields.size() != header.size()) {
+                    throw new IOException("Expected " + header.size() + " fields but found " + fields.size());
+                }
+                Map<String, String> row = new LinkedHashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    row.put(header.get(i), fields.get(i));
+                }
+                return row;
+            }
+            return null;
+        }
+
+        /**
+         * Parses the next record into {@link #fields}.
+         * @return false at the end of the file
+         * @throws IOException if the file cannot be read or a quoted field is not closed
+         */
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            int c = read();
+            if (c < 0) {
+                return false;
+            }
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        throw new IOException("Unclosed quoted field");
+                    }
+                    if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = following;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r' || c < 0) {
+                    if (c == '\r') {
+                        int following = read();
+                        if (following != '\n') {
+                            pushedBack = following;
+                        }
+                    }
+                    fields.add(field.toString());
+                    return true;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (pushedBack != -2) {
+                int c = pushedBack;
+                pushedBack = -2;
+                return c;
+            }
+            return reader.read();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package base;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+
+/**
+ * Factory creating the browser sessions used by the tests.
+ * Every session is configured the same way, so pooled sessions are interchangeable between tests.
+ * Sessions are started with the {@link BrowserProfile} selected by the {@code browser.profile} system property;
+ * sessions of a profile that blocks URLs get a {@link NetworkMonitor} counting their traffic.
+ */
+public class DriverFactory {
+
+    /** Profile applied to every session */
+    private final BrowserProfile profile;
+
+    /** Network monitors of the live sessions that have one */
+    private final Map<WebDriver, NetworkMonitor> monitors = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a factory for the profile selected by system property.
+     */
+    public DriverFactory() {
+        this(BrowserProfile.fromSystemProperty());
+    }
+
+    /**
+     * Creates a factory for the given profile.
+     * @param profile Profile applied to every session
+     */
+    public DriverFactory(BrowserProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Starts a new Chrome browser session with the options of the profile.
+     * The session is decorated by the {@link CommandTimer}, so all its commands are timed.
+     * @return WebDriver instance of the new session
+     */
+    public WebDriver createDriver() {
+        // Create new ChromeDriver instance
+        ChromeDriver driver = new ChromeDriver(profile.chromeOptions());
+        if (profile.maximizeWindow()) {
+            // Maximize browser window for consistent test execution
+            driver.manage().window().maximize();
+        }
+        NetworkMonitor monitor = null;
+        if (!profile.blockedUrls().isEmpty()) {
+            try {
+                monitor = new NetworkMonitor(driver, profile.blockedUrls());
+            } catch (RuntimeException e) {
+                driver.quit();
+                throw e;
+            }
+        }
+        // Time every command of the session
+        WebDriver timed = CommandTimer.shared().decorate(driver);
+        if (monitor != null) {
+            monitors.put(timed, monitor);
+        }
+        return timed;
+    }
+
+    /**
+     * Returns the network monitor of a session.
+     * @param driver The session
+     * @return NetworkMonitor of the session, or null if its profile does not monitor traffic
+     */
+    public NetworkMonitor networkMonitor(WebDriver driver) {
+        return monitors.get(driver);
+    }
+
+    /**
+     * Quits a session started by this factory.
+     * @param driver The session to quit
+     */
+    public void quitDriver(WebDriver driver) {
+        monitors.remove(driver);
+        driver.quit();
+    }
+}
@@ -0,0 +1,313 @@
+package base;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+
+/**
+ * Bounded pool of warm browser sessions shared by all tests of a run.
+ * Starting Chrome costs seconds, so sessions are started once and handed from test to test.
+ * Between tests a session is reset to a blank state: storage and cookies are cleared, extra windows
+ * are closed and the browser navigates to about:blank. A session is health-checked before it is handed
+ * out and is recycled (quit and replaced on demand) after a failed test, a failed reset or a configured
+ * number of uses. The pool is configured with the system properties {@code driver.pool.size} (maximum
+ * number of live sessions), {@code driver.pool.prestart} (sessions started up front),
+ * {@code driver.pool.max.uses} and {@code driver.pool.wait.seconds} (how long a test waits for a session).
+ */
+public class DriverPool {
+    /** Logger instance for reporting pool activity and metrics */
+    private static final Logger logger = LogManager.getLogger(DriverPool.class);
+
+    /** Longest wait for an idle session before a free slot is looked for again */
+    private static final long POLL_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** Pool shared by all tests of the JVM, created on first use */
+    private static volatile DriverPool shared;
+
+    /** Sessions that are started, reset and waiting for a test */
+    private final BlockingQueue<WebDriver> idle = new LinkedBlockingQueue<>();
+
+    /** Number of uses of every live session, idle or in use */
+    private final Map<WebDriver, Integer> uses = new ConcurrentHashMap<>();
+
+    /** One permit per session that may still be started */
+    private final Semaphore capacity;
+
+    /** Factory starting new sessions */
+    private final DriverFactory factory;
+
+    /** Maximum number of live sessions */
+    private final int size;
+
+    /** Number of tests a session serves before it is recycled */
+    private final int maxUses;
+
+    /** How long a test waits for a session when all are busy */
+    private final Duration waitTimeout;
+
+    /** Acquisitions served by a warm session */
+    private final LongAdder hits = new LongAdder();
+
+    /** Acquisitions that had to start a new session */
+    private final LongAdder misses = new LongAdder();
+
+    /** Sessions quit because of a failure, a failed reset or their use limit */
+    private final LongAdder recycled = new LongAdder();
+
+    /** Idle sessions that failed their health check */
+    private final LongAdder unhealthy = new LongAdder();
+
+    /**
+     * Creates an empty pool.
+     * @param factory Factory starting new sessions
+     * @param size Maximum number of live sessions
+     * @param maxUses Number of tests a session serves before it is recycled
+     * @param waitTimeout How long a test waits for a session when all are busy
+     */
+    public DriverPool(DriverFactory factory, int size, int maxUses, Duration waitTimeout) {
+        this.factory = factory;
+        this.size = Math.max(1, size);
+        this.maxUses = Math.max(1, maxUses);
+        this.waitTimeout = waitTimeout;
+        this.capacity = new Semaphore(this.size);
+    }
+
+    /**
+     * Returns the pool shared by all tests, configured from system properties.
+     * @return The shared DriverPool
+     */
+    public static DriverPool shared() {
+        if (shared == null) {
+            synchronized (DriverPool.class) {
+                if (shared == null) {
+                    shared = new DriverPool(new DriverFactory(),
+                            Integer.getInteger("driver.pool.size", 4),
+                            Integer.getInteger("driver.pool.max.uses", 20),
+                            Duration.ofSeconds(Integer.getInteger("driver.pool.wait.seconds", 300)));
+                    Runtime.getRuntime().addShutdownHook(new Thread(shared::shutdown));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Starts sessions up front so the first tests do not pay for the browser startup.
+     * Sessions are started concurrently; sessions that fail to start are logged and skipped.
+     * @param count Number of sessions to start, capped at the pool size
+     */
+    public void prestart(int count) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count && capacity.tryAcquire(); i++) {
+                executor.execute(() -> {
+                    try {
+                        idle.offer(start());
+                    } catch (WebDriverException e) {
+                        logger.warn("Could not prestart browser session", e);
+                    }
+                });
+            }
+        }
+        logger.info("Prestarted {} browser sessions", idle.size());
+    }
+
+    /**
+     * Hands out a healthy session, starting a new one if none is idle and the pool is not full.
+     * Otherwise waits for another test to release its session, or for a recycled session to free its slot.
+     * @return WebDriver instance reserved for the caller until it is released
+     * @throws IllegalStateException if no session becomes available within the wait timeout
+     */
+    public WebDriver acquire() {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            WebDriver driver = idle.poll();
+            if (driver == null) {
+                if (capacity.tryAcquire()) {
+                    misses.increment();
+                    return start();
+                }
+                driver = pollIdle(deadline);
+                if (driver == null) {
+                    continue;
+                }
+            }
+            if (isHealthy(driver)) {
+                hits.increment();
+                return driver;
+            }
+            unhealthy.increment();
+            discard(driver);
+        }
+    }
+
+    /**
+     * Returns a session to the pool after a test.
+     * The session is reset for the next test, or recycled if the test failed, the reset failed
+     * or the session has reached its use limit.
+     * @param driver The session obtained from {@link #acquire()}
+     * @param failed Whether the test using the session failed
+     */
+    public void release(WebDriver driver, boolean failed) {
+        Integer count = uses.computeIfPresent(driver, (session, n) -> n + 1);
+        if (count == null) {
+            // Not a session of this pool, or already discarded
+            return;
+        }
+        if (failed || count >= maxUses || !reset(driver)) {
+            recycled.increment();
+            discard(driver);
+            return;
+        }
+        idle.offer(driver);
+    }
+
+    /**
+     * Quits every session of the pool, idle or in use.
+     */
+    public void shutdown() {
+        List<WebDriver> sessions = new ArrayList<>(uses.keySet());
+        idle.clear();
+        for (WebDriver driver : sessions) {
+            discard(driver);
+        }
+    }
+
+    /**
+     * Returns the network monitor of a session handed out by this pool.
+     * @param driver The session
+     * @return NetworkMonitor of the session, or null if its browser profile does not monitor traffic
+     */
+    public NetworkMonitor networkMonitor(WebDriver driver) {
+        return factory.networkMonitor(driver);
+    }
+
+    /**
+     * Returns the share of acquisitions served by an already started session.
+     * @return Hit rate between 0 and 1, or 0 if nothing has been acquired yet
+     */
+    public double hitRate() {
+        long total = hits.sum() + misses.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * Formats the pool metrics for logging.
+     * @return Summary of hits, misses, recycled and unhealthy sessions
+     */
+    public String stats() {
+        return String.format("size=%d live=%d idle=%d hits=%d misses=%d hitRate=%.1f%% recycled=%d unhealthy=%d",
+                size, uses.size(), idle.size(), hits.sum(), misses.sum(), hitRate() * 100, recycled.sum(), unhealthy.sum());
+    }
+
+    /**
+     * Starts a new session; the caller must already hold a capacity permit.
+     * @return WebDriver instance of the new session
+     */
+    private WebDriver start() {
+        try {
+            WebDriver driver = factory.createDriver();
+            uses.put(driver, 0);
+            return driver;
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits a short while for a session to be released. A discarded session frees a slot without
+     * offering anything to the idle queue, so the caller looks for a free slot again after every slice.
+     * @param deadline System.nanoTime() instant at which the acquisition gives up
+     * @return The released session, or null if none was released within the slice
+     * @throws IllegalStateException if the deadline has passed
+     */
+    private WebDriver pollIdle(long deadline) {
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw new IllegalStateException("No browser session available after " + waitTimeout + ": " + stats());
+        }
+        try {
+            return idle.poll(Math.min(remainingNanos, POLL_SLICE_NANOS), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a browser session", e);
+        }
+    }
+
+    /**
+     * Checks with a single round trip that the browser is still responding.
+     * @param driver The session to check
+     * @return true if the session answered
+     */
+    private boolean isHealthy(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (WebDriverException e) {
+            logger.warn("Discarding unresponsive browser session: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Resets a session to a blank state: clears local and session storage of the current page,
+     * deletes all cookies, closes extra windows and navigates to about:blank.
+     * @param driver The session to reset
+     * @return true if the reset succeeded
+     */
+    private boolean reset(WebDriver driver) {
+        try {
+            ((JavascriptExecutor) driver).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            if (driver instanceof HasCdp cdp) {
+                // Clears the cookies of every domain, not only the current one
+                cdp.executeCdpCommand("Network.clearBrowserCookies", Map.of());
+            } else {
+                driver.manage().deleteAllCookies();
+            }
+            String main = driver.getWindowHandle();
+            for (String handle : driver.getWindowHandles()) {
+                if (!handle.equals(main)) {
+                    driver.switchTo().window(handle).close();
+                }
+            }
+            driver.switchTo().window(main).get("about:blank");
+            return true;
+        } catch (WebDriverException e) {
+            logger.warn("Could not reset browser session: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Quits a session and frees its slot in the pool.
+     * @param driver The session to quit
+     */
+    private void discard(WebDriver driver) {
+        if (uses.remove(driver) == null) {
+            return;
+        }
+        capacity.release();
+        try {
+            factory.quitDriver(driver);
+        } catch (WebDriverException e) {
+            logger.debug("Ignoring failure while quitting browser session", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package base;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+/**
+ * Blocks URL patterns in a Chrome session and counts its network traffic through the DevTools Network domain.
+ * Commands and events are sent by name rather than through the versioned devtools bindings,
+ * so the monitor keeps working when Chrome is newer than the Selenium CDP modules.
+ * Counters are updated from the DevTools connection thread and read by the test thread.
+ */
+public class NetworkMonitor {
+
+    /** Requests that finished loading */
+    private final LongAdder requests = new LongAdder();
+
+    /** Bytes received over the network, including headers */
+    private final LongAdder bytes = new LongAdder();
+
+    /** Requests cancelled because they matched a blocked URL pattern */
+    private final LongAdder blocked = new LongAdder();
+
+    /**
+     * Enables the Network domain of the session, installs the blocked URL patterns and starts counting.
+     * @param driver The session to monitor, must support DevTools
+     * @param blockedUrls URL patterns to block
+     */
+    public NetworkMonitor(HasDevTools driver, List<String> blockedUrls) {
+        DevTools devTools = driver.getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        devTools.addListener(event("Network.loadingFinished"), event -> {
+            requests.increment();
+            if (event.get("encodedDataLength") instanceof Number length) {
+                bytes.add(length.longValue());
+            }
+        });
+        devTools.addListener(event("Network.loadingFailed"), event -> {
+            if (event.get("blockedReason") != null) {
+                blocked.increment();
+            }
+        });
+        devTools.send(new Command<>("Network.enable", Map.of()));
+        if (!blockedUrls.isEmpty()) {
+            devTools.send(new Command<>("Network.setBlockedURLs", Map.of("urls", blockedUrls)));
+        }
+    }
+
+    /**
+     * Returns the traffic counted since the previous call and starts counting from zero.
+     * @return Traffic of the current test
+     */
+    public Traffic reset() {
+        return new Traffic(requests.sumThenReset(), bytes.sumThenReset(), blocked.sumThenReset());
+    }
+
+    /**
+     * Declares a DevTools event whose parameters are read as a plain map.
+     * @param method The DevTools event name
+     * @return Event delivering the event parameters
+     */
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> input.read(Json.MAP_TYPE));
+    }
+
+    /**
+     * Network traffic of one test.
+     * @param requests Requests that finished loading
+     * @param bytes Bytes received over the network
+     * @param blocked Requests that were blocked and never sent
+     */
+    public record Traffic(long requests, long bytes, long blocked) {
+        @Override
+        public String toString() {
+            return String.format("%d requests, %.1f KB transferred, %d requests blocked", requests, bytes / 1024.0, blocked);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package base;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import utils.AttachmentWriter;
+
+/**
+ * Browser-side performance metrics of the checkout steps, aggregated across data rows.
+ * Page objects capture the metrics with {@link pages.BasePage#capturePerformance()}; each capture is recorded
+ * under its step name, checked against the budgets and kept for the Allure attachment of the test. The run
+ * totals keep every value per step and metric and are exported with percentiles at the end of the suite.
+ * <p>
+ * Budgets are read from {@code performance-budgets.properties} on the test classpath. A key {@code <metric>}
+ * applies to every step, a key {@code <step-key>.<metric>} to one step only, where the step key is the step
+ * name in lower case with non-alphanumeric runs replaced by dashes. Any key can be overridden with a
+ * {@code perf.budget.<key>} system property.
+ */
+public class PerformanceReport {
+    /** Logger instance for reporting budget violations and the run summary */
+    private static final Logger logger = LogManager.getLogger(PerformanceReport.class);
+
+    /** Classpath resource holding the budgets */
+    private static final String BUDGETS_RESOURCE = "performance-budgets.properties";
+
+    /** Prefix of the system properties overriding budgets */
+    private static final String BUDGET_PROPERTY_PREFIX = "perf.budget.";
+
+    /** Report shared by all tests of the JVM, created on first use */
+    private static volatile PerformanceReport shared;
+
+    /** Serializer of the attachments and the export */
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    /** Maximum value per budget key */
+    private final Map<String, Double> budgets;
+
+    /** Metrics and violations of the test running on each thread */
+    private final ThreadLocal<TestPerformance> tests = ThreadLocal.withInitial(TestPerformance::new);
+
+    /** Every recorded value per step and metric, in step order, guarded by this */
+    private final Map<String, Map<String, List<Double>>> totals = new LinkedHashMap<>();
+
+    /**
+     * Creates a report.
+     * @param budgets Maximum value per budget key
+     */
+    public PerformanceReport(Map<String, Double> budgets) {
+        this.budgets = Map.copyOf(budgets);
+    }
+
+    /**
+     * Returns the report shared by all tests, with the budgets of the classpath resource and system properties.
+     * @return The shared PerformanceReport
+     */
+    public static PerformanceReport shared() {
+        if (shared == null) {
+            synchronized (PerformanceReport.class) {
+                if (shared == null) {
+                    shared = new PerformanceReport(loadBudgets());
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Tells whether the tests should capture performance metrics, set by {@code perf.capture} (default true).
+     * @return true if capturing is enabled
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("perf.capture", "true"));
+    }
+
+    /**
+     * Starts a new test on the current thread, forgetting the metrics and violations of the previous one.
+     */
+    public void startTest() {
+        tests.remove();
+    }
+
+    /**
+     * Records the metrics captured after a step and checks them against the budgets.
+     * @param step The step name
+     * @param metrics Metric values by name, non-numeric values are ignored
+     * @return The budget violations of this capture, empty if every metric is within budget
+     */
+    public List<String> record(String step, Map<String, Object> metrics) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        metrics.forEach((metric, value) -> {
+            if (value instanceof Number number) {
+                values.put(metric, number.doubleValue());
+            }
+        });
+        List<String> violations = new ArrayList<>();
+        values.forEach((metric, value) -> {
+            Double budget = budget(step, metric);
+            if (budget != null && value > budget) {
+                violations.add(step + ": " + metric + " " + round(value) + " exceeds budget " + budget);
+            }
+        });
+        TestPerformance test = tests.get();
+        test.steps.put(test.steps.containsKey(step) ? step + " #" + test.steps.size() : step, values);
+        test.violations.addAll(violations);
+        synchronized (this) {
+            Map<String, List<Double>> stepTotals = totals.computeIfAbsent(step, key -> new LinkedHashMap<>());
+            values.forEach((metric, value) -> stepTotals.computeIfAbsent(metric, key -> new ArrayList<>()).add(value));
+        }
+        violations.forEach(logger::warn);
+        return violations;
+    }
+
+    /**
+     * Returns the budget violations of the test running on the current thread.
+     * @return Violations in capture order
+     */
+    public List<String> violations() {
+        return List.copyOf(tests.get().violations);
+    }
+
+    /**
+     * Ends the test on the current thread and attaches its metrics per step to the Allure report as JSON.
+     */
+    public void finishTest() {
+        TestPerformance test = tests.get();
+        if (!test.steps.isEmpty()) {
+            AttachmentWriter.attachText("Performance Metrics", "application/json", ".json", gson.toJson(test.steps));
+        }
+        tests.remove();
+    }
+
+    /**
+     * Writes the per-step report of the run as JSON and logs one summary line per step.
+     * For every step and metric the report holds the number of samples, min, p50, p95, max and the budget.
+     * @param file The file to write the JSON export to
+     */
+    public synchronized void export(Path file) {
+        if (totals.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Map<String, Object>>> report = new LinkedHashMap<>();
+        totals.forEach((step, metrics) -> {
+            Map<String, Map<String, Object>> stepReport = new LinkedHashMap<>();
+            metrics.forEach((metric, values) -> stepReport.put(metric, summarize(values, budget(step, metric))));
+            report.put(step, stepReport);
+            logger.info("Performance of {}: {}", step, stepReport);
+        });
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                gson.toJson(report, writer);
+            }
+            logger.info("Performance report written to {}", file);
+        } catch (IOException e) {
+            logger.warn("Could not write performance report to {}", file, e);
+        }
+    }
+
+    /**
+     * Resolves the budget of a metric for a step; a step-specific key wins over the global one.
+     * @param step The step name
+     * @param metric The metric name
+     * @return The maximum allowed value, or null if the metric has no budget
+     */
+    private Double budget(String step, String metric) {
+        Double budget = budgets.get(stepKey(step) + "." + metric);
+        return budget != null ? budget : budgets.get(metric);
+    }
+
+    /**
+     * Converts a step name into its budget key prefix, e.g. "Click on cart" into "click-on-cart".
+     * @param step The step name
+     * @return The step key
+     */
+    static String stepKey(String step) {
+        return step.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    }
+
+    /**
+     * Summarizes the values of one step and metric.
+     * @param values The recorded values
+     * @param budget The budget, or null
+     * @return Count, min, p50, p95, max and budget
+     */
+    private static Map<String, Object> summarize(List<Double> values, Double budget) {
+        double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", sorted.length);
+        summary.put("min", round(sorted[0]));
+        summary.put("p50", round(percentile(sorted, 50)));
+        summary.put("p95", round(percentile(sorted, 95)));
+        summary.put("max", round(sorted[sorted.length - 1]));
+        if (budget != null) {
+            summary.put("budget", budget);
+        }
+        return summary;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values.
+     * @param sorted Values in ascending order, not empty
+     * @param percentile The percentile between 0 and 100
+     * @return The value at the percentile
+     */
+    private static double percentile(double[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /**
+     * Loads the budgets from the classpath resource, then applies the system property overrides.
+     * @return Maximum value per budget key
+     */
+    private static Map<String, Double> loadBudgets() {
+        Properties properties = new Properties();
+        try (InputStream in = PerformanceReport.class.getClassLoader().getResourceAsStream(BUDGETS_RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read {}", BUDGETS_RESOURCE, e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(BUDGET_PROPERTY_PREFIX))
+                .forEach(name -> properties.setProperty(name.substring(BUDGET_PROPERTY_PREFIX.length()), System.getProperty(name)));
+        Map<String, Double> budgets = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            try {
+                budgets.put(key, Double.parseDouble(properties.getProperty(key).trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring budget {} with non-numeric value '{}'", key, properties.getProperty(key));
+            }
+        }
+        return budgets;
+    }
+
+    /**
+     * Metrics per step and budget violations of the test running on one thread.
+     */
+    private static final class TestPerformance {
+        /** Captured metrics per step, in capture order */
+        private final Map<String, Map<String, Double>> steps = new LinkedHashMap<>();
+
+        /** Budget violations of the test */
+        private final List<String> violations = new ArrayList<>();
+    }
+}
@@ -0,0 +1,284 @@
+package base;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import utils.AttachmentWriter;
+
+/**
+ * Policy-driven screenshot pipeline for step and result screenshots.
+ * Screenshots are captured on the test thread, because the page keeps changing, but only as the base64
+ * string returned by the browser. The attachment is registered with Allure on the test thread as well,
+ * so it lands in the right test and step; decoding and streaming the file into allure-results happen on
+ * a bounded background executor. When the executor's queue is full the test thread writes the file
+ * itself, which throttles capturing instead of buffering without limit; after {@link #shutdown(long)} it
+ * writes every file itself.
+ * <p>
+ * The policy is selected with the {@code screenshot.policy} system property:
+ * <ul>
+ *     <li>{@code always} - every step and the final result</li>
+ *     <li>{@code on_failure} - only the failure state</li>
+ *     <li>{@code every_nth} - every {@code screenshot.every.n}th step and the failure state</li>
+ *     <li>{@code last_k} (default) - the last {@code screenshot.last.k} steps are kept in memory and attached
+ *     together with the failure state only if the test fails</li>
+ * </ul>
+ */
+public class ScreenshotPipeline {
+    /** Logger instance for reporting pipeline metrics */
+    private static final Logger logger = LogManager.getLogger(ScreenshotPipeline.class);
+
+    /** Pipeline shared by all tests of the JVM, created on first use */
+    private static volatile ScreenshotPipeline shared;
+
+    /**
+     * When step screenshots are taken and attached.
+     */
+    public enum Policy {
+        ALWAYS,
+        ON_FAILURE,
+        EVERY_NTH,
+        LAST_K
+    }
+
+    /** Active policy */
+    private final Policy policy;
+
+    /** Step interval of the EVERY_NTH policy */
+    private final int everyN;
+
+    /** Ring size of the LAST_K policy */
+    private final int lastK;
+
+    /** Background writer with a bounded queue; runs writes on the caller when saturated or shut down */
+    private final ThreadPoolExecutor writer;
+
+    /** Per-thread state of the running test */
+    private final ThreadLocal<TestScreenshots> tests = ThreadLocal.withInitial(TestScreenshots::new);
+
+    /** Screenshots taken from the browser */
+    private final LongAdder captured = new LongAdder();
+
+    /** Screenshots written to the report */
+    private final LongAdder written = new LongAdder();
+
+    /** Screenshots kept in the ring but never attached */
+    private final LongAdder discarded = new LongAdder();
+
+    /** Writes performed on the test thread because the queue was full */
+    private final LongAdder throttled = new LongAdder();
+
+    /**
+     * Creates a pipeline.
+     * @param policy When step screenshots are taken and attached
+     * @param everyN Step interval of the EVERY_NTH policy
+     * @param lastK Ring size of the LAST_K policy
+     * @param writerThreads Number of background writer threads
+     * @param queueCapacity Number of screenshots that may wait for a writer
+     */
+    public ScreenshotPipeline(Policy policy, int everyN, int lastK, int writerThreads, int queueCapacity) {
+        this.policy = policy;
+        this.everyN = Math.max(1, everyN);
+        this.lastK = Math.max(1, lastK);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writer = new ThreadPoolExecutor(writerThreads, writerThreads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "screenshot-writer-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> {
+                    // The attachment is already registered, so a rejected write must still produce its file
+                    if (!executor.isShutdown()) {
+                        throttled.increment();
+                    }
+                    runnable.run();
+                });
+        this.writer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the pipeline shared by all tests, configured from system properties.
+     * @return The shared ScreenshotPipeline
+     */
+    public static ScreenshotPipeline shared() {
+        if (shared == null) {
+            synchronized (ScreenshotPipeline.class) {
+                if (shared == null) {
+                    shared = new ScreenshotPipeline(
+                            Policy.valueOf(System.getProperty("screenshot.policy", "last_k").trim().toUpperCase(Locale.ROOT)),
+                            Integer.getInteger("screenshot.every.n", 5),
+                            Integer.getInteger("screenshot.last.k", 5),
+                            Integer.getInteger("screenshot.writer.threads", 1),
+                            Integer.getInteger("screenshot.queue.capacity", 16));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Starts a new test on the current thread, forgetting the steps of the previous one.
+     */
+    public void startTest() {
+        TestScreenshots test = tests.get();
+        discarded.add(test.ring.size());
+        test.ring.clear();
+        test.steps = 0;
+    }
+
+    /**
+     * Handles the screenshot of a finished step according to the policy.
+     * @param driver The browser of the test
+     * @param name The attachment name
+     */
+    public void step(WebDriver driver, String name) {
+        if (driver == null) {
+            return;
+        }
+        TestScreenshots test = tests.get();
+        test.steps++;
+        switch (policy) {
+            case ALWAYS -> attach(name, capture(driver));
+            case EVERY_NTH -> {
+                if (test.steps % everyN == 0) {
+                    attach(name, capture(driver));
+                }
+            }
+            case LAST_K -> {
+                String screenshot = capture(driver);
+                if (screenshot != null) {
+                    if (test.ring.size() == lastK) {
+                        test.ring.removeFirst();
+                        discarded.increment();
+                    }
+                    test.ring.addLast(new Capture(name, screenshot));
+                }
+            }
+            case ON_FAILURE -> {
+                // Nothing is captured until the test fails
+            }
+        }
+    }
+
+    /**
+     * Attaches the retained step screenshots and the failure state of a failed test.
+     * @param driver The browser of the test, or null if it is gone
+     */
+    public void testFailed(WebDriver driver) {
+        TestScreenshots test = tests.get();
+        while (!test.ring.isEmpty()) {
+            Capture capture = test.ring.removeFirst();
+            attach(capture.name(), capture.base64());
+        }
+        if (driver != null) {
+            attach("Screenshot on failure", capture(driver));
+        }
+    }
+
+    /**
+     * Drops the retained step screenshots of a passed test; only the ALWAYS policy attaches the final state.
+     * @param driver The browser of the test, or null if it is gone
+     */
+    public void testSucceeded(WebDriver driver) {
+        startTest();
+        if (policy == Policy.ALWAYS && driver != null) {
+            attach("Screenshot on success", capture(driver));
+        }
+    }
+
+    /**
+     * Waits for queued screenshots to be written and stops the writer threads.
+     * @param timeoutSeconds Maximum time to wait
+     */
+    public void shutdown(long timeoutSeconds) {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                logger.warn("Screenshots still being written after {}s", timeoutSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Screenshots ({}): {}", policy, stats());
+    }
+
+    /**
+     * Formats the pipeline metrics for logging.
+     * @return Summary of captured, written, discarded and throttled screenshots
+     */
+    public String stats() {
+        return String.format("captured=%d written=%d discarded=%d throttled=%d",
+                captured.sum(), written.sum(), discarded.sum(), throttled.sum());
+    }
+
+    /**
+     * Takes a screenshot without decoding it.
+     * @param driver The browser to capture
+     * @return Base64 encoded PNG, or null if the browser could not take it
+     */
+    private String capture(WebDriver driver) {
+        try {
+            String screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+            captured.increment();
+            return screenshot;
+        } catch (WebDriverException e) {
+            logger.warn("Could not take screenshot: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Registers the attachment with the current test or step and writes its content in the background.
+     * @param name The attachment name
+     * @param base64 Base64 encoded PNG, ignored if null
+     */
+    private void attach(String name, String base64) {
+        if (base64 == null) {
+            return;
+        }
+        String source = AttachmentWriter.prepare(name, "image/png", ".png");
+        writer.execute(() -> {
+            // Decode while writing instead of materializing the PNG
+            AttachmentWriter.write(source, out -> Base64.getMimeDecoder()
+                    .wrap(new ByteArrayInputStream(base64.getBytes(StandardCharsets.ISO_8859_1)))
+                    .transferTo(out));
+            written.increment();
+        });
+    }
+
+    /**
+     * Screenshot kept in the LAST_K ring.
+     * @param name The attachment name
+     * @param base64 Base64 encoded PNG
+     */
+    private record Capture(String name, String base64) {
+    }
+
+    /**
+     * Step counter and retained screenshots of the test running on one thread.
+     */
+    private static final class TestScreenshots {
+        /** Retained screenshots, oldest first */
+        private final Deque<Capture> ring = new ArrayDeque<>();
+
+        /** Steps finished by the current test */
+        private int steps;
+    }
+}
@@ -0,0 +1,136 @@
+package base;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.ThreadContext;
+
+import utils.AttachmentWriter;
+
+/**
+ * Per-test log file with incremental Allure attachment.
+ * Starting a test puts a unique {@code testId} into the Log4j ThreadContext; the Routing appender in
+ * {@code log4j2.xml} writes every event of that thread to {@code target/test-logs/<testId>.log}.
+ * Each attachment contains only the bytes written since the previous one: the read offset is tracked
+ * and the new range is transferred from a FileChannel kept open for the test straight into the attachment
+ * file, so the cost of a step attachment depends on what the step logged rather than on how long the run
+ * has been going.
+ */
+public class TestLog {
+
+    /** ThreadContext key used by the Routing appender to select the per-test file */
+    public static final String TEST_ID = "testId";
+
+    /** Directory of the per-test log files, must match the Routing appender */
+    private static final Path LOG_DIRECTORY = Path.of("target", "test-logs");
+
+    /** Sequence making test ids unique across data provider rows and invocations */
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    /** Log of the test running on the current thread */
+    private static final ThreadLocal<TestLog> current = new ThreadLocal<>();
+
+    /** Log file of this test */
+    private final Path file;
+
+    /** Channel reading the log file, opened once the file exists */
+    private FileChannel channel;
+
+    /** Number of bytes already attached */
+    private long offset;
+
+    /**
+     * Creates the log of one test.
+     * @param testId The id the Routing appender uses as file name
+     */
+    private TestLog(String testId) {
+        this.file = LOG_DIRECTORY.resolve(testId + ".log");
+    }
+
+    /**
+     * Starts routing the current thread's log events into a new per-test file.
+     * @param testName The name of the test method, used as prefix of the test id
+     */
+    public static void start(String testName) {
+        end();
+        String testId = testName.replaceAll("[^A-Za-z0-9_.-]", "_") + "-" + sequence.incrementAndGet();
+        ThreadContext.put(TEST_ID, testId);
+        current.set(new TestLog(testId));
+    }
+
+    /**
+     * Stops routing the current thread's log events and closes the per-test file.
+     */
+    public static void end() {
+        TestLog log = current.get();
+        if (log != null) {
+            current.remove();
+            log.close();
+        }
+        ThreadContext.remove(TEST_ID);
+    }
+
+    /**
+     * Attaches the lines the current test logged since the previous attachment.
+     * Nothing is attached if the test has not logged anything new.
+     * @param name The attachment name
+     */
+    public static void attachSinceLast(String name) {
+        TestLog log = current.get();
+        if (log != null) {
+            log.attachNew(name);
+        }
+    }
+
+    /**
+     * Streams everything appended to the file since the tracked offset into an attachment
+     * and advances the offset.
+     * @param name The attachment name
+     */
+    private void attachNew(String name) {
+        long size;
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+            }
+            size = channel.size();
+        } catch (NoSuchFileException e) {
+            // The test has not logged anything yet
+            return;
+        } catch (IOException e) {
+            return;
+        }
+        if (size <= offset) {
+            return;
+        }
+        long start = offset;
+        offset = size;
+        AttachmentWriter.attach(name, "text/plain", ".log", out -> {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long transferred;
+            while (position < size && (transferred = channel.transferTo(position, size - position, target)) > 0) {
+                position += transferred;
+            }
+        });
+    }
+
+    /**
+     * Closes the channel of the log file.
+     */
+    private void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Silently ignore, the file is only read
+            }
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package tests;
 
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
+import java.util.Iterator;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -11,12 +10,8 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-
 import base.BaseTest;
+import base.DataRows;
 import io.qameta.allure.Allure;
 import pages.CheckoutPage;
 import pages.HomePage;
@@ -33,36 +28,21 @@ public class Checkout extends BaseTest {
     private static final Logger testLogger = LogManager.getLogger(Checkout.class);
 
     /**
-     * Data provider method that reads test data from a JSON file.
+     * Data provider method that streams test data rows from a JSON or CSV file.
      * Provides test data for the checkout scenario including URLs, credentials, and expected results.
-     * @return Object[][] array containing test data for each test iteration
-     * @throws IOException if the test data file cannot be read
+     * The file is {@code src/test/resources/testdata.json} unless the {@code checkout.data} system property names
+     * another one; {@code .csv} files need a header row with the same field names as the JSON objects.
+     * Rows are parsed as TestNG asks for them, so large data files start immediately and are never held in
+     * memory as a whole. Rows run in parallel, each on its own browser; the number of concurrent rows is set
+     * by the {@code dataprovider.thread.count} Maven property.
+     * @return Lazy iterator over the test data rows
+     * @throws IOException if the test data file cannot be opened
      */
-    @DataProvider(name = "checkoutData")
-    public Object[][] getCheckoutData() throws IOException {
-        // Read the test data JSON file using try-with-resources
-        try (FileReader reader = new FileReader("src/test/resources/testdata.json")) {
-            JsonObject jsonObject = JsonParser.parseReader(reader).getAsJsonObject();
-            JsonArray testDataArray = jsonObject.getAsJsonArray("testData");
-
-            // Parse JSON data into test data array
-            List<Object[]> data = new ArrayList<>();
-            for (JsonElement element : testDataArray) {
-                JsonObject testCase = element.getAsJsonObject();
-                String url = testCase.get("url").getAsString();
-                String username = testCase.get("username").getAsString();
-                String password = testCase.get("password").getAsString();
-                String street = testCase.get("street").getAsString();
-                String city = testCase.get("city").getAsString();
-                String state = testCase.get("state").getAsString();
-                String country = testCase.get("country").getAsString();
-                String postal_code = testCase.get("postal_code").getAsString();
-                String expectedMessage = testCase.get("expectedMessage").getAsString();
-                String invoiceexpectedMessage = testCase.get("invoiceexpectedMessage").getAsString();
-                data.add(new Object[]{url, username, password, street, city, state, country, postal_code, expectedMessage,invoiceexpectedMessage});
-            }
-            return data.toArray(new Object[0][]);
-        }
+    @DataProvider(name = "checkoutData", parallel = true)
+    public Iterator<Object[]> getCheckoutData() throws IOException {
+        Path file = Path.of(System.getProperty("checkout.data", "src/test/resources/testdata.json"));
+        testLogger.info("Streaming checkout data from " + file);
+        return DataRows.open(file, "testData").asParameters(CheckoutData::fromRow);
     }
 
     /**
@@ -73,56 +53,52 @@ public class Checkout extends BaseTest {
      * - Checkout process with billing information
      * - Payment processing and order confirmation
      * - Verification of success messages and UI state
+     * - Browser performance of the page transitions against the budgets in performance-budgets.properties
      *
      * The test uses Allure steps for detailed reporting and attaches screenshots and logs at each step.
      *
-     * @param url The application URL to test
-     * @param username User login credentials
-     * @param password User password
-     * @param street Billing address street
-     * @param city Billing address city
-     * @param state Billing address state
-     * @param country Billing address country
-     * @param postal_code Billing address postal code
-     * @param expectedMessage Expected payment confirmation message
-     * @param invoiceexpectedMessage Expected invoice confirmation message
+     * @param data The checkout test data row
      * @throws InterruptedException if thread sleep is interrupted
      */
     @Test(dataProvider = "checkoutData")
-    public void automateScenario (String url, String username, String password, String street, String city, String state, String country, String postal_code, String expectedMessage , String invoiceexpectedMessage) throws InterruptedException {
+    public void automateScenario(CheckoutData data) throws InterruptedException {
         testLogger.info("Starting checkout automation scenario");
         Allure.step("Navigate to application URL", () -> {
-            testLogger.info("Navigating to URL: " + url);
-            driver.get(url);
+            testLogger.info("Navigating to URL: " + data.url());
+            getDriver().get(data.url());
             attachScreenshot("After navigation");
             attachLogs("Navigation");
         });
         HomePage homePage = Allure.step("Initialize HomePage object", () -> {
             testLogger.info("Initializing HomePage object");
-            return new HomePage(driver);
+            HomePage hp = new HomePage(getDriver());
+            recordPerformance("Navigate to application URL", hp);
+            return hp;
         });
         LoginPage loginPage = Allure.step("Click on Sign In button", () -> {
             testLogger.info("Clicking on Sign In button");
             LoginPage lp = homePage.clickOnSignInButton();
+            recordPerformance("Click on Sign In button", lp);
             attachScreenshot("After clicking sign in");
             attachLogs("Sign In");
             return lp;
         });
         Allure.step("Enter email address", () -> {
-            testLogger.info("Entering email address: " + username);
-            loginPage.enterEmailAddress(username);
+            testLogger.info("Entering email address: " + data.username());
+            loginPage.enterEmailAddress(data.username());
             attachScreenshot("After entering email");
             attachLogs("Email Entry");
         });
         Allure.step("Enter password", () -> {
             testLogger.info("Entering password");
-            loginPage.enterPassword(password);
+            loginPage.enterPassword(data.password());
             attachScreenshot("After entering password");
             attachLogs("Password Entry");
         });
         Allure.step("Click Login button", () -> {
             testLogger.info("Clicking Login button");
             loginPage.Login();
+            recordPerformance("Click Login button", loginPage);
             attachScreenshot("After login");
             attachLogs("Login");
         });
@@ -141,6 +117,7 @@ public class Checkout extends BaseTest {
         ProductPage productPage = Allure.step("Click on product", () -> {
             testLogger.info("Clicking on product");
             ProductPage pp = homePage.clickOnProduct();
+            recordPerformance("Click on product", pp);
             attachScreenshot("After clicking product");
             attachLogs("Product Click");
             return pp;
@@ -148,6 +125,7 @@ public class Checkout extends BaseTest {
         Allure.step("Add product to cart", () -> {
             testLogger.info("Adding product to cart");
             productPage.addProductToCart();
+            recordPerformance("Add product to cart", productPage);
             attachScreenshot("After adding to cart");
             attachLogs("Add to Cart");
         });
@@ -166,6 +144,7 @@ public class Checkout extends BaseTest {
         CheckoutPage checkoutPage = Allure.step("Click on cart", () -> {
             testLogger.info("Clicking on cart");
             CheckoutPage cp = homePage.clickOnCart();
+            recordPerformance("Click on cart", cp);
             attachScreenshot("After clicking cart");
             attachLogs("Cart Click");
             return cp;
@@ -173,36 +152,41 @@ public class Checkout extends BaseTest {
         Allure.step("Proceed to first checkout page", () -> {
             testLogger.info("Proceeding to first checkout page");
             checkoutPage.ProceedToFirstCheckoutPage();
+            recordPerformance("Proceed to first checkout page", checkoutPage);
             attachScreenshot("After proceeding to first checkout");
             attachLogs("First Checkout");
         });
         Allure.step("Proceed to second checkout page", () -> {
             testLogger.info("Proceeding to second checkout page");
             checkoutPage.ProceedToSecondCheckoutPage();
+            recordPerformance("Proceed to second checkout page", checkoutPage);
             attachScreenshot("After proceeding to second checkout");
             attachLogs("Second Checkout");
         });
         Allure.step("Fill billing information", () -> {
-            testLogger.info("Filling billing information: " + street + ", " + city + ", " + state + ", " + country + ", " + postal_code);
-            checkoutPage.FillBillingThirdCheckoutPage(street, city, state, country, postal_code);
+            testLogger.info("Filling billing information: " + data.street() + ", " + data.city() + ", " + data.state() + ", " + data.country() + ", " + data.postalCode());
+            checkoutPage.FillBillingThirdCheckoutPage(data.street(), data.city(), data.state(), data.country(), data.postalCode());
             attachScreenshot("After filling billing info");
             attachLogs("Billing Info");
         });
         Allure.step("Proceed to third checkout page", () -> {
             testLogger.info("Proceeding to third checkout page");
             checkoutPage.ProceedToThirdCheckoutPage();
+            recordPerformance("Proceed to third checkout page", checkoutPage);
             attachScreenshot("After proceeding to third checkout");
             attachLogs("Third Checkout");
         });
         Allure.step("Choose payment method", () -> {
             testLogger.info("Choosing payment method");
             checkoutPage.choosePaymentMethod();
+            recordPerformance("Choose payment method", checkoutPage);
             attachScreenshot("After choosing payment");
             attachLogs("Payment Method");
         });
         Allure.step("Finalize order", () -> {
             testLogger.info("Finalizing order");
             checkoutPage.finilizeOrder();
+            recordPerformance("Finalize order", checkoutPage);
             attachScreenshot("After finalizing order");
             attachLogs("Order Finalize");
         });
@@ -214,8 +198,8 @@ public class Checkout extends BaseTest {
             return msg;
         });
         Allure.step("Verify payment confirmation message", () -> {
-            testLogger.info("Verifying payment confirmation message: expected '" + expectedMessage + "', got '" + returnedMessage + "'");
-            Assert.assertEquals(returnedMessage, expectedMessage);
+            testLogger.info("Verifying payment confirmation message: expected '" + data.expectedMessage() + "', got '" + returnedMessage + "'");
+            Assert.assertEquals(returnedMessage, data.expectedMessage());
             attachScreenshot("After verifying confirmation");
             attachLogs("Confirmation Verification");
         });
@@ -233,8 +217,8 @@ public class Checkout extends BaseTest {
             return msg;
         });
         Allure.step("Verify order confirmation message", () -> {
-            testLogger.info("Verifying order confirmation message contains: " + invoiceexpectedMessage);
-            Assert.assertTrue(returnedinvoiceMessage.contains(invoiceexpectedMessage));
+            testLogger.info("Verifying order confirmation message contains: " + data.invoiceExpectedMessage());
+            Assert.assertTrue(returnedinvoiceMessage.contains(data.invoiceExpectedMessage()));
             attachScreenshot("After verifying invoice");
             attachLogs("Invoice Verification");
         });
@@ -244,6 +228,7 @@ public class Checkout extends BaseTest {
             attachScreenshot("After verifying cart not displayed");
             attachLogs("Cart Not Displayed");
         });
+        Allure.step("Verify performance budgets", this::assertPerformanceBudgets);
         testLogger.info("Checkout automation scenario completed successfully");
     }
 }
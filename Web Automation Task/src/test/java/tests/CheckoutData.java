@@ -0,0 +1,58 @@
+package tests;
+
+import java.util.Map;
+
+/**
+ * One row of checkout test data.
+ * @param url The application URL to test
+ * @param username User login credentials
+ * @param password User password
+ * @param street Billing address street
+ * @param city Billing address city
+ * @param state Billing address state
+ * @param country Billing address country
+ * @param postalCode Billing address postal code
+ * @param expectedMessage Expected payment confirmation message
+ * @param invoiceExpectedMessage Expected invoice confirmation message
+ */
+public record CheckoutData(String url, String username, String password, String street, String city, String state,
+                           String country, String postalCode, String expectedMessage, String invoiceExpectedMessage) {
+
+    /**
+     * Maps a data file row, keyed by the field names of testdata.json, onto checkout data.
+     * @param row Field values by name
+     * @return The checkout data
+     * @throws IllegalArgumentException if a field is missing
+     */
+    public static CheckoutData fromRow(Map<String, String> row) {
+        return new CheckoutData(
+                field(row, "url"),
+                field(row, "username"),
+                field(row, "password"),
+                field(row, "street"),
+                field(row, "city"),
+                field(row, "state"),
+                field(row, "country"),
+                field(row, "postal_code"),
+                field(row, "expectedMessage"),
+                field(row, "invoiceexpectedMessage"));
+    }
+
+    private static String field(Map<String, String> row, String name) {
+        String value = row.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field \"" + name + "\"");
+        }
+        return value;
+    }
+
+    /**
+     * Describes the row without the password, as TestNG and Allure show parameters in their reports.
+     * @return The row description
+     */
+    @Override
+    public String toString() {
+        return "CheckoutData[url=" + url + ", username=" + username + ", password=***, street=" + street
+                + ", city=" + city + ", state=" + state + ", country=" + country + ", postalCode=" + postalCode + "]";
+    }
+}
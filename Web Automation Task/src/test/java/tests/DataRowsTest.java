@@ -0,0 +1,235 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import base.DataRows;
+
+/**
+ * Test class for the streaming test data reader: RFC 4180 quoting, line endings, byte order marks and
+ * blank lines of CSV files, flat JSON rows, and the errors for malformed files.
+ */
+public class DataRowsTest {
+    /** Directory of the data files */
+    private Path directory;
+
+    /**
+     * Creates the directory shared by the tests.
+     * @throws IOException if the directory cannot be created
+     */
+    @BeforeClass
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("data-rows");
+    }
+
+    /**
+     * Deletes the data files.
+     * @throws IOException if a file cannot be deleted
+     */
+    @AfterClass(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Verifies quoted fields with separators, doubled quotes and line breaks, and empty fields.
+     * @throws IOException if the file cannot be written or read
+     */
+    @Test
+    public void testCsvQuoting() throws IOException {
+        List<Map<String, String>> rows = readAll(write("quoting.csv",
+                "name,comment,city\n"
+                        + "\"Doe, John\",\"He said \"\"hi\"\"\",Berlin\n"
+                        + "Jane,\"two\nlines\",\n"
+                        + "\"\",,\"\"\"\"\n"));
+
+        assertEquals(rows.size(), 3);
+        assertEquals(rows.get(0), Map.of("name", "Doe, John", "comment", "He said \"hi\"", "city", "Berlin"));
+        assertEquals(rows.get(1), Map.of("name", "Jane", "comment", "two\nlines", "city", ""));
+        assertEquals(rows.get(2), Map.of("name", "", "comment", "", "city", "\""));
+    }
+
+    /**
+     * Verifies that CRLF, CR and LF line endings, a missing final line break and a byte order mark are handled.
+     * @throws IOException if the file cannot be written or read
+     */
+    @Test
+    public void testCsvLineEndingsAndByteOrderMark() throws IOException {
+        List<Map<String, String>> rows = readAll(write("line-endings.csv",
+                "\uFEFFid,value\r\n1,crlf\r\n2,cr\r3,lf\n4,\"quoted\r\nbreak\"\r\n5,last"));
+
+        assertEquals(rows.size(), 5);
+        assertEquals(rows.get(0), Map.of("id", "1", "value", "crlf"));
+        assertEquals(rows.get(1), Map.of("id", "2", "value", "cr"));
+        assertEquals(rows.get(2), Map.of("id", "3", "value", "lf"));
+        assertEquals(rows.get(3), Map.of("id", "4", "value", "quoted\r\nbreak"));
+        assertEquals(rows.get(4), Map.of("id", "5", "value", "last"));
+    }
+
+    /**
+     * Verifies that blank lines between and after the rows are skipped.
+     * @throws IOException if the file cannot be written or read
+     */
+    @Test
+    public void testCsvSkipsBlankLines() throws IOException {
+        List<Map<String, String>> rows = readAll(write("blank-lines.csv", "id,value\n\n1,a\r\n\r\n\n2,b\n\n"));
+
+        assertEquals(rows, List.of(Map.of("id", "1", "value", "a"), Map.of("id", "2", "value", "b")));
+    }
+
+    /**
+     * Verifies that a row with the wrong number of fields fails with its row number and closes the reader.
+     * @throws IOException if the file cannot be written
+     */
+    @Test
+    public void testCsvWrongFieldCount() throws IOException {
+        DataRows rows = DataRows.open(write("field-count.csv", "id,value\n1,a\n2,b,extra\n3,c\n"), null);
+
+        assertEquals(rows.next(), Map.of("id", "1", "value", "a"));
+        IllegalStateException e = expectThrows(IllegalStateException.class, rows::hasNext);
+        assertTrue(e.getMessage().startsWith("Could not read row 2 of "), e.getMessage());
+        assertEquals(e.getCause().getMessage(), "Expected 2 fields but found 3");
+        assertFalse(rows.hasNext());
+    }
+
+    /**
+     * Verifies that a quoted field running to the end of the file is rejected.
+     * @throws IOException if the file cannot be written
+     */
+    @Test
+    public void testCsvUnclosedQuote() throws IOException {
+        DataRows rows = DataRows.open(write("unclosed.csv", "id,value\n1,\"open\n"), null);
+
+        IllegalStateException e = expectThrows(IllegalStateException.class, rows::hasNext);
+        assertEquals(e.getCause().getMessage(), "Unclosed quoted field");
+    }
+
+    /**
+     * Verifies that a CSV file without a header row cannot be opened.
+     * @throws IOException if the file cannot be written
+     */
+    @Test
+    public void testCsvWithoutHeader() throws IOException {
+        Path file = write("empty.csv", "");
+
+        IOException e = expectThrows(IOException.class, () -> DataRows.open(file, null));
+        assertTrue(e.getMessage().startsWith("No header row"), e.getMessage());
+    }
+
+    /**
+     * Verifies rows under a named property: scalars become strings, null stays null, nested values and
+     * properties before the array are skipped.
+     * @throws IOException if the file cannot be written or read
+     */
+    @Test
+    public void testJsonNamedArray() throws IOException {
+        List<Map<String, String>> rows = readAll(write("named.json",
+                "{\"version\": 2, \"meta\": {\"rows\": [1]}, \"testData\": ["
+                        + "{\"name\": \"a\", \"count\": 3, \"active\": true, \"note\": null, \"tags\": [\"x\"], \"address\": {\"city\": \"b\"}},"
+                        + "{\"name\": \"c\"}]}"), "testData");
+
+        assertEquals(rows.size(), 2);
+        assertEquals(new ArrayList<>(rows.get(0).keySet()), List.of("name", "count", "active", "note"));
+        assertEquals(rows.get(0).get("name"), "a");
+        assertEquals(rows.get(0).get("count"), "3");
+        assertEquals(rows.get(0).get("active"), "true");
+        assertNull(rows.get(0).get("note"));
+        assertEquals(rows.get(1), Map.of("name", "c"));
+    }
+
+    /**
+     * Verifies rows of a top-level array.
+     * @throws IOException if the file cannot be written or read
+     */
+    @Test
+    public void testJsonTopLevelArray() throws IOException {
+        List<Map<String, String>> rows = readAll(write("array.json", "[{\"id\": 1}, {\"id\": 2}]"), null);
+
+        assertEquals(rows, List.of(Map.of("id", "1"), Map.of("id", "2")));
+    }
+
+    /**
+     * Verifies that a JSON file without the named array cannot be opened.
+     * @throws IOException if the file cannot be written
+     */
+    @Test
+    public void testJsonMissingArray() throws IOException {
+        Path file = write("missing.json", "{\"other\": []}");
+
+        IOException e = expectThrows(IOException.class, () -> DataRows.open(file, "testData"));
+        assertTrue(e.getMessage().startsWith("No array \"testData\""), e.getMessage());
+    }
+
+    /**
+     * Verifies that a row the mapper rejects is reported with its row number.
+     * @throws IOException if the file cannot be written
+     */
+    @Test
+    public void testInvalidRowIsReported() throws IOException {
+        Iterator<Object[]> parameters = DataRows.open(write("invalid.csv", "id\n1\n\n"), null)
+                .asParameters(row -> {
+                    throw new IllegalArgumentException("Missing field \"name\"");
+                });
+
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, parameters::next);
+        assertTrue(e.getMessage().startsWith("Invalid row 1 of "), e.getMessage());
+        assertTrue(e.getMessage().endsWith(": Missing field \"name\""), e.getMessage());
+    }
+
+    /**
+     * Writes a data file.
+     * @param name The file name, whose extension selects the format
+     * @param content The file content
+     * @return The written file
+     * @throws IOException if the file cannot be written
+     */
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads every row of a CSV file.
+     * @param file The data file
+     * @return The rows in file order
+     * @throws IOException if the file cannot be opened
+     */
+    private static List<Map<String, String>> readAll(Path file) throws IOException {
+        return readAll(file, null);
+    }
+
+    /**
+     * Reads every row of a data file.
+     * @param file The data file
+     * @param arrayName Name of the top-level JSON property holding the rows, or null
+     * @return The rows in file order
+     * @throws IOException if the file cannot be opened
+     */
+    private static List<Map<String, String>> readAll(Path file, String arrayName) throws IOException {
+        List<Map<String, String>> rows = new ArrayList<>();
+        try (DataRows reader = DataRows.open(file, arrayName)) {
+            reader.forEachRemaining(rows::add);
+        }
+        return rows;
+    }
+}
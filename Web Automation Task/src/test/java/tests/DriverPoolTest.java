@@ -0,0 +1,215 @@
+package tests;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.testng.annotations.Test;
+
+import base.BrowserProfile;
+import base.DriverFactory;
+import base.DriverPool;
+
+/**
+ * Test class for the pool of browser sessions: reuse, recycling, health checks and waiting for a session.
+ * Sessions come from a fake factory, so no browser is started.
+ */
+public class DriverPoolTest {
+
+    /**
+     * Verifies that a released session is handed to the next test instead of starting a new one.
+     */
+    @Test
+    public void testReleasedSessionIsReused() {
+        FakeFactory factory = new FakeFactory();
+        DriverPool pool = new DriverPool(factory, 2, 10, Duration.ofSeconds(5));
+
+        WebDriver first = pool.acquire();
+        pool.release(first, false);
+        WebDriver second = pool.acquire();
+
+        assertSame(second, first);
+        assertEquals(factory.started.get(), 1);
+        assertEquals(pool.hitRate(), 0.5);
+    }
+
+    /**
+     * Verifies that sessions are quit after a failed test and after their last use.
+     */
+    @Test
+    public void testFailedAndWornOutSessionsAreRecycled() {
+        FakeFactory factory = new FakeFactory();
+        DriverPool pool = new DriverPool(factory, 2, 2, Duration.ofSeconds(5));
+
+        WebDriver failed = pool.acquire();
+        pool.release(failed, true);
+        WebDriver worn = pool.acquire();
+        pool.release(worn, false);
+        assertSame(pool.acquire(), worn);
+        pool.release(worn, false);
+
+        assertNotSame(worn, failed);
+        assertEquals(factory.quit, List.of(failed, worn));
+        assertTrue(pool.stats().contains("live=0"), pool.stats());
+        assertTrue(pool.stats().contains("recycled=2"), pool.stats());
+    }
+
+    /**
+     * Verifies that an idle session which stopped answering is replaced when it is handed out.
+     */
+    @Test
+    public void testUnhealthySessionIsReplaced() {
+        FakeFactory factory = new FakeFactory();
+        DriverPool pool = new DriverPool(factory, 1, 10, Duration.ofSeconds(5));
+        WebDriver broken = pool.acquire();
+        pool.release(broken, false);
+        factory.broken.add(broken);
+
+        WebDriver replacement = pool.acquire();
+
+        assertNotSame(replacement, broken);
+        assertEquals(factory.quit, List.of(broken));
+        assertTrue(pool.stats().contains("unhealthy=1"), pool.stats());
+    }
+
+    /**
+     * Verifies that a test waiting for a full pool gets the slot of a session recycled by another test,
+     * instead of waiting for the whole timeout.
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testWaiterGetsSlotOfRecycledSession() throws InterruptedException {
+        FakeFactory factory = new FakeFactory();
+        DriverPool pool = new DriverPool(factory, 1, 10, Duration.ofSeconds(30));
+        WebDriver busy = pool.acquire();
+        Thread releaser = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pool.release(busy, true);
+        });
+
+        long start = System.nanoTime();
+        WebDriver next = pool.acquire();
+        long waited = System.nanoTime() - start;
+        releaser.join();
+
+        assertNotSame(next, busy);
+        assertEquals(factory.started.get(), 2);
+        assertTrue(waited < TimeUnit.SECONDS.toNanos(5), "Waited " + waited + " ns");
+    }
+
+    /**
+     * Verifies that acquiring from a pool whose sessions are all busy fails after the wait timeout.
+     */
+    @Test
+    public void testAcquireTimesOut() {
+        DriverPool pool = new DriverPool(new FakeFactory(), 1, 10, Duration.ofMillis(300));
+        pool.acquire();
+
+        long start = System.nanoTime();
+        IllegalStateException e = expectThrows(IllegalStateException.class, pool::acquire);
+
+        assertTrue(e.getMessage().startsWith("No browser session available after PT0.3S"), e.getMessage());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    /**
+     * Verifies that prestarting is capped at the pool size and serves the first acquisitions.
+     */
+    @Test
+    public void testPrestart() {
+        FakeFactory factory = new FakeFactory();
+        DriverPool pool = new DriverPool(factory, 2, 10, Duration.ofSeconds(5));
+
+        pool.prestart(5);
+        pool.acquire();
+        pool.acquire();
+
+        assertEquals(factory.started.get(), 2);
+        assertEquals(pool.hitRate(), 1.0);
+    }
+
+    /**
+     * Factory of fake sessions that answer every command without a browser, except the sessions marked broken.
+     */
+    private static final class FakeFactory extends DriverFactory {
+        /** Number of sessions started */
+        private final AtomicInteger started = new AtomicInteger();
+
+        /** Sessions quit, in order */
+        private final List<WebDriver> quit = new CopyOnWriteArrayList<>();
+
+        /** Sessions whose commands fail */
+        private final Set<WebDriver> broken = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Creates the factory; its browser profile is never used.
+         */
+        private FakeFactory() {
+            super(BrowserProfile.DEFAULT);
+        }
+
+        @Override
+        public WebDriver createDriver() {
+            int number = started.incrementAndGet();
+            WebDriver[] self = new WebDriver[1];
+            self[0] = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "toString":
+                                return "session " + number;
+                            default:
+                                break;
+                        }
+                        if (broken.contains(self[0])) {
+                            throw new WebDriverException("Session " + number + " is gone");
+                        }
+                        return switch (method.getName()) {
+                            case "getWindowHandle" -> "main";
+                            case "getWindowHandles" -> Set.of("main");
+                            case "switchTo" -> stub(WebDriver.TargetLocator.class, self[0]);
+                            case "manage" -> stub(WebDriver.Options.class, self[0]);
+                            default -> null;
+                        };
+                    });
+            return self[0];
+        }
+
+        @Override
+        public void quitDriver(WebDriver driver) {
+            quit.add(driver);
+        }
+
+        /**
+         * Creates a helper object of a session whose methods return the session or nothing.
+         * @param type The interface, e.g. the target locator
+         * @param driver The session
+         * @return The helper object
+         */
+        private static Object stub(Class<?> type, WebDriver driver) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                    (proxy, method, args) -> method.getReturnType() == WebDriver.class ? driver : null);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Compares a JMH JSON result with the saved baseline and fails on regressions.
+ * Benchmarks are matched by name and parameters. The primary score regresses when it is worse than the
+ * baseline by more than the score threshold, taking the direction of the benchmark mode into account
+ * (higher is better for throughput, lower for time modes); the 99.9% confidence interval reported by JMH
+ * must lie entirely beyond the threshold, so noisy I/O-bound benchmarks do not fail on jitter.
+ * The allocation rate per operation reported by the GC profiler regresses when it grows by more than the
+ * allocation threshold and by more than {@value #ALLOC_NOISE_BYTES} bytes, which absorbs the profiler noise
+ * of allocation-free code.
+ * Benchmarks missing from the baseline are reported as new and never fail the comparison.
+ * <p>
+ * The baseline keeps only {@code benchmark}, {@code params}, {@code mode}, {@code score}, {@code scoreError}
+ * and {@code alloc} of every run. It is written from a complete JMH result with {@code --save}, which replaces
+ * the whole file, so that all entries come from one run on one machine.
+ * <p>
+ * Usage: {@code BaselineComparator <result.json> <baseline.json> [scoreThresholdPercent] [allocThresholdPercent]};
+ * the process exits with status 1 when at least one benchmark regressed.
+ * {@code BaselineComparator --save <result.json> <baseline.json>} records a new baseline.
+ */
+public class BaselineComparator {
+
+    /** Allocation differences below this many bytes per operation are ignored */
+    static final double ALLOC_NOISE_BYTES = 16;
+
+    /** Suffix of the GC profiler's normalized allocation rate metric */
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    /** Parser of the JMH result files */
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args Result file, baseline file and optional score and allocation thresholds in percent
+     * @throws IOException if a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && "--save".equals(args[0])) {
+            int saved = save(new File(args[1]), new File(args[2]));
+            System.out.println("Saved " + saved + " benchmarks from " + args[1] + " to " + args[2]);
+            return;
+        }
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <result.json> <baseline.json> [scoreThresholdPercent] [allocThresholdPercent]");
+            System.err.println("       BaselineComparator --save <result.json> <baseline.json>");
+            System.exit(2);
+        }
+        File baseline = new File(args[1]);
+        if (!baseline.isFile()) {
+            System.err.println("No baseline at " + baseline + ", save a result there first: java -cp target/benchmarks.jar "
+                    + BaselineComparator.class.getName() + " --save " + args[0] + " " + args[1]);
+            System.exit(2);
+        }
+        double scoreThreshold = args.length > 2 ? Double.parseDouble(args[2]) : 20;
+        double allocThreshold = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+        List<String> regressions = compare(read(new File(args[0])), read(baseline), scoreThreshold, allocThreshold);
+        if (!regressions.isEmpty()) {
+            System.out.println(regressions.size() + " benchmark regression(s) against " + args[1] + ":");
+            regressions.forEach(regression -> System.out.println("  " + regression));
+            System.exit(1);
+        }
+        System.out.println("No benchmark regressions against " + args[1]);
+    }
+
+    /**
+     * Compares every result with its baseline entry and prints one line per benchmark.
+     *
+     * @param results Results by benchmark key
+     * @param baseline Baseline results by benchmark key
+     * @param scoreThreshold Allowed score regression in percent
+     * @param allocThreshold Allowed allocation regression in percent
+     * @return Descriptions of the regressions, empty if there are none
+     */
+    static List<String> compare(Map<String, Result> results, Map<String, Result> baseline,
+                                double scoreThreshold, double allocThreshold) {
+        List<String> regressions = new ArrayList<>();
+        results.forEach((key, result) -> {
+            Result base = baseline.get(key);
+            if (base == null) {
+                System.out.println(String.format(Locale.ROOT, "NEW   %s: %.3f %s", key, result.score(), result.unit()));
+                return;
+            }
+            double change = percentChange(base.score(), result.score());
+            boolean higherIsBetter = "thrpt".equals(result.mode());
+            double error = Double.isNaN(result.scoreError()) ? 0 : result.scoreError();
+            boolean scoreRegressed = higherIsBetter
+                    ? percentChange(base.score(), result.score() + error) < -scoreThreshold
+                    : percentChange(base.score(), result.score() - error) > scoreThreshold;
+            String line = String.format(Locale.ROOT, "%s: %.3f -> %.3f %s (%+.1f%%)",
+                    key, base.score(), result.score(), result.unit(), change);
+            if (!Double.isNaN(result.allocBytes()) && !Double.isNaN(base.allocBytes())) {
+                double allocChange = percentChange(base.allocBytes(), result.allocBytes());
+                line += String.format(Locale.ROOT, ", alloc %.0f -> %.0f B/op", base.allocBytes(), result.allocBytes());
+                if (allocChange > allocThreshold && result.allocBytes() - base.allocBytes() > ALLOC_NOISE_BYTES) {
+                    regressions.add(line + " allocation regressed");
+                }
+            }
+            if (scoreRegressed) {
+                regressions.add(line + " score regressed");
+            }
+            System.out.println((scoreRegressed ? "WORSE " : "OK    ") + line);
+        });
+        return regressions;
+    }
+
+    /**
+     * Replaces the baseline with the runs of a JMH result, keeping only the fields the comparison reads.
+     *
+     * @param result The file written with {@code -rf json}
+     * @param baseline The baseline file to replace
+     * @return Number of saved benchmarks
+     * @throws IOException if a file cannot be read or written
+     */
+    static int save(File result, File baseline) throws IOException {
+        ArrayNode entries = objectMapper.createArrayNode();
+        for (JsonNode run : objectMapper.readTree(result)) {
+            Result parsed = parse(run);
+            ObjectNode entry = entries.addObject();
+            entry.put("benchmark", run.path("benchmark").asText());
+            if (run.has("params")) {
+                entry.set("params", run.get("params"));
+            }
+            entry.put("mode", parsed.mode());
+            entry.put("score", parsed.score());
+            // Unknown values are left out, JSON has no NaN
+            if (!Double.isNaN(parsed.scoreError())) {
+                entry.put("scoreError", parsed.scoreError());
+            }
+            if (!Double.isNaN(parsed.allocBytes())) {
+                entry.put("alloc", parsed.allocBytes());
+            }
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(baseline, entries);
+        return entries.size();
+    }
+
+    /**
+     * Reads a JMH JSON result file or a baseline saved from one.
+     *
+     * @param file The file written with {@code -rf json} or {@code --save}
+     * @return Results by benchmark key, in file order
+     * @throws IOException if the file cannot be read
+     */
+    static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : objectMapper.readTree(file)) {
+            results.put(key(run), parse(run));
+        }
+        return results;
+    }
+
+    /**
+     * Extracts the compared values of one run, either from the full JMH format or from a baseline entry.
+     *
+     * @param run One entry of the JMH result or baseline array
+     * @return The mode, score and allocation of the run; the unit is empty for baseline entries
+     */
+    private static Result parse(JsonNode run) {
+        if (!run.has("primaryMetric")) {
+            return new Result(run.path("mode").asText(), run.path("score").asDouble(),
+                    run.path("scoreError").asDouble(Double.NaN), "", run.path("alloc").asDouble(Double.NaN));
+        }
+        JsonNode primary = run.path("primaryMetric");
+        double allocBytes = Double.NaN;
+        Iterator<Map.Entry<String, JsonNode>> secondary = run.path("secondaryMetrics").fields();
+        while (secondary.hasNext()) {
+            Map.Entry<String, JsonNode> metric = secondary.next();
+            if (metric.getKey().endsWith(ALLOC_METRIC)) {
+                allocBytes = metric.getValue().path("score").asDouble();
+            }
+        }
+        return new Result(run.path("mode").asText(), primary.path("score").asDouble(),
+                primary.path("scoreError").asDouble(Double.NaN), primary.path("scoreUnit").asText(), allocBytes);
+    }
+
+    /**
+     * Builds the key of a run from its benchmark name and parameters.
+     *
+     * @param run One entry of the JMH result array
+     * @return Key such as {@code benchmarks.LogAppenderBenchmark.append} or {@code ...readJsonFile{rows=100}}
+     */
+    private static String key(JsonNode run) {
+        Map<String, String> params = new TreeMap<>();
+        run.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+        return run.path("benchmark").asText() + (params.isEmpty() ? "" : params.toString());
+    }
+
+    private static double percentChange(double base, double value) {
+        return base == 0 ? 0 : (value - base) / base * 100;
+    }
+
+    /**
+     * Primary score and allocation rate of one benchmark.
+     *
+     * @param mode The JMH mode, e.g. {@code avgt} or {@code thrpt}
+     * @param score The primary score
+     * @param scoreError Half-width of the 99.9% confidence interval of the score, NaN if unknown
+     * @param unit The unit of the primary score
+     * @param allocBytes Bytes allocated per operation, NaN without the GC profiler
+     */
+    record Result(String mode, double score, double scoreError, String unit, double allocBytes) {
+    }
+}
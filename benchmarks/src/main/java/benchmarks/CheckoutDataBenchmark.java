@@ -0,0 +1,130 @@
+package benchmarks;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.gson.stream.JsonWriter;
+
+import base.DataRows;
+import tests.Checkout;
+
+/**
+ * Benchmark of the streaming {@link Checkout#getCheckoutData()} data provider.
+ * The data file holds {@code rows} copies of the first row of {@code src/test/resources/testdata.json}, which is
+ * read relative to the working directory, so the suite must run in the web module directory, as the
+ * {@code benchmark} profile does. {@code firstRow} shows that the time to the first test does not grow with
+ * the file, {@code allRows} the cost of draining it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class CheckoutDataBenchmark {
+
+    /** Number of rows in the data file */
+    @Param({"1", "100000"})
+    public int rows;
+
+    /** Test instance providing the data provider */
+    private final Checkout checkout = new Checkout();
+
+    /** Generated data file */
+    private Path file;
+
+    /**
+     * Writes the data file and points the data provider at it.
+     *
+     * @throws IOException if the data cannot be read or written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        File data = new File("src/test/resources/testdata.json");
+        if (!data.isFile()) {
+            throw new IllegalStateException("Checkout data not found at " + data.getAbsolutePath()
+                    + ", run the benchmarks from the Web Automation Task directory");
+        }
+        Map<String, String> row;
+        try (DataRows testData = DataRows.open(data.toPath(), "testData")) {
+            row = testData.next();
+        }
+        file = Files.createTempFile("checkout-data", ".json");
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             JsonWriter json = new JsonWriter(out)) {
+            json.beginObject().name("testData").beginArray();
+            for (int i = 0; i < rows; i++) {
+                json.beginObject();
+                for (Map.Entry<String, String> field : row.entrySet()) {
+                    json.name(field.getKey()).value(field.getValue());
+                }
+                json.endObject();
+            }
+            json.endArray().endObject();
+        }
+        System.setProperty("checkout.data", file.toString());
+    }
+
+    /**
+     * Removes the data file.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        System.clearProperty("checkout.data");
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Opens the data provider and reads the row the first test runs with.
+     *
+     * @return The first data provider row
+     * @throws IOException if the data file cannot be read
+     */
+    @Benchmark
+    public Object[] firstRow() throws IOException {
+        Iterator<Object[]> data = checkout.getCheckoutData();
+        try {
+            return data.next();
+        } finally {
+            ((Closeable) data).close();
+        }
+    }
+
+    /**
+     * Reads and maps all checkout data rows.
+     *
+     * @param blackhole Sink of the rows
+     * @throws IOException if the data file cannot be read
+     */
+    @Benchmark
+    public void allRows(Blackhole blackhole) throws IOException {
+        Iterator<Object[]> data = checkout.getCheckoutData();
+        while (data.hasNext()) {
+            blackhole.consume(data.next());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tests.CreateUserTest;
+
+/**
+ * Benchmark of {@link CreateUserTest#createRequestBody(String, String)}, including the step logging and
+ * the log attachment it performs. Allure writes the attachment file even outside a running test, so the
+ * results directory is redirected to a temporary directory that is emptied after every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class CreateUserBodyBenchmark {
+
+    /** Test instance providing the payload builder */
+    private final CreateUserTest test = new CreateUserTest();
+
+    /** Directory receiving the attachments written by the benchmark */
+    private Path resultsDirectory;
+
+    /**
+     * Redirects the Allure results before the Allure lifecycle is created.
+     *
+     * @throws IOException if the temporary directory cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        resultsDirectory = Files.createTempDirectory("benchmark-allure-results");
+        System.setProperty("allure.results.directory", resultsDirectory.toString());
+    }
+
+    /**
+     * Deletes the attachments written during the iteration.
+     *
+     * @throws IOException if the directory cannot be listed
+     */
+    @TearDown(Level.Iteration)
+    public void deleteAttachments() throws IOException {
+        try (Stream<Path> files = Files.walk(resultsDirectory)) {
+            files.sorted(Comparator.reverseOrder())
+                    .filter(file -> !file.equals(resultsDirectory))
+                    .forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /**
+     * Removes the temporary results directory.
+     *
+     * @throws IOException if the directory cannot be listed
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        deleteAttachments();
+        Files.deleteIfExists(resultsDirectory);
+    }
+
+    /**
+     * Builds the create-user payload for the user of {@code userData.json}.
+     *
+     * @return The JSON request body
+     */
+    @Benchmark
+    public byte[] createRequestBody() {
+        return test.createRequestBody("John Doe", "QA Engineer");
+    }
+}
@@ -0,0 +1,138 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import load.DataFeed;
+import load.DataFeedGenerator;
+import utils.PayloadTemplate;
+
+/**
+ * Benchmark of a virtual user's pass over its {@link DataFeed} partition: moving to the next record and
+ * rendering the login payload from its e-mail and password. Four threads share the feed with one partition
+ * each, as virtual users do. With the GC profiler {@code next} must report no allocation per operation;
+ * {@code nextAndRenderLogin} only allocates the exactly sized payload array when consecutive customers'
+ * payloads differ in length.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+@Threads(4)
+public class DataFeedBenchmark {
+
+    /** Login payload of LoginInvoiceScenario */
+    private static final PayloadTemplate LOGIN_BODY = PayloadTemplate.compile(
+            "{\"email\":\"${email}\",\"password\":\"${password}\"}");
+
+    /**
+     * Generated feed shared by all threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Feed {
+
+        /** Number of partitions, one per benchmark thread */
+        static final int USERS = 4;
+
+        /** The feed file */
+        private Path file;
+
+        /** The mapped feed */
+        DataFeed feed;
+
+        /**
+         * Generates and maps a feed of 100,000 customers.
+         *
+         * @throws IOException if the feed cannot be written
+         */
+        @Setup
+        public void setUp() throws IOException {
+            file = Files.createTempFile("customers", ".feed");
+            DataFeedGenerator.generate(file, 100_000, 42);
+            feed = DataFeed.open(file);
+        }
+
+        /**
+         * Deletes the feed file.
+         *
+         * @throws IOException if the file cannot be deleted
+         */
+        @TearDown
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Partition and field values of one virtual user.
+     */
+    @State(Scope.Thread)
+    public static class User {
+
+        /** The user's partition */
+        DataFeed.Partition partition;
+
+        /** E-mail value of the record view */
+        CharSequence email;
+
+        /** Password value of the record view */
+        CharSequence password;
+
+        /** Render buffers of the login payload */
+        final PayloadTemplate.Renderer loginBody = LOGIN_BODY.renderer();
+
+        /**
+         * Takes the partition of the benchmark thread.
+         *
+         * @param feed The shared feed
+         * @param params Thread parameters, whose index selects the partition
+         */
+        @Setup
+        public void setUp(Feed feed, ThreadParams params) {
+            partition = feed.feed.partition(params.getThreadIndex() % Feed.USERS, Feed.USERS);
+            email = partition.record().get(feed.feed.fieldIndex("email"));
+            password = partition.record().get(feed.feed.fieldIndex("password"));
+        }
+    }
+
+    /**
+     * Moves to the next record and reads its e-mail address.
+     *
+     * @param user The virtual user
+     * @return The length of the e-mail address
+     */
+    @Benchmark
+    public int next(User user) {
+        user.partition.next();
+        return user.email.length();
+    }
+
+    /**
+     * Moves to the next record and renders the login payload of its customer.
+     *
+     * @param user The virtual user
+     * @return The UTF-8 payload
+     */
+    @Benchmark
+    public byte[] nextAndRenderLogin(User user) {
+        user.partition.next();
+        return user.loginBody.render(user.email, user.password);
+    }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.JsonUtil;
+
+/**
+ * Benchmark of {@link JsonUtil#readJsonFile(String)} reading the user data of {@code CreateUserTest}.
+ * The file is resolved against {@code benchmark.api.dir}, which defaults to the API module as seen from
+ * the web module, the directory the {@code benchmark} profile runs the suites in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class JsonUtilBenchmark {
+
+    /** Path of the user data file */
+    private String filePath;
+
+    /**
+     * Resolves the user data file and fails fast if it cannot be found.
+     */
+    @Setup
+    public void setUp() {
+        File file = new File(System.getProperty("benchmark.api.dir", "../API Automation Task"), "src/testdata/userData.json");
+        if (!file.isFile()) {
+            throw new IllegalStateException("User data not found at " + file.getAbsolutePath() + ", set -Dbenchmark.api.dir");
+        }
+        filePath = file.getPath();
+    }
+
+    /**
+     * Reads and parses the user data file.
+     *
+     * @return The parsed user data
+     */
+    @Benchmark
+    public Map<String, Object> readJsonFile() {
+        return JsonUtil.readJsonFile(filePath);
+    }
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import load.LiveMetrics;
+
+/**
+ * Benchmark of {@link LiveMetrics.Series#record(long, boolean)} with a single thread and under contention,
+ * while the ticker harvests the series every second as in a load run. Recording must stay well below a
+ * microsecond and allocate nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class LiveMetricsBenchmark {
+
+    /** Live metrics with the default window and history, without endpoint or console output */
+    private LiveMetrics metrics;
+
+    /** The series recorded into */
+    private LiveMetrics.Series series;
+
+    /**
+     * Creates the metrics and starts their ticker.
+     *
+     * @throws IOException never, the endpoint is disabled
+     */
+    @Setup
+    public void setUp() throws IOException {
+        metrics = new LiveMetrics(Duration.ofSeconds(10), Duration.ofSeconds(300), 0, Duration.ZERO,
+                Duration.ofSeconds(10), -1, false).start(() -> { });
+        series = metrics.series("invoice");
+    }
+
+    /**
+     * Stops the ticker.
+     */
+    @TearDown
+    public void tearDown() {
+        metrics.close();
+    }
+
+    /**
+     * Records a successful request from a single thread.
+     */
+    @Benchmark
+    @Threads(1)
+    public void record() {
+        series.record(12_345_678, true);
+    }
+
+    /**
+     * Records a successful request from four threads at once.
+     */
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        series.record(12_345_678, true);
+    }
+}
@@ -0,0 +1,110 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.LogAppender;
+
+/**
+ * Benchmark of {@link LogAppender#append(LogEvent)} with a single thread and under contention.
+ * All threads append to the same appender instance, as the test threads of a parallel run do; the event
+ * is built once per thread so only the append itself is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class LogAppenderBenchmark {
+
+    /**
+     * Appender shared by all benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedAppender {
+
+        /** The appender under test */
+        LogAppender appender;
+
+        /**
+         * Creates and starts the appender with its default ring size.
+         */
+        @Setup
+        public void setUp() {
+            appender = LogAppender.createAppender("Benchmark", 256, 1024);
+            appender.start();
+        }
+
+        /**
+         * Stops the appender.
+         */
+        @TearDown
+        public void tearDown() {
+            appender.stop();
+        }
+    }
+
+    /**
+     * Log event of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadEvent {
+
+        /** The event appended on every invocation */
+        LogEvent event;
+
+        /**
+         * Builds an event shaped like the step logs of {@code CreateUserTest}.
+         */
+        @Setup
+        public void setUp() {
+            event = Log4jLogEvent.newBuilder()
+                    .setLoggerName("tests.CreateUserTest")
+                    .setLevel(Level.INFO)
+                    .setMessage(new SimpleMessage("Creating request body for user: John Doe with job: QA Engineer"))
+                    .setThreadName(Thread.currentThread().getName())
+                    .setTimeMillis(System.currentTimeMillis())
+                    .build();
+        }
+    }
+
+    /**
+     * Appends from a single thread.
+     *
+     * @param shared The shared appender
+     * @param thread The event of the calling thread
+     */
+    @Benchmark
+    @Threads(1)
+    public void append(SharedAppender shared, ThreadEvent thread) {
+        shared.appender.append(thread.event);
+    }
+
+    /**
+     * Appends from four threads at once.
+     *
+     * @param shared The shared appender
+     * @param thread The event of the calling thread
+     */
+    @Benchmark
+    @Threads(4)
+    public void appendContended(SharedAppender shared, ThreadEvent thread) {
+        shared.appender.append(thread.event);
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.PayloadTemplate;
+
+/**
+ * Benchmark of {@link PayloadTemplate#render(CharSequence, CharSequence)} with the create-user payload,
+ * next to the string concatenation it replaced. With the GC profiler, {@code render} must report no
+ * allocation per operation in steady state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class PayloadTemplateBenchmark {
+
+    /** The create-user payload of CreateUserTest */
+    private static final PayloadTemplate template =
+            PayloadTemplate.compile("{\n  \"name\": \"${name}\",\n  \"job\": \"${job}\"\n}");
+
+    /** User name, plain ASCII or with characters that need escaping and multi-byte encoding */
+    @Param({"John Doe", "Jürgen \"JD\" Doe"})
+    public String name;
+
+    /** Job title */
+    private final String job = "QA Engineer";
+
+    /** Render buffers of the benchmark thread, as a virtual user keeps them */
+    private final PayloadTemplate.Renderer renderer = template.renderer();
+
+    /**
+     * Renders the payload into the renderer's buffers.
+     *
+     * @return The UTF-8 payload
+     */
+    @Benchmark
+    public byte[] render() {
+        return renderer.render(name, job);
+    }
+
+    /**
+     * Builds the payload by concatenation and encodes it, as the test did before, without escaping.
+     *
+     * @return The UTF-8 payload
+     */
+    @Benchmark
+    public byte[] concatenate() {
+        String body = "{\n" +
+                "  \"name\": \"" + name + "\",\n" +
+                "  \"job\": \"" + job + "\"\n" +
+                "}";
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,36 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.restassured.specification.RequestSpecification;
+import utils.RequestSpecBuilderUtil;
+
+/**
+ * Benchmark of {@link RequestSpecBuilderUtil#getRequestSpec()}, called once per request by the tests and
+ * the load engine. Measures the configuration lookup of {@code base.url} and the cached specification.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class RequestSpecBenchmark {
+
+    /**
+     * Returns the specification for the configured base URL.
+     *
+     * @return The shared RequestSpecification
+     */
+    @Benchmark
+    public RequestSpecification getRequestSpec() {
+        return RequestSpecBuilderUtil.getRequestSpec();
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.restassured.path.json.JsonPath;
+import utils.ResponseValidator;
+
+/**
+ * Benchmark of {@link ResponseValidator#check(byte[])} on a created-user response, next to the two
+ * {@code jsonPath()} lookups {@code CreateUserTest} made before. The response carries a padding field of
+ * {@code padding} characters after the validated ones, which the validator never reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class ResponseValidatorBenchmark {
+
+    /** Validator of CreateUserTest with the expected name and job */
+    private static final ResponseValidator validator = ResponseValidator.require("name", "job", "id", "createdAt")
+            .expect("name", "John Doe").expect("job", "QA Engineer");
+
+    /** Characters of trailing padding in the response */
+    @Param({"0", "16384"})
+    public int padding;
+
+    /** The UTF-8 response body */
+    private byte[] body;
+
+    /**
+     * Builds the response body.
+     */
+    @Setup
+    public void setUp() {
+        body = ("{\"name\":\"John Doe\",\"job\":\"QA Engineer\",\"id\":\"512\",\"createdAt\":\"2024-05-01T12:00:00.000Z\","
+                + "\"padding\":\"" + "x".repeat(padding) + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Validates the four created-user fields in one streaming pass.
+     *
+     * @return null as the body is valid
+     */
+    @Benchmark
+    public String validate() {
+        return validator.check(body);
+    }
+
+    /**
+     * Reads name and job with two {@code jsonPath()} lookups, each parsing the whole body.
+     *
+     * @return Whether both values match
+     */
+    @Benchmark
+    public boolean jsonPath() {
+        String json = new String(body, StandardCharsets.UTF_8);
+        return "John Doe".equals(JsonPath.from(json).getString("name"))
+                && "QA Engineer".equals(JsonPath.from(json).getString("job"));
+    }
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import load.SampleLogWriter;
+
+/**
+ * Benchmark of {@link SampleLogWriter#record(int, long, long, int, int)} with a single thread and under
+ * contention, while the writer thread encodes, compresses and writes the blocks. Recording must stay well
+ * below a microsecond and allocate nothing once the block buffers are recycled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class SampleLogBenchmark {
+
+    /** The sample log, deleted after the run */
+    private Path file;
+
+    /** Writer of the sample log */
+    private SampleLogWriter writer;
+
+    /** Label id of the recorded samples */
+    private int label;
+
+    /**
+     * Opens a sample log in a temporary file.
+     *
+     * @throws IOException if the file cannot be created
+     */
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("samples", ".bin");
+        writer = new SampleLogWriter(file);
+        label = writer.label("invoice");
+    }
+
+    /**
+     * Closes and deletes the sample log.
+     *
+     * @throws IOException if the log cannot be written or deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        writer.close();
+        Files.delete(file);
+    }
+
+    /**
+     * Records a successful request from a single thread.
+     */
+    @Benchmark
+    @Threads(1)
+    public void record() {
+        writer.record(label, System.currentTimeMillis(), 12_345_678, 420, 201);
+    }
+
+    /**
+     * Records a successful request from four threads at once.
+     */
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        writer.record(label, System.currentTimeMillis(), 12_345_678, 420, 201);
+    }
+}